@@ -74,6 +74,28 @@ public interface CompiledProgram {
 
     void invoke(NativeEncoding encoding, NativeInvocationResultHandler resultHandler, Map<String, Object> arguments, ExecutionScope scope, TaskContext context);
 
+    /**
+     * Prepare this program for repeated execution with positional arguments. Argument types are resolved once and
+     * each binding is validated and coerced before execution.
+     *
+     * @see PreparedProgram
+     */
+    PreparedProgram prepare();
+
+    /**
+     * Release the classes generated for this program so they can be unloaded once executions already in progress
+     * finish. Running a closed program throws IllegalStateException; closing a closed program does nothing.
+     *
+     * A program obtained through a {@link CompiledProgramCache} is shared by every holder, so closing it does nothing;
+     * its classes can be unloaded once it has been evicted from the cache and no holder refers to it.
+     */
+    void close();
+
+    /**
+     * @return true once {@link #close()} has been called
+     */
+    boolean isClosed();
+
     /**
      * Enumerated the arguments for this program. Required arguments must be passed to run to invoke the program.
      */
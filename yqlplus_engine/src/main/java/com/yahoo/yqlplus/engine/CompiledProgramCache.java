@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.yahoo.yqlplus.engine.internal.compiler.PlanCompiledProgram;
+import com.yahoo.yqlplus.language.parser.ProgramCompileException;
+import org.antlr.v4.runtime.RecognitionException;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded, concurrent cache of compiled programs for use by {@link YQLPlusCompiler}.
+ *
+ * Entries are keyed by the program name, the normalized program text (see
+ * {@link com.yahoo.yqlplus.language.parser.ProgramParser#normalize(String, String)}) and the identity of the
+ * source and module namespaces the program was compiled against. Concurrent requests for the same key compile once.
+ * Cached programs are shared, so {@link CompiledProgram#close()} does nothing for them.
+ *
+ * Bind an instance to enable caching:
+ * <pre>
+ *     bind(CompiledProgramCache.class).toInstance(new CompiledProgramCache.Builder().maximumSize(1000).build());
+ * </pre>
+ */
+public final class CompiledProgramCache {
+    private final Cache<ProgramKey, CompiledProgram> cache;
+
+    private CompiledProgramCache(Builder builder) {
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .recordStats();
+        if (builder.maximumWeight >= 0) {
+            cacheBuilder.maximumWeight(builder.maximumWeight)
+                    .weigher(new Weigher<ProgramKey, CompiledProgram>() {
+                        @Override
+                        public int weigh(ProgramKey key, CompiledProgram value) {
+                            return key.program.length();
+                        }
+                    });
+        } else {
+            cacheBuilder.maximumSize(builder.maximumSize);
+        }
+        if (builder.concurrencyLevel > 0) {
+            cacheBuilder.concurrencyLevel(builder.concurrencyLevel);
+        }
+        this.cache = cacheBuilder.build();
+    }
+
+    CompiledProgram get(ProgramKey key, final Callable<CompiledProgram> compiler) throws IOException, RecognitionException {
+        try {
+            return cache.get(key, new Callable<CompiledProgram>() {
+                @Override
+                public CompiledProgram call() throws Exception {
+                    CompiledProgram program = compiler.call();
+                    if (program instanceof PlanCompiledProgram) {
+                        // one holder closing it must not break the others
+                        ((PlanCompiledProgram) program).setShared();
+                    }
+                    return program;
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new ProgramCompileException(cause);
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Hit, miss, load and eviction counters for this cache.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    static final class ProgramKey {
+        private final String programName;
+        private final String program;
+        private final Object sourceNamespace;
+        private final Object moduleNamespace;
+        private final int hashCode;
+
+        ProgramKey(String programName, String program, Object sourceNamespace, Object moduleNamespace) {
+            this.programName = programName;
+            this.program = program;
+            this.sourceNamespace = sourceNamespace;
+            this.moduleNamespace = moduleNamespace;
+            this.hashCode = Objects.hash(programName, program, System.identityHashCode(sourceNamespace), System.identityHashCode(moduleNamespace));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProgramKey)) {
+                return false;
+            }
+            ProgramKey that = (ProgramKey) o;
+            return hashCode == that.hashCode
+                    && sourceNamespace == that.sourceNamespace
+                    && moduleNamespace == that.moduleNamespace
+                    && programName.equals(that.programName)
+                    && program.equals(that.program);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    public static final class Builder {
+        private long maximumSize = 1000;
+        private long maximumWeight = -1;
+        private int concurrencyLevel = -1;
+
+        /**
+         * Maximum number of compiled programs retained.
+         */
+        public Builder maximumSize(long maximumSize) {
+            Preconditions.checkArgument(maximumSize >= 0, "maximumSize must be >= 0");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Maximum total weight retained, where the weight of an entry is the length of its normalized program text.
+         * Takes precedence over maximumSize.
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            Preconditions.checkArgument(maximumWeight >= 0, "maximumWeight must be >= 0");
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            Preconditions.checkArgument(concurrencyLevel > 0, "concurrencyLevel must be > 0");
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public CompiledProgramCache build() {
+            return new CompiledProgramCache(this);
+        }
+    }
+}
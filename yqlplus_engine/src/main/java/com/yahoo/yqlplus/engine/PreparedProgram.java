@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine;
+
+import com.yahoo.yqlplus.engine.api.InvocationResultHandler;
+import com.yahoo.yqlplus.engine.api.NativeEncoding;
+import com.yahoo.yqlplus.engine.api.NativeInvocationResultHandler;
+import com.yahoo.yqlplus.engine.scope.ExecutionScope;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A PreparedProgram binds arguments to a {@link CompiledProgram} positionally, in the order given by
+ * {@link CompiledProgram#getArguments()}.
+ *
+ * Argument values are checked and coerced to the declared {@link CompiledProgram.ArgumentInfo#getYQLType()} when
+ * bound, so executing a {@link Binding} only assigns argument slots in the generated program. A Binding is immutable
+ * and may be executed any number of times.
+ */
+public interface PreparedProgram {
+    CompiledProgram getProgram();
+
+    /**
+     * Bind positional argument values. Missing trailing values and nulls take the argument's default value.
+     *
+     * @throws IllegalArgumentException if a required argument is missing or a value cannot be coerced
+     */
+    Binding bind(Object... values);
+
+    /**
+     * Bind named argument values.
+     *
+     * @throws IllegalArgumentException if a required argument is missing or a value cannot be coerced
+     */
+    Binding bind(Map<String, Object> arguments);
+
+    interface Binding {
+        ProgramResult execute();
+
+        ProgramResult execute(boolean debug);
+
+        ProgramResult execute(boolean debug, ExecutionScope scope, long timeout, TimeUnit timeoutUnit);
+
+        void invoke(InvocationResultHandler resultHandler, ExecutionScope scope, TaskContext context);
+
+        void invoke(NativeEncoding encoding, NativeInvocationResultHandler resultHandler, ExecutionScope scope, TaskContext context);
+    }
+}
@@ -11,6 +11,8 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.yahoo.yqlplus.api.trace.Tracer;
+import com.yahoo.yqlplus.engine.internal.plan.ModuleNamespace;
+import com.yahoo.yqlplus.engine.internal.plan.SourceNamespace;
 import com.yahoo.yqlplus.engine.internal.scope.ExecutionScoper;
 import com.yahoo.yqlplus.engine.scope.EmptyExecutionScope;
 import com.yahoo.yqlplus.engine.scope.ExecutionScope;
@@ -33,6 +35,11 @@ public class YQLPlusCompiler {
     private final Provider<ProgramCompiler> provider;
     private final Provider<ProgramParser> transformer;
     private final ExecutionScoper scoper;
+    private final SourceNamespace sourceNamespace;
+    private final ModuleNamespace moduleNamespace;
+
+    @Inject(optional = true)
+    private CompiledProgramCache programCache;
 
     @Inject(optional = true)
     @Named("compile")
@@ -42,10 +49,12 @@ public class YQLPlusCompiler {
 
 
     @Inject
-    YQLPlusCompiler(Provider<ProgramCompiler> provider, Provider<ProgramParser> transformer, ExecutionScoper scoper) {
+    YQLPlusCompiler(Provider<ProgramCompiler> provider, Provider<ProgramParser> transformer, ExecutionScoper scoper, SourceNamespace sourceNamespace, ModuleNamespace moduleNamespace) {
         this.provider = provider;
         this.transformer = transformer;
         this.scoper = scoper;
+        this.sourceNamespace = sourceNamespace;
+        this.moduleNamespace = moduleNamespace;
     }
 
     private ExecutionScope createCompileExecutionScope(String programName) {
@@ -73,6 +82,20 @@ public class YQLPlusCompiler {
     }
 
     public CompiledProgram compile(final String programName, final String program) throws RecognitionException, IOException {
+        if (programCache == null) {
+            return compileProgram(programName, program);
+        }
+        String normalized = transformer.get().normalize(programName, program);
+        CompiledProgramCache.ProgramKey key = new CompiledProgramCache.ProgramKey(programName, normalized, sourceNamespace, moduleNamespace);
+        return programCache.get(key, new Callable<CompiledProgram>() {
+            @Override
+            public CompiledProgram call() throws Exception {
+                return compileProgram(programName, program);
+            }
+        });
+    }
+
+    private CompiledProgram compileProgram(final String programName, final String program) throws RecognitionException, IOException {
         try {
             return scoper.startScope(new Callable<CompiledProgram>() {
                 @Override
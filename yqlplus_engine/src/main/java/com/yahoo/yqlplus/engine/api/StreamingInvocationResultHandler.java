@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.api;
+
+import java.util.List;
+
+/**
+ * An InvocationResultHandler which receives the rows of each result set incrementally.
+ *
+ * For each result set which produces rows, onRows is called zero or more times followed by onComplete (or
+ * fail(name, t)); succeed is only called for results which are not row lists (e.g. COUNT). Rows of an OUTPUT fed by
+ * several sources (e.g. a MERGE) are delivered as each source completes, without being accumulated by the engine.
+ * Calls for a given result set are never concurrent but may come from different threads.
+ */
+public interface StreamingInvocationResultHandler extends InvocationResultHandler {
+    void onRows(String name, List<Object> rows);
+
+    void onComplete(String name);
+}
@@ -8,23 +8,46 @@ package com.yahoo.yqlplus.engine.guice;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.name.Names;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
+/**
+ * Binds the default "work" and "timeout" executors. Other modules may replace either one on its own with
+ * OptionalBinder.setBinding() (see {@link TimerWheelModule}).
+ */
 public class EngineThreadPoolModule extends AbstractModule {
     @Override
     protected void configure() {
-        bind(ExecutorService.class).annotatedWith(Names.named("work")).toInstance(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        OptionalBinder.newOptionalBinder(binder(), Key.get(ExecutorService.class, Names.named("work")))
+                .setDefault().toInstance(createWorkExecutor());
+
+        OptionalBinder.newOptionalBinder(binder(), Key.get(ScheduledExecutorService.class, Names.named("timeout")))
+                .setDefault().toInstance(createTimeoutExecutor());
+    }
+
+    /**
+     * Create the executor backing the "work" pool, which runs source invocations and program tasks (every
+     * programExecutor delegates to it).
+     */
+    protected ExecutorService createWorkExecutor() {
+        return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
                 .setDaemon(true)
                 .setNameFormat("work-%d")
-                .build()));
+                .build());
+    }
 
-        bind(ScheduledExecutorService.class).annotatedWith(Names.named("timeout")).toInstance(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+    /**
+     * Create the executor backing the "timeout" timers (source and program timeouts, programTimeout).
+     */
+    protected ScheduledExecutorService createTimeoutExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
                 .setDaemon(true)
                 .setNameFormat("timeout-%d")
-                .build()));
+                .build());
     }
 }
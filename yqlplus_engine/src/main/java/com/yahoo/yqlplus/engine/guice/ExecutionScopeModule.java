@@ -9,10 +9,14 @@ package com.yahoo.yqlplus.engine.guice;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.name.Named;
 import com.yahoo.yqlplus.api.annotations.ExecuteScoped;
 import com.yahoo.yqlplus.engine.internal.scope.ExecutionScoper;
+import com.yahoo.yqlplus.engine.internal.scope.SourceBulkheads;
+import com.yahoo.yqlplus.engine.internal.scope.TimeoutMode;
 import com.yahoo.yqlplus.engine.internal.util.ScopingExecutor;
 import com.yahoo.yqlplus.engine.scope.ExecutionScope;
 
@@ -26,6 +30,10 @@ public class ExecutionScopeModule extends AbstractModule {
         bindScope(ExecuteScoped.class, SCOPE);
         bind(ExecutionScoper.class).toInstance(SCOPE);
         bind(ExecutionScope.class).toProvider(SCOPE.getExecutionScope()).in(ExecuteScoped.class);
+        OptionalBinder.newOptionalBinder(binder(), Key.get(SourceBulkheads.class))
+                .setDefault().toInstance(SourceBulkheads.NONE);
+        OptionalBinder.newOptionalBinder(binder(), Key.get(TimeoutMode.class))
+                .setDefault().toInstance(TimeoutMode.PER_TASK);
     }
 
     @Named("scopedWork")
@@ -9,10 +9,20 @@ package com.yahoo.yqlplus.engine.guice;
 import com.google.inject.AbstractModule;
 
 public class JavaEngineModule extends AbstractModule {
+    private final EngineThreadPoolModule threadPoolModule;
+
+    public JavaEngineModule() {
+        this(new EngineThreadPoolModule());
+    }
+
+    public JavaEngineModule(EngineThreadPoolModule threadPoolModule) {
+        this.threadPoolModule = threadPoolModule;
+    }
+
     @Override
     protected void configure() {
         // This is now an assembly
-        install(new EngineThreadPoolModule());
+        install(threadPoolModule);
         install(new ExecutionScopeModule());
         install(new PlannerCompilerModule());
         install(new ProgramTracerModule());
@@ -12,8 +12,7 @@ import com.google.inject.Provider;
 import com.yahoo.yqlplus.api.Exports;
 import com.yahoo.yqlplus.api.Source;
 import com.yahoo.yqlplus.engine.internal.plan.*;
-import com.yahoo.yqlplus.engine.internal.source.ExportUnitGenerator;
-import com.yahoo.yqlplus.engine.internal.source.SourceUnitGenerator;
+import com.yahoo.yqlplus.engine.internal.source.SourceAdapterRegistry;
 import com.yahoo.yqlplus.language.parser.Location;
 
 import java.util.List;
@@ -25,15 +24,17 @@ import java.util.Map;
 public class MultibinderPlannerNamespace implements SourceNamespace, ModuleNamespace {
     private final Map<String, Provider<Source>> sourceBindings;
     private final Map<String, Provider<Exports>> exportsBindings;
+    private final SourceAdapterRegistry adapters;
 
     private String keyFor(List<String> path) {
         return Joiner.on('.').join(path);
     }
 
     @Inject
-    MultibinderPlannerNamespace(Map<String, Provider<Exports>> exportsBindings, Map<String, Provider<Source>> sourceBindings) {
+    MultibinderPlannerNamespace(Map<String, Provider<Exports>> exportsBindings, Map<String, Provider<Source>> sourceBindings, SourceAdapterRegistry adapters) {
         this.exportsBindings = exportsBindings;
         this.sourceBindings = sourceBindings;
+        this.adapters = adapters;
     }
 
     @Override
@@ -42,8 +43,7 @@ public class MultibinderPlannerNamespace implements SourceNamespace, ModuleNames
         if (moduleProvider == null) {
             return null;
         }
-        ExportUnitGenerator adapter = new ExportUnitGenerator(planner.getGambitScope());
-        return adapter.apply(modulePath, moduleProvider);
+        return adapters.findModule(planner, modulePath, moduleProvider);
     }
 
     @Override
@@ -52,7 +52,6 @@ public class MultibinderPlannerNamespace implements SourceNamespace, ModuleNames
         if (sourceProvider == null) {
             return null;
         }
-        SourceUnitGenerator adapter = new SourceUnitGenerator(planner.getGambitScope());
-        return adapter.apply(sourcePath, sourceProvider);
+        return adapters.findSource(planner, sourcePath, sourceProvider);
     }
 }
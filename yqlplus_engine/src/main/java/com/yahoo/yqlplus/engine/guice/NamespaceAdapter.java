@@ -21,6 +21,9 @@ import java.util.List;
 
 /**
  * Implement the Namespace binding with a Guice MapBinder.
+ *
+ * A Namespace may hand out a new Provider on every lookup, so its adapters are generated into each program rather than
+ * shared through the SourceAdapterRegistry.
  */
 public class NamespaceAdapter implements SourceNamespace, ModuleNamespace {
     private Namespace namespace;
@@ -7,12 +7,17 @@
 package com.yahoo.yqlplus.engine.guice;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.multibindings.OptionalBinder;
 import com.yahoo.yqlplus.api.trace.RequestTracer;
 import com.yahoo.yqlplus.engine.internal.java.runtime.ProgramTracer;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TracingPolicy;
 
 public class ProgramTracerModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(RequestTracer.class).to(ProgramTracer.class);
+        OptionalBinder.newOptionalBinder(binder(), Key.get(TracingPolicy.class))
+                .setDefault().toInstance(TracingPolicy.FULL);
     }
 }
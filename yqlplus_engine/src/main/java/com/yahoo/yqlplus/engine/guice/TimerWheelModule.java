@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.guice;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TimerWheelExecutor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the "timeout" timers on a {@link TimerWheelExecutor}, so scheduling and cancelling the per-source and
+ * per-program timeouts stays O(1) when many requests are in flight. Timeouts fire up to one tick late; each program
+ * invocation emits the wheel's outstanding timer count as the "timerBacklog" metric.
+ *
+ * It only overrides the "timeout" executor bound by {@link EngineThreadPoolModule}, so it combines with any work pool,
+ * e.g. {@code Guice.createInjector(new JavaEngineModule(new VirtualThreadPoolModule()), new TimerWheelModule(), ...)}.
+ */
+public class TimerWheelModule extends AbstractModule {
+    private final long tickDuration;
+    private final TimeUnit tickUnit;
+    private final int ticksPerWheel;
+
+    public TimerWheelModule(long tickDuration, TimeUnit tickUnit, int ticksPerWheel) {
+        this.tickDuration = tickDuration;
+        this.tickUnit = tickUnit;
+        this.ticksPerWheel = ticksPerWheel;
+    }
+
+    public TimerWheelModule() {
+        this(10L, TimeUnit.MILLISECONDS, 512);
+    }
+
+    @Override
+    protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), Key.get(ScheduledExecutorService.class, Names.named("timeout")))
+                .setBinding().toInstance(createTimeoutExecutor());
+    }
+
+    protected ScheduledExecutorService createTimeoutExecutor() {
+        return new TimerWheelExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("timeout-%d")
+                .build(), tickDuration, tickUnit, ticksPerWheel);
+    }
+}
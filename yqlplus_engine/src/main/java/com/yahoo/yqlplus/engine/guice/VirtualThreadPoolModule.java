@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.guice;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Replacement for {@link EngineThreadPoolModule} which runs the "work" pool (and so every programExecutor) with a
+ * virtual thread per task, so blocking sources no longer hold a platform thread each.
+ *
+ * Virtual threads require JDK 21; on older runtimes this falls back to the platform thread pool of
+ * EngineThreadPoolModule. Execution scopes and tracing are bound per task by ScopedTracingExecutor and ExecutionScoper
+ * and need nothing from the thread beyond ordinary thread locals.
+ *
+ * Use it with {@code new JavaEngineModule(new VirtualThreadPoolModule())}, alongside {@link TimerWheelModule} if wanted.
+ */
+public class VirtualThreadPoolModule extends EngineThreadPoolModule {
+    private static final ThreadFactory VIRTUAL_THREADS = virtualThreadFactory("work-");
+
+    public static boolean isSupported() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    @Override
+    protected ExecutorService createWorkExecutor() {
+        ThreadFactory threads = createVirtualThreadFactory();
+        if (threads == null) {
+            return super.createWorkExecutor();
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threads);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return super.createWorkExecutor();
+        }
+    }
+
+    /**
+     * @return the factory for the virtual threads running work tasks, or null to use the platform thread pool
+     */
+    protected ThreadFactory createVirtualThreadFactory() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * @return Thread.ofVirtual().name(prefix, 0).factory(), or null if this JDK does not (or only as a preview feature)
+     * support virtual threads
+     */
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+}
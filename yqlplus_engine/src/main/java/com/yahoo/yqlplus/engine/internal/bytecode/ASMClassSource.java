@@ -45,15 +45,18 @@ public class ASMClassSource {
     private final ClassLoader compoundClassLoader;
     private final GeneratedClassLoader generatedClassLoader;
     private final String uniqueElement;
+    private final AtomicLong unitElements = new AtomicLong(0);
     private ASMProgramTypeAdapter types;
+    private GeneratedClassCache classCache = GeneratedClassCache.NONE;
 
     private Set<String> usedNames = Sets.newHashSet();
     final List<UnitGenerator> units = Lists.newArrayList();
     boolean built = false;
 
     @Inject
-    public ASMClassSource(Set<TypeAdaptingWidget> adapters, TypeAdaptingWidget defaultTypeAdapter) {
+    public ASMClassSource(Set<TypeAdaptingWidget> adapters, TypeAdaptingWidget defaultTypeAdapter, GeneratedClassCache classCache) {
         this.uniqueElement = "gen" + ELEMENT_FACTORY.incrementAndGet();
+        this.classCache = classCache;
         this.constantTable = new ConstantTable(this);
         this.types = new ASMProgramTypeAdapter(this, adapters, defaultTypeAdapter);
         this.compoundClassLoader = new CompoundClassLoader();
@@ -70,12 +73,14 @@ public class ASMClassSource {
     public ASMClassSource createChildSource() {
         ASMClassSource childSource = new ASMClassSource(generatedClassLoader);
         childSource.types = types.createChild(childSource);
+        childSource.classCache = classCache;
         return childSource;
     }
 
     public ASMClassSource createChildSource(ClassLoader classLoader) {
         ASMClassSource childSource = new ASMClassSource(classLoader);
         childSource.types = types.createChild(childSource);
+        childSource.classCache = classCache;
         return childSource;
     }
 
@@ -84,7 +89,9 @@ public class ASMClassSource {
     }
 
     public String generateUniqueElement() {
-        return "unit" + ELEMENT_FACTORY.incrementAndGet();
+        // unit names only need to be unique within this source's package; keeping them local to the source keeps
+        // them stable from one build of a program to the next (see GeneratedClassCache)
+        return "unit" + unitElements.incrementAndGet();
     }
 
 
@@ -142,6 +149,16 @@ public class ASMClassSource {
     }
 
     public void build() throws IOException, ClassNotFoundException {
+        build(null);
+    }
+
+    /**
+     * Generate, load and prepare all units.
+     *
+     * @param plan a description of what is being built (e.g. a dump of the program plan); when present, the
+     *             generated class bytes are looked up in and stored to the bound {@link GeneratedClassCache}
+     */
+    public void build(String plan) throws IOException, ClassNotFoundException {
         Preconditions.checkState(!built, "ASMClassSource may only be built once");
         DynamicBootstrapUnit bootstrapper = new DynamicBootstrapUnit(this);
         bootstrapper.init();
@@ -150,17 +167,27 @@ public class ASMClassSource {
         List<UnitPrep> unitPreps = Lists.newArrayList();
         List<UnitGenerator> reversed = Lists.newArrayList(units);
         Collections.reverse(reversed);
-        for (UnitGenerator unit : reversed) {
+        String packageName = CachedBuild.GENERATED_PACKAGE + uniqueElement + "/";
+        String cacheKey = null;
+        List<List<Map.Entry<String, byte[]>>> cached = null;
+        if (plan != null && classCache != GeneratedClassCache.NONE) {
+            cacheKey = CachedBuild.computeKey(packageName, plan, reversed, loaderMap);
+            byte[] entry = cacheKey != null ? classCache.get(cacheKey) : null;
+            if (entry != null) {
+                cached = CachedBuild.decode(entry, packageName, reversed.size());
+            }
+        }
+        List<List<Map.Entry<String, byte[]>>> generated = Lists.newArrayList();
+        for (int i = 0; i < reversed.size(); i++) {
+            UnitGenerator unit = reversed.get(i);
             UnitPrep unitPrep = new UnitPrep(unit);
             unitPreps.add(unitPrep);
-            ByteClassGenerator classes = new ByteClassGenerator();
-            try {
-                unit.generate(classes);
-            } catch (NullPointerException |  ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
-                // this is almost inevitably an error from visitMaxes
-                // so let's dump some data
-                unit.trace(System.err);
-                throw e;
+            List<Map.Entry<String, byte[]>> classes;
+            if (cached != null) {
+                classes = cached.get(i);
+            } else {
+                classes = Lists.newArrayList(generate(unit));
+                generated.add(classes);
             }
             for (Map.Entry<String, byte[]> e : classes) {
                 generatedClassLoader.put(e.getKey(), e.getValue());
@@ -200,6 +227,44 @@ public class ASMClassSource {
                 }
             }
         }
+        if (cacheKey != null && cached == null) {
+            classCache.put(cacheKey, CachedBuild.encode(packageName, generated));
+        }
+    }
+
+    private ByteClassGenerator generate(UnitGenerator unit) {
+        ByteClassGenerator classes = new ByteClassGenerator();
+        try {
+            unit.generate(classes);
+        } catch (NullPointerException |  ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+            // this is almost inevitably an error from visitMaxes
+            // so let's dump some data
+            unit.trace(System.err);
+            throw e;
+        }
+        return classes;
+    }
+
+    /**
+     * @return the class loader defining this source's generated classes
+     */
+    public ClassLoader getClassLoader() {
+        return generatedClassLoader;
+    }
+
+    /**
+     * @return the total size of the class files generated (or loaded from the class cache) by this source
+     */
+    public long getGeneratedClassBytes() {
+        return generatedClassLoader.getByteCount();
+    }
+
+    /**
+     * Resolve classes this source does not generate (e.g. those generated by another, already built, source) through
+     * the given class loader as well.
+     */
+    public void addClassLoader(ClassLoader classLoader) {
+        loaders.add(classLoader);
     }
 
     public Class<?> getGeneratedClass(UnitGenerator unitGenerator) throws ClassNotFoundException {
@@ -9,6 +9,7 @@ package com.yahoo.yqlplus.engine.internal.bytecode;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.multibindings.Multibinder;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.JVMTypes;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.CompletableFutureResultType;
@@ -28,6 +29,8 @@ import java.util.concurrent.Future;
 public class ASMClassSourceModule extends AbstractModule {
     @Override
     protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), GeneratedClassCache.class)
+                .setDefault().toInstance(GeneratedClassCache.NONE);
         Multibinder<TypeAdaptingWidget> binder = Multibinder.newSetBinder(binder(), TypeAdaptingWidget.class);
         binder.addBinding().toInstance(new TypeFieldAdaptingWidget());
         binder.addBinding().toInstance(new TypeAdaptingWidget() {
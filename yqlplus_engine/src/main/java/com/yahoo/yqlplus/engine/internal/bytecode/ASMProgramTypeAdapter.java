@@ -60,11 +60,13 @@ import java.util.Set;
 public class ASMProgramTypeAdapter implements ProgramValueTypeAdapter {
     private final ASMClassSource source;
     private final BaseTypeAdapter baseTypeAdapter;
-    private final Map<YQLType, TypeWidget> resolved = Maps.newLinkedHashMap();
+    // concurrent: the types of a shared source adapter (see SourceAdapterRegistry) are used by programs compiling in
+    // parallel
+    private final Map<YQLType, TypeWidget> resolved = Maps.newConcurrentMap();
 
-    private final Map<TypeLiteral<?>, TypeWidget> resolvedInternal = Maps.newLinkedHashMap();
+    private final Map<TypeLiteral<?>, TypeWidget> resolvedInternal = Maps.newConcurrentMap();
     private final Iterable<TypeAdaptingWidget> adapterChain;
-    private final Map<TypeWidget, TypeWidget> resultTypes = Maps.newLinkedHashMap();
+    private final Map<TypeWidget, TypeWidget> resultTypes = Maps.newConcurrentMap();
 
     public ASMProgramTypeAdapter(ASMClassSource source, Set<TypeAdaptingWidget> adapters, TypeAdaptingWidget defaultAdaptingWidget) {
         this.source = source;
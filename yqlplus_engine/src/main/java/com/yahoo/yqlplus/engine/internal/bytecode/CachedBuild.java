@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.bytecode;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Keying, encoding and relocation of {@link GeneratedClassCache} entries.
+ *
+ * Generated classes live in a per-{@link ASMClassSource} package ({@code com/yahoo/yqlplus/generated/genN/}) that
+ * differs from one build to the next. Keys are computed with that package replaced by a placeholder, entries record
+ * the package they were generated in, and decoding rewrites the constant pool of every class to the package of the
+ * current build.
+ */
+final class CachedBuild {
+    static final String GENERATED_PACKAGE = "com/yahoo/yqlplus/generated/";
+    private static final int FORMAT = 0x59514c01;
+    private static final String PACKAGE_PLACEHOLDER = "<generated>/";
+    private static final Pattern IDENTITY_HASH = Pattern.compile("@[0-9a-f]+\\b");
+    private static final String ENGINE_VERSION = engineVersion();
+
+    private static final ClassValue<String> CLASS_DIGESTS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            ClassLoader loader = type.getClassLoader();
+            if (loader == null) {
+                return System.getProperty("java.version");
+            }
+            try (InputStream in = loader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+                if (in == null) {
+                    return null;
+                }
+                return Hashing.sha256().hashBytes(ByteStreams.toByteArray(in)).toString();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    };
+
+    private CachedBuild() {
+    }
+
+    private static String engineVersion() {
+        StringBuilder out = new StringBuilder();
+        Package pkg = CachedBuild.class.getPackage();
+        if (pkg != null && pkg.getImplementationVersion() != null) {
+            out.append(pkg.getImplementationVersion());
+        }
+        CodeSource codeSource = CachedBuild.class.getProtectionDomain().getCodeSource();
+        URL location = codeSource != null ? codeSource.getLocation() : null;
+        if (location != null) {
+            out.append(' ').append(location);
+            try {
+                File file = new File(location.toURI());
+                if (file.isFile()) {
+                    out.append(' ').append(file.length()).append(' ').append(file.lastModified());
+                }
+            } catch (URISyntaxException | IllegalArgumentException ignored) {
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return the cache key for a build, or null if the build cannot be cached (e.g. it links against classes
+     * generated by another ASMClassSource or against classes whose bytes are unavailable)
+     */
+    static String computeKey(String packageName, String plan, List<UnitGenerator> units, Map<String, ClassLoader> referencedClasses) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT);
+        hasher.putString(ENGINE_VERSION, Charsets.UTF_8);
+        hasher.putString(System.getProperty("java.version", ""), Charsets.UTF_8);
+        String dottedPackage = packageName.replace('/', '.');
+        String normalizedPlan = IDENTITY_HASH.matcher(plan).replaceAll("@")
+                .replace(packageName, PACKAGE_PLACEHOLDER)
+                .replace(dottedPackage, PACKAGE_PLACEHOLDER);
+        hasher.putString(normalizedPlan, Charsets.UTF_8);
+        StringBuilder shape = new StringBuilder();
+        for (UnitGenerator unit : units) {
+            unit.describe(shape);
+        }
+        String normalizedShape = shape.toString().replace(packageName, PACKAGE_PLACEHOLDER);
+        if (normalizedShape.contains(GENERATED_PACKAGE)) {
+            return null;
+        }
+        hasher.putString(normalizedShape, Charsets.UTF_8);
+        for (Map.Entry<String, ClassLoader> e : new TreeMap<>(referencedClasses).entrySet()) {
+            String name = e.getKey();
+            if (name.startsWith(GENERATED_PACKAGE.replace('/', '.'))) {
+                return null;
+            }
+            String digest;
+            try {
+                digest = CLASS_DIGESTS.get(Class.forName(name, false, e.getValue()));
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return null;
+            }
+            if (digest == null) {
+                return null;
+            }
+            hasher.putString(name, Charsets.UTF_8);
+            hasher.putString(digest, Charsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    static byte[] encode(String packageName, List<List<Map.Entry<String, byte[]>>> units) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(FORMAT);
+        out.writeUTF(packageName);
+        out.writeInt(units.size());
+        for (List<Map.Entry<String, byte[]>> classes : units) {
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> e : classes) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @return the classes of each unit relocated into packageName, or null if the entry does not describe
+     * expectedUnits units or is corrupt
+     */
+    static List<List<Map.Entry<String, byte[]>>> decode(byte[] entry, String packageName, int expectedUnits) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+            if (in.readInt() != FORMAT) {
+                return null;
+            }
+            String originalPackage = in.readUTF();
+            int unitCount = in.readInt();
+            if (unitCount != expectedUnits) {
+                return null;
+            }
+            List<List<Map.Entry<String, byte[]>>> units = Lists.newArrayListWithCapacity(unitCount);
+            for (int i = 0; i < unitCount; i++) {
+                int classCount = in.readInt();
+                List<Map.Entry<String, byte[]>> classes = Lists.newArrayListWithCapacity(classCount);
+                for (int j = 0; j < classCount; j++) {
+                    String name = in.readUTF();
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    if (!originalPackage.equals(packageName)) {
+                        name = name.replace(originalPackage, packageName);
+                        data = relocate(data, originalPackage, packageName);
+                    }
+                    classes.add(Maps.immutableEntry(name, data));
+                }
+                units.add(classes);
+            }
+            return units;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rewrite every constant pool string referring to package from so that it refers to package to.
+     *
+     * Only CONSTANT_Utf8 entries change length and nothing in a class file addresses the constant pool by byte
+     * offset, so the remainder of the class is copied unchanged.
+     */
+    static byte[] relocate(byte[] classFile, String from, String to) throws IOException {
+        String dottedFrom = from.replace('/', '.');
+        String dottedTo = to.replace('/', '.');
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(classFile.length + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(in.readInt());
+        out.writeShort(in.readUnsignedShort());
+        out.writeShort(in.readUnsignedShort());
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            switch (tag) {
+                case 1: // Utf8
+                    out.writeUTF(in.readUTF().replace(from, to).replace(dottedFrom, dottedTo));
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    copy(in, out, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    copy(in, out, 8);
+                    ++i;
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    copy(in, out, 2);
+                    break;
+                case 15: // MethodHandle
+                    copy(in, out, 3);
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        ByteStreams.copy(in, out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static void copy(DataInputStream in, DataOutputStream out, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeByte(in.readUnsignedByte());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.bytecode;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A {@link GeneratedClassCache} storing one file per entry under a directory, so generated classes survive a
+ * restart.
+ *
+ * Entries are written to a temporary file and renamed into place, so concurrent writers (including other JVMs sharing
+ * the directory) never expose a partial entry. I/O failures are treated as cache misses.
+ */
+public final class DiskGeneratedClassCache implements GeneratedClassCache {
+    private final Path directory;
+
+    public DiskGeneratedClassCache(Path directory) {
+        Preconditions.checkNotNull(directory, "directory");
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path entryPath(String key) {
+        Preconditions.checkArgument(key.length() > 2 && key.matches("[0-9a-f]+"), "Invalid cache key '%s'", key);
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".classes");
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(entryPath(key));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] entry) {
+        Path target = entryPath(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.write(temp, entry);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException ignored) {
+            // a cache we cannot write to is just a cache that always misses
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
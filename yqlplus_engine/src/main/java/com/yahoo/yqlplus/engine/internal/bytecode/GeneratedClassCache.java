@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.bytecode;
+
+/**
+ * Content-addressed store for the class bytes produced when an {@link ASMClassSource} is built.
+ *
+ * Keys are hex digests computed from the program plan, the shape of every generated unit and the bytes of every
+ * class the generated code was linked against, so an entry is only ever reused for an identical build. Entries are
+ * opaque to implementations.
+ *
+ * The default binding is {@link #NONE}; bind an implementation (e.g. {@link DiskGeneratedClassCache}) to enable it:
+ * <pre>
+ *     OptionalBinder.newOptionalBinder(binder(), GeneratedClassCache.class)
+ *             .setBinding().toInstance(new DiskGeneratedClassCache(Paths.get("/var/cache/yqlplus")));
+ * </pre>
+ */
+public interface GeneratedClassCache {
+    GeneratedClassCache NONE = new GeneratedClassCache() {
+        @Override
+        public byte[] get(String key) {
+            return null;
+        }
+
+        @Override
+        public void put(String key, byte[] entry) {
+        }
+    };
+
+    /**
+     * @return the entry stored under key, or null on a miss
+     */
+    byte[] get(String key);
+
+    void put(String key, byte[] entry);
+}
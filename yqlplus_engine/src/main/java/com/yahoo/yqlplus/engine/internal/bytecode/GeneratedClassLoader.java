@@ -69,6 +69,17 @@ class GeneratedClassLoader extends ClassLoader {
         return classBytes.get(name);
     }
 
+    /**
+     * @return the total size of the class files this loader defines
+     */
+    public long getByteCount() {
+        long count = 0;
+        for (byte[] bytes : classBytes.values()) {
+            count += bytes.length;
+        }
+        return count;
+    }
+
     public void dump(PrintStream out) {
         for (Map.Entry<String, byte[]> e : classBytes.entrySet()) {
             ClassReader reader = new ClassReader(e.getValue());
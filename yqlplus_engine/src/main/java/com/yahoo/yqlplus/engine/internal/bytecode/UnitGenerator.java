@@ -353,6 +353,28 @@ public class UnitGenerator {
         cw.visitEnd();
     }
 
+    /**
+     * Append the shape of this unit (name, supertypes, field types and method descriptors) to out; used to key
+     * the generated class cache.
+     */
+    void describe(StringBuilder out) {
+        out.append(internalName).append(" extends ").append(superInternalName);
+        for (Type iface : interfaces) {
+            out.append(' ').append(iface.getInternalName());
+        }
+        out.append('\n');
+        for (FieldDefinition field : fields.values()) {
+            out.append("  field ").append(field.getModifiers()).append(' ').append(field.getName()).append(' ')
+                    .append(field.getType().getJVMType().getDescriptor()).append('\n');
+        }
+        for (ConstructorGenerator constructor : constructors) {
+            out.append("  <init> ").append(constructor.createMethodDescriptor()).append('\n');
+        }
+        for (Map.Entry<String, MethodGenerator> e : methods.entries()) {
+            out.append("  method ").append(e.getKey()).append(' ').append(e.getValue().createMethodDescriptor()).append('\n');
+        }
+    }
+
     public Class<?> getGeneratedClass() throws ClassNotFoundException {
         return environment.getGeneratedClass(this);
     }
@@ -18,6 +18,7 @@ import com.yahoo.yqlplus.engine.internal.compiler.*;
 import com.yahoo.yqlplus.engine.internal.java.types.RecordMapWrapper;
 import com.yahoo.yqlplus.engine.internal.operations.ArithmeticOperation;
 import com.yahoo.yqlplus.engine.internal.operations.BinaryComparison;
+import com.yahoo.yqlplus.engine.internal.operations.Like;
 import com.yahoo.yqlplus.engine.internal.plan.types.*;
 import com.yahoo.yqlplus.engine.internal.plan.types.base.*;
 import com.yahoo.yqlplus.language.parser.Location;
@@ -491,12 +492,20 @@ public abstract class ExpressionHandler extends TypesHandler implements ScopedBu
             public void generate(CodeEmitter code) {
                 Label done = new Label();
                 Label anyIsNull = new Label();
-                CodeEmitter.BinaryCoercion coerce = code.binaryCoercion(right, Pattern.class, left, CharSequence.class, anyIsNull, anyIsNull, anyIsNull);
                 MethodVisitor mv = code.getMethodVisitor();
-                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Pattern.class), "matcher",
-                        Type.getMethodDescriptor(Type.getType(Matcher.class), Type.getType(CharSequence.class)), false);
-                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Matcher.class), "matches",
-                        Type.getMethodDescriptor(Type.BOOLEAN_TYPE), false);
+                CodeEmitter.BinaryCoercion coerce;
+                if (Type.getType(Like.class).equals(right.getType().getJVMType())) {
+                    // a LIKE pattern compiled at runtime
+                    coerce = code.binaryCoercion(right, Like.class, left, CharSequence.class, anyIsNull, anyIsNull, anyIsNull);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Like.class), "matches",
+                            Type.getMethodDescriptor(Type.BOOLEAN_TYPE, Type.getType(CharSequence.class)), false);
+                } else {
+                    coerce = code.binaryCoercion(right, Pattern.class, left, CharSequence.class, anyIsNull, anyIsNull, anyIsNull);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Pattern.class), "matcher",
+                            Type.getMethodDescriptor(Type.getType(Matcher.class), Type.getType(CharSequence.class)), false);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Matcher.class), "matches",
+                            Type.getMethodDescriptor(Type.BOOLEAN_TYPE), false);
+                }
                 if (coerce.leftNullable || coerce.rightNullable) {
                     mv.visitJumpInsn(Opcodes.GOTO, done);
                     mv.visitLabel(anyIsNull);
@@ -507,6 +516,54 @@ public abstract class ExpressionHandler extends TypesHandler implements ScopedBu
         };
     }
 
+    @Override
+    public BytecodeExpression like(Location loc, final BytecodeExpression left, final Like pattern) {
+        final String method;
+        final Class<?> argumentType;
+        switch (pattern.getShape()) {
+            case EXACT:
+                method = "equals";
+                argumentType = Object.class;
+                break;
+            case PREFIX:
+                method = "startsWith";
+                argumentType = String.class;
+                break;
+            case SUFFIX:
+                method = "endsWith";
+                argumentType = String.class;
+                break;
+            case CONTAINS:
+                method = "contains";
+                argumentType = CharSequence.class;
+                break;
+            default:
+                return matches(loc, left, constant(adapt(Pattern.class, false), pattern.getPattern()));
+        }
+        // input.toString().<method>(literal) -- no Matcher per row
+        return new BaseTypeExpression(BaseTypeAdapter.BOOLEAN) {
+            @Override
+            public void generate(CodeEmitter code) {
+                Label done = new Label();
+                Label isNull = new Label();
+                left.generate(code);
+                boolean nullable = code.cast(code.adapt(CharSequence.class), left.getType(), isNull);
+                MethodVisitor mv = code.getMethodVisitor();
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(CharSequence.class), "toString",
+                        Type.getMethodDescriptor(Type.getType(String.class)), true);
+                code.emitStringConstant(pattern.getLiteral());
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(String.class), method,
+                        Type.getMethodDescriptor(Type.BOOLEAN_TYPE, Type.getType(argumentType)), false);
+                if (nullable) {
+                    mv.visitJumpInsn(Opcodes.GOTO, done);
+                    mv.visitLabel(isNull);
+                    mv.visitInsn(Opcodes.ICONST_0);
+                    mv.visitLabel(done);
+                }
+            }
+        };
+    }
+
     @Override
     public BytecodeExpression in(Location loc, final BytecodeExpression left, final BytecodeExpression right) {
         return new BaseTypeExpression(BaseTypeAdapter.BOOLEAN) {
@@ -8,6 +8,7 @@ package com.yahoo.yqlplus.engine.internal.bytecode.types.gambit;
 
 import com.yahoo.yqlplus.engine.internal.operations.ArithmeticOperation;
 import com.yahoo.yqlplus.engine.internal.operations.BinaryComparison;
+import com.yahoo.yqlplus.engine.internal.operations.Like;
 import com.yahoo.yqlplus.engine.internal.plan.types.AssignableValue;
 import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeExpression;
 import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeSequence;
@@ -175,6 +176,8 @@ public interface GambitCreator extends GambitTypes {
 
     BytecodeExpression matches(Location loc, BytecodeExpression left, BytecodeExpression right);
 
+    BytecodeExpression like(Location loc, BytecodeExpression left, Like pattern);
+
     BytecodeExpression in(Location loc, BytecodeExpression left, BytecodeExpression right);
 
     BytecodeExpression eq(Location loc, BytecodeExpression left, BytecodeExpression right);
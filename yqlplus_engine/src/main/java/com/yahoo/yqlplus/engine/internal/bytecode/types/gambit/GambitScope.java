@@ -19,4 +19,9 @@ public interface GambitScope extends GambitTypes {
     YQLType createYQLType(TypeWidget setType);
 
     void addClass(Class<?> clazz);
+
+    /**
+     * Link against classes defined by the given class loader (such as shared source adapters).
+     */
+    void addClassLoader(ClassLoader classLoader);
 }
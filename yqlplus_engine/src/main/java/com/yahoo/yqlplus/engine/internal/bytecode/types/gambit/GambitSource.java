@@ -46,5 +46,10 @@ public class GambitSource extends TypesHandler implements GambitScope {
     public void addClass(Class<?> clazz) {
         source.getType(clazz);
     }
+
+    @Override
+    public void addClassLoader(ClassLoader classLoader) {
+        source.addClassLoader(classLoader);
+    }
 }
 
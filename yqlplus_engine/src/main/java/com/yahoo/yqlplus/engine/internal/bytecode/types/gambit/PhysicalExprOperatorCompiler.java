@@ -13,6 +13,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Injector;
 import com.yahoo.cloud.metrics.api.MetricDimension;
+import com.yahoo.yqlplus.api.types.YQLCoreType;
 import com.yahoo.yqlplus.engine.TaskContext;
 import com.yahoo.yqlplus.engine.api.Record;
 import com.yahoo.yqlplus.engine.internal.bytecode.IterableTypeWidget;
@@ -22,12 +23,24 @@ import com.yahoo.yqlplus.engine.internal.bytecode.types.NullTestedExpression;
 import com.yahoo.yqlplus.engine.internal.compiler.CodeEmitter;
 import com.yahoo.yqlplus.engine.internal.generate.ProgramInvocation;
 import com.yahoo.yqlplus.engine.internal.java.backends.java.KeyAccumulator;
+import com.yahoo.yqlplus.engine.internal.java.backends.java.OutputAccumulator;
 import com.yahoo.yqlplus.engine.internal.java.backends.java.RecordAccumulator;
+import com.yahoo.yqlplus.engine.internal.java.runtime.InSet;
+import com.yahoo.yqlplus.engine.internal.java.runtime.LongJoinTable;
+import com.yahoo.yqlplus.engine.internal.java.runtime.PatternCache;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SmallerSideJoin;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SortedGroups;
+import com.yahoo.yqlplus.engine.internal.java.runtime.StringJoinTable;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SymmetricHashJoin;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TopN;
 import com.yahoo.yqlplus.engine.internal.operations.ArithmeticOperation;
 import com.yahoo.yqlplus.engine.internal.operations.BinaryComparison;
+import com.yahoo.yqlplus.engine.internal.operations.Like;
 import com.yahoo.yqlplus.engine.internal.plan.ast.FunctionOperator;
+import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorStep;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorValue;
 import com.yahoo.yqlplus.engine.internal.plan.ast.PhysicalExprOperator;
+import com.yahoo.yqlplus.engine.internal.plan.ast.PhysicalOperator;
 import com.yahoo.yqlplus.engine.internal.plan.ast.PhysicalProjectOperator;
 import com.yahoo.yqlplus.engine.internal.plan.streams.SinkOperator;
 import com.yahoo.yqlplus.engine.internal.plan.streams.StreamOperator;
@@ -58,6 +71,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 public class PhysicalExprOperatorCompiler {
     public static final MetricDimension EMPTY_DIMENSION = new MetricDimension();
@@ -201,7 +215,8 @@ public class PhysicalExprOperatorCompiler {
                 CallableInvocable invocation = compileCallable(program.getType(), context.getType(), types,
                         OperatorNode.create(FunctionOperator.FUNCTION, localNames, expr.getArgument(0)));
                 final BytecodeExpression timeout = getTimeout(context, expr.getLocation());
-                return scope.resolve(expr.getLocation(), timeout, scope.fork(expr.getLocation(), getRuntime(scope, program, context), invocation, localExprs));
+                BytecodeExpression runtime = getRuntime(scope, program, context, (String) expr.getAnnotation(PhysicalExprOperator.BULKHEAD));
+                return scope.resolve(expr.getLocation(), timeout, scope.fork(expr.getLocation(), runtime, invocation, localExprs));
             }
             case LOCAL: {
                 String localName = expr.getArgument(0);
@@ -358,6 +373,23 @@ public class PhysicalExprOperatorCompiler {
                         evaluateExpression(program, context, left),
                         evaluateExpression(program, context, right));
             }
+            case IN_SET: {
+                BytecodeExpression input = evaluateExpression(program, context, expr.<OperatorNode<PhysicalExprOperator>>getArgument(0));
+                if (!isCollection(input.getType())) {
+                    // IN against a single value (or a non-collection iterable) is left to ExpressionHandler.in
+                    return input;
+                }
+                return scope.invokeStatic(expr.getLocation(), "of", InSet.class, scope.adapt(Collection.class, input.getType().isNullable()),
+                        scope.cast(scope.adapt(Collection.class, input.getType().isNullable()), input));
+            }
+            case LIKE_PATTERN:
+            case REGEX_PATTERN: {
+                BytecodeExpression input = evaluateExpression(program, context, expr.<OperatorNode<PhysicalExprOperator>>getArgument(0));
+                boolean nullable = input.getType().isNullable();
+                boolean like = expr.getOperator() == PhysicalExprOperator.LIKE_PATTERN;
+                return scope.invokeStatic(expr.getLocation(), like ? "like" : "regex", PatternCache.class, scope.adapt(like ? Like.class : Pattern.class, nullable),
+                        scope.cast(scope.adapt(String.class, nullable), input));
+            }
             case CONTAINS: {
                 OperatorNode<PhysicalExprOperator> left = expr.getArgument(0);
                 OperatorNode<PhysicalExprOperator> right = expr.getArgument(1);
@@ -368,6 +400,9 @@ public class PhysicalExprOperatorCompiler {
             case MATCHES: {
                 OperatorNode<PhysicalExprOperator> left = expr.getArgument(0);
                 OperatorNode<PhysicalExprOperator> right = expr.getArgument(1);
+                if (right.getOperator() == PhysicalExprOperator.CONSTANT && right.getArgument(1) instanceof Like) {
+                    return scope.like(expr.getLocation(), evaluateExpression(program, context, left), (Like) right.getArgument(1));
+                }
                 return scope.matches(expr.getLocation(),
                         evaluateExpression(program, context, left),
                         evaluateExpression(program, context, right));
@@ -449,6 +484,11 @@ public class PhysicalExprOperatorCompiler {
     }
 
     private BytecodeExpression compileStreamCreate(BytecodeExpression program, BytecodeExpression context, OperatorNode<StreamOperator> node) {
+        if (node.getOperator() == StreamOperator.SINK && node.<OperatorNode<SinkOperator>>getArgument(0).getOperator() == SinkOperator.OUTPUT) {
+            String name = node.<OperatorNode<SinkOperator>>getArgument(0).getArgument(0);
+            return scope.invoke(node.getLocation(), scope.constructor(scope.adapt(OutputAccumulator.class, false), scope.adapt(ProgramInvocation.class, false), BaseTypeAdapter.STRING),
+                    scope.cast(node.getLocation(), scope.adapt(ProgramInvocation.class, false), program), scope.constant(name));
+        }
         ObjectBuilder stream = scope.createObject(RecordAccumulator.class);
         stream.addParameter("$program", program.getType());
         stream.addParameter("$context", context.getType());
@@ -564,6 +604,13 @@ public class PhysicalExprOperatorCompiler {
         return ExactInvocation.boundInvoke(Opcodes.INVOKEVIRTUAL, "getRuntime", scope.adapt(ProgramInvocation.class, false), scope.adapt(GambitRuntime.class, false), program, context).invoke(Location.NONE);
     }
 
+    private static BytecodeExpression getRuntime(ScopedBuilder scope, BytecodeExpression program, BytecodeExpression context, String bulkhead) {
+        if (bulkhead == null) {
+            return getRuntime(scope, program, context);
+        }
+        return ExactInvocation.boundInvoke(Opcodes.INVOKEVIRTUAL, "getRuntime", scope.adapt(ProgramInvocation.class, false), scope.adapt(GambitRuntime.class, false), program, context, scope.constant(bulkhead)).invoke(Location.NONE);
+    }
+
     private BytecodeExpression getInjector(BytecodeExpression program, BytecodeExpression context) {
         return ExactInvocation.boundInvoke(Opcodes.INVOKEVIRTUAL, "getInjector", scope.adapt(ProgramInvocation.class, false), scope.adapt(Injector.class, false), program).invoke(Location.NONE);
     }
@@ -720,12 +767,68 @@ public class PhysicalExprOperatorCompiler {
         }
     }
 
+    /**
+     * Feed a stream created for an OUTPUT sink; rows are handed over as one chunk once the input is exhausted so each
+     * input's rows are delivered to the result handler together.
+     */
+    class OutputStreamingSink extends BaseStreamSink {
+        BytecodeExpression target;
+        BytecodeExpression list;
+
+        OutputStreamingSink(BytecodeExpression target) {
+            this.target = target;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            super.prepare(scope, program, context, itemType);
+            list = scope.evaluateInto(scope.list(AnyTypeWidget.getInstance()));
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            loop.exec(loop.invokeExact(Location.NONE, "add", Collection.class, BaseTypeAdapter.BOOLEAN, list, loop.cast(Location.NONE, AnyTypeWidget.getInstance(), item)));
+        }
+
+        @Override
+        public BytecodeExpression end(GambitCreator.ScopeBuilder scope, GambitCreator.IterateBuilder loop) {
+            scope.exec(loop.build());
+            return scope.complete(scope.invoke(Location.NONE,
+                    ExactInvocation.boundInvoke(Opcodes.INVOKEVIRTUAL, "receiveAll", target.getType(), BaseTypeAdapter.BOOLEAN, target,
+                            scope.cast(Location.NONE, scope.adapt(List.class, false), list))));
+        }
+    }
+
+    /**
+     * @return true if target is a stream created by STREAM_CREATE for an OUTPUT sink
+     */
+    private static boolean isOutputStream(OperatorNode<PhysicalExprOperator> target) {
+        if (target.getOperator() != PhysicalExprOperator.VALUE) {
+            return false;
+        }
+        OperatorValue value = target.getArgument(0);
+        if (!(value.getSource() instanceof OperatorStep)) {
+            return false;
+        }
+        OperatorNode<PhysicalOperator> compute = ((OperatorStep) value.getSource()).getCompute();
+        if (compute.getOperator() != PhysicalOperator.EVALUATE) {
+            return false;
+        }
+        OperatorNode<PhysicalExprOperator> expr = compute.getArgument(1);
+        if (expr.getOperator() != PhysicalExprOperator.STREAM_CREATE) {
+            return false;
+        }
+        OperatorNode<StreamOperator> stream = expr.getArgument(0);
+        return stream.getOperator() == StreamOperator.SINK
+                && stream.<OperatorNode<SinkOperator>>getArgument(0).getOperator() == SinkOperator.OUTPUT;
+    }
+
 
     /**
      * An operator implementation to group input rows by an extracted key.
      * <p/>
      * There is a decision here -- do we require the input to be sorted by the group key? If so, we can operate in a streaming manner. If not, then we must accumulate all output before emitting any.
-     * Decision: Err on the side of ease of use and do the accumulation. Later we can define a SORTED_GROUPBY operator for the optimization case when the constructor knows the input is sorted.
+     * Decision: Err on the side of ease of use and do the accumulation. SORTED_GROUPBY (SortedGroupbySink) covers the case when the planner knows the input is sorted.
      */
     class GroupbySink extends BaseStreamSink {
         private final StreamSink next;
@@ -789,6 +892,66 @@ public class PhysicalExprOperatorCompiler {
         }
     }
 
+    /**
+     * GROUPBY for input known to be ordered by the group key: each group is passed along as soon as the key changes,
+     * so only one group is held in memory and downstream sinks start before the input is exhausted.
+     */
+    class SortedGroupbySink extends BaseStreamSink {
+        private final StreamSink next;
+        private final OperatorNode<FunctionOperator> key;
+        private final OperatorNode<FunctionOperator> output;
+
+        private GambitCreator.Invocable compiledKey;
+        private GambitCreator.Invocable compiledOutput;
+        private TypeWidget listOfItemType;
+        private TypeWidget groupType;
+        private BytecodeExpression groups;
+
+        public SortedGroupbySink(StreamSink next, OperatorNode<FunctionOperator> key, OperatorNode<FunctionOperator> output) {
+            this.next = next;
+            this.key = key;
+            this.output = output;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            super.prepare(scope, program, context, itemType);
+            this.compiledKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType), key);
+            this.listOfItemType = new ListTypeWidget(itemType);
+            this.compiledOutput = compileFunction(program.getType(), context.getType(), ImmutableList.of(compiledKey.getReturnType(), listOfItemType), output);
+            this.groupType = scope.adapt(SortedGroups.Group.class, false);
+            this.groups = scope.evaluateInto(scope.invoke(key.getLocation(), scope.constructor(scope.adapt(SortedGroups.class, false))));
+            this.next.prepare(scope, program, context, compiledOutput.getReturnType());
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            // completed = groups.add(key(item), item)
+            // if completed != null
+            //    next(output(completed.key, completed.rows))
+            BytecodeExpression key = loop.cast(AnyTypeWidget.getInstance(), loop.invoke(this.key.getLocation(), compiledKey, program, ctxExpr, item));
+            BytecodeExpression completed = loop.evaluateInto(loop.invokeExact(this.key.getLocation(), "add", SortedGroups.class, groupType, groups, key, loop.cast(Location.NONE, AnyTypeWidget.getInstance(), item)));
+            loop.next(loop.isNull(this.key.getLocation(), completed));
+            emit(loop, completed);
+        }
+
+        private void emit(GambitCreator.IterateBuilder loop, BytecodeExpression group) {
+            BytecodeExpression groupKey = loop.cast(compiledKey.getReturnType(), loop.invokeExact(this.key.getLocation(), "getKey", SortedGroups.Group.class, AnyTypeWidget.getInstance(), group));
+            BytecodeExpression groupRows = loop.invokeExact(this.key.getLocation(), "getRows", SortedGroups.Group.class, listOfItemType, group);
+            BytecodeExpression actualItem = loop.evaluateInto(loop.invoke(this.output.getLocation(), compiledOutput, program, ctxExpr, groupKey, groupRows));
+            this.next.item(loop, actualItem);
+        }
+
+        @Override
+        public BytecodeExpression end(GambitCreator.ScopeBuilder scope, GambitCreator.IterateBuilder loop) {
+            scope.exec(loop.build());
+            // the last group is only complete once the input is
+            GambitCreator.IterateBuilder lastLoop = scope.iterate(scope.invokeExact(this.key.getLocation(), "finish", SortedGroups.class, new ListTypeWidget(groupType), groups));
+            emit(lastLoop, lastLoop.getItem());
+            return this.next.end(scope, lastLoop);
+        }
+    }
+
     /**
      * An operator implementation to group input rows by an extracted key.
      * <p/>
@@ -808,6 +971,8 @@ public class PhysicalExprOperatorCompiler {
         private TypeWidget rightRowType;
         private BytecodeExpression emptyMatchList;
         private BytecodeExpression rightMap;
+        private Class<?> joinTableType;
+        private TypeWidget joinTableKeyType;
 
         public HashJoinSink(StreamSink next, boolean outer, OperatorNode<PhysicalExprOperator> right, OperatorNode<FunctionOperator> leftKey, OperatorNode<FunctionOperator> rightKey, OperatorNode<FunctionOperator> join) {
             this.outer = outer;
@@ -826,8 +991,14 @@ public class PhysicalExprOperatorCompiler {
             this.rightRowType = outer ? NullableTypeWidget.create(rightIterator.getValue()) : NotNullableTypeWidget.create(rightIterator.getValue());
             this.listOfRightType = new ListTypeWidget(this.rightRowType);
             GambitCreator.Invocable compiledRightKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(rightRowType), rightKey);
-            TypeWidget rightMapType = new MapTypeWidget(Type.getType(HashMap.class), compiledRightKey.getReturnType(), listOfRightType);
-            this.rightMap = scope.evaluateInto(rightMapType.construct());
+            this.compiledLeftKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType), leftKey);
+            selectJoinTable(compiledLeftKey.getReturnType(), compiledRightKey.getReturnType());
+            if (joinTableType != null) {
+                this.rightMap = scope.evaluateInto(scope.invoke(rightKey.getLocation(), scope.constructor(scope.adapt(joinTableType, false))));
+            } else {
+                TypeWidget rightMapType = new MapTypeWidget(Type.getType(HashMap.class), compiledRightKey.getReturnType(), listOfRightType);
+                this.rightMap = scope.evaluateInto(rightMapType.construct());
+            }
             if(outer) {
                 this.emptyMatchList = scope.constant(listOfRightType, Arrays.asList(new Object[1]));
             } else {
@@ -836,7 +1007,17 @@ public class PhysicalExprOperatorCompiler {
             // for item in rightExpr:
             GambitCreator.IterateBuilder loop = scope.iterate(rightExpr);
             //    key = right_key(item)
-            BytecodeExpression key = loop.evaluateInto(loop.cast(AnyTypeWidget.getInstance(), loop.invoke(this.rightKey.getLocation(), compiledRightKey, program, context, loop.getItem())));
+            BytecodeExpression rightKeyValue = loop.invoke(this.rightKey.getLocation(), compiledRightKey, program, context, loop.getItem());
+            if (joinTableType != null) {
+                //    table.add(key, item)
+                loop.exec(loop.invokeExact(this.rightKey.getLocation(), "add", joinTableType, BaseTypeAdapter.VOID, rightMap,
+                        loop.cast(joinTableKeyType, rightKeyValue), loop.cast(Location.NONE, AnyTypeWidget.getInstance(), loop.getItem())));
+                scope.exec(loop.build());
+                this.compiledJoin = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType, this.rightRowType), join);
+                this.next.prepare(scope, program, context, compiledJoin.getReturnType());
+                return;
+            }
+            BytecodeExpression key = loop.evaluateInto(loop.cast(AnyTypeWidget.getInstance(), rightKeyValue));
             GambitCreator.CaseBuilder test = loop.createCase();
             //    if key in map:
             //       list = map[key]
@@ -852,22 +1033,38 @@ public class PhysicalExprOperatorCompiler {
             //    list.add(item)
             loop.exec(loop.invokeExact(Location.NONE, "add", Collection.class, BaseTypeAdapter.BOOLEAN, targetList, loop.cast(Location.NONE, AnyTypeWidget.getInstance(), loop.getItem())));
             scope.exec(loop.build());
-            this.compiledLeftKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType), leftKey);
             this.compiledJoin = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType, this.rightRowType), join);
             this.next.prepare(scope, program, context, compiledJoin.getReturnType());
         }
 
+        /**
+         * Use an unboxed LongJoinTable when both keys are integers and a StringJoinTable when both are strings;
+         * anything else is joined through a HashMap.
+         */
+        private void selectJoinTable(TypeWidget leftKeyType, TypeWidget rightKeyType) {
+            this.joinTableKeyType = joinKeyType(leftKeyType, rightKeyType);
+            if (joinTableKeyType == BaseTypeAdapter.INT64) {
+                this.joinTableType = LongJoinTable.class;
+            } else if (joinTableKeyType == BaseTypeAdapter.STRING) {
+                this.joinTableType = StringJoinTable.class;
+            }
+        }
+
         @Override
         public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
-            BytecodeExpression key = loop.evaluateInto(loop.cast(AnyTypeWidget.getInstance(), loop.invoke(this.leftKey.getLocation(), compiledLeftKey, program, ctxExpr, item)));
+            BytecodeExpression leftKeyValue = loop.invoke(this.leftKey.getLocation(), compiledLeftKey, program, ctxExpr, item);
             //
             // arrange for the output list to container either:
             //     1) list of right rows or
             //     2) empty list or list of a single null (depending on outer join)
-            GambitCreator.CaseBuilder test = loop.createCase();
-            test.when(loop.invokeExact(this.leftKey.getLocation(), "containsKey", Map.class, BaseTypeAdapter.BOOLEAN, rightMap, key),
-                    loop.cast(listOfRightType, loop.invokeExact(this.leftKey.getLocation(), "get", Map.class, AnyTypeWidget.getInstance(), rightMap, key)));
-            BytecodeExpression rightMatchedList = loop.evaluateInto(test.exit(emptyMatchList));
+            BytecodeExpression rightMatchedList;
+            if (joinTableType != null) {
+                rightMatchedList = loop.evaluateInto(loop.invokeExact(this.leftKey.getLocation(), "get", joinTableType, listOfRightType, rightMap,
+                        loop.cast(joinTableKeyType, leftKeyValue), emptyMatchList));
+            } else {
+                rightMatchedList = loop.evaluateInto(loop.cast(listOfRightType, loop.invokeExact(this.leftKey.getLocation(), "getOrDefault", Map.class, AnyTypeWidget.getInstance(), rightMap,
+                        loop.cast(AnyTypeWidget.getInstance(), leftKeyValue), loop.cast(AnyTypeWidget.getInstance(), emptyMatchList))));
+            }
             GambitCreator.IterateBuilder rightLoop = loop.iterate(rightMatchedList);
             this.next.item(rightLoop, rightLoop.evaluateInto(rightLoop.invoke(join.getLocation(), compiledJoin, program, ctxExpr, item, rightLoop.getItem())));
             loop.exec(rightLoop.build());
@@ -879,6 +1076,208 @@ public class PhysicalExprOperatorCompiler {
         }
     }
 
+    /**
+     * @return INT64 if both join keys are primitive integers, STRING if both are strings, otherwise null
+     */
+    private static TypeWidget joinKeyType(TypeWidget leftKeyType, TypeWidget rightKeyType) {
+        if (isIntegerKey(leftKeyType) && isIntegerKey(rightKeyType)) {
+            return BaseTypeAdapter.INT64;
+        } else if (isStringKey(leftKeyType) && isStringKey(rightKeyType)) {
+            return BaseTypeAdapter.STRING;
+        }
+        return null;
+    }
+
+    private static boolean isCollection(TypeWidget type) {
+        Type jvmType = type.getJVMType();
+        return jvmType.equals(Type.getType(List.class)) || jvmType.equals(Type.getType(Collection.class));
+    }
+
+    private static boolean isIntegerKey(TypeWidget keyType) {
+        // boxed keys may be null, which an unboxed table cannot hold
+        return keyType.isPrimitive() && (keyType.getValueCoreType() == YQLCoreType.INT32 || keyType.getValueCoreType() == YQLCoreType.INT64);
+    }
+
+    private static boolean isStringKey(TypeWidget keyType) {
+        return keyType.getValueCoreType() == YQLCoreType.STRING && keyType.getJVMType().equals(Type.getType(String.class));
+    }
+
+    /**
+     * HASH_JOIN annotated BUILD_SMALLER: the left rows are accumulated and then whichever input is smaller is hashed
+     * (see SmallerSideJoin). The output is the same as HashJoinSink's.
+     */
+    class SmallerSideHashJoinSink extends BaseStreamSink {
+        private boolean outer;
+        private final StreamSink next;
+        private final OperatorNode<PhysicalExprOperator> right;
+        private final OperatorNode<FunctionOperator> leftKey;
+        private final OperatorNode<FunctionOperator> rightKey;
+        private final OperatorNode<FunctionOperator> join;
+        private GambitCreator.Invocable compiledLeftKey;
+        private GambitCreator.Invocable compiledRightKey;
+        private GambitCreator.Invocable compiledJoin;
+        private TypeWidget listOfRightType;
+        private Class<?> joinType;
+        private TypeWidget joinKeyType;
+        private BytecodeExpression rightExpr;
+        private BytecodeExpression leftRows;
+
+        public SmallerSideHashJoinSink(StreamSink next, boolean outer, OperatorNode<PhysicalExprOperator> right, OperatorNode<FunctionOperator> leftKey, OperatorNode<FunctionOperator> rightKey, OperatorNode<FunctionOperator> join) {
+            this.outer = outer;
+            this.next = new SkipNullsSink(next);
+            this.right = right;
+            this.leftKey = leftKey;
+            this.rightKey = rightKey;
+            this.join = join;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            super.prepare(scope, program, context, itemType);
+            this.rightExpr = scope.local(evaluateExpression(program, context, right));
+            IterateAdapter rightIterator = rightExpr.getType().getIterableAdapter();
+            TypeWidget rightRowType = outer ? NullableTypeWidget.create(rightIterator.getValue()) : NotNullableTypeWidget.create(rightIterator.getValue());
+            this.listOfRightType = new ListTypeWidget(rightRowType);
+            this.compiledRightKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(rightRowType), rightKey);
+            this.compiledLeftKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType), leftKey);
+            this.compiledJoin = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType, rightRowType), join);
+            TypeWidget keyType = joinKeyType(compiledLeftKey.getReturnType(), compiledRightKey.getReturnType());
+            if (keyType == BaseTypeAdapter.INT64) {
+                this.joinType = SmallerSideJoin.Longs.class;
+            } else if (keyType == BaseTypeAdapter.STRING) {
+                this.joinType = SmallerSideJoin.Strings.class;
+            } else {
+                this.joinType = SmallerSideJoin.Objects.class;
+                keyType = AnyTypeWidget.getInstance();
+            }
+            this.joinKeyType = keyType;
+            this.leftRows = scope.evaluateInto(scope.list(itemType));
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            loop.exec(loop.invokeExact(Location.NONE, "add", Collection.class, BaseTypeAdapter.BOOLEAN, leftRows, loop.cast(Location.NONE, AnyTypeWidget.getInstance(), item)));
+        }
+
+        @Override
+        public BytecodeExpression end(GambitCreator.ScopeBuilder scope, GambitCreator.IterateBuilder loop) {
+            scope.exec(loop.build());
+            // table = new SmallerSideJoin(leftRows, rightRows)
+            BytecodeExpression table = scope.evaluateInto(scope.invoke(join.getLocation(),
+                    scope.constructor(scope.adapt(joinType, false), scope.adapt(List.class, false), AnyTypeWidget.getInstance()),
+                    scope.cast(scope.adapt(List.class, false), leftRows), scope.cast(AnyTypeWidget.getInstance(), rightExpr)));
+            scope.exec(scope.invokeExact(join.getLocation(), "report", joinType, BaseTypeAdapter.VOID, table, ctxExpr));
+            // for left in leftRows: table.left(left_key(left))
+            GambitCreator.IterateBuilder leftLoop = scope.iterate(leftRows);
+            leftLoop.exec(leftLoop.invokeExact(leftKey.getLocation(), "left", joinType, BaseTypeAdapter.VOID, table,
+                    leftLoop.cast(joinKeyType, leftLoop.invoke(leftKey.getLocation(), compiledLeftKey, program, ctxExpr, leftLoop.getItem()))));
+            scope.exec(leftLoop.build());
+            // for right in rightRows: table.right(right_key(right), right)
+            GambitCreator.IterateBuilder rightLoop = scope.iterate(rightExpr);
+            rightLoop.exec(rightLoop.invokeExact(rightKey.getLocation(), "right", joinType, BaseTypeAdapter.VOID, table,
+                    rightLoop.cast(joinKeyType, rightLoop.invoke(rightKey.getLocation(), compiledRightKey, program, ctxExpr, rightLoop.getItem())),
+                    rightLoop.cast(Location.NONE, AnyTypeWidget.getInstance(), rightLoop.getItem())));
+            scope.exec(rightLoop.build());
+            scope.exec(scope.invokeExact(join.getLocation(), "finish", joinType, BaseTypeAdapter.VOID, table));
+            BytecodeExpression emptyMatchList = outer ? scope.constant(listOfRightType, Arrays.asList(new Object[1])) : scope.constant(listOfRightType, ImmutableList.of());
+            // for left in leftRows: for right in table.next(): join(left, right)
+            this.next.prepare(scope, program, ctxExpr, compiledJoin.getReturnType());
+            GambitCreator.IterateBuilder outputLoop = scope.iterate(leftRows);
+            BytecodeExpression matched = outputLoop.evaluateInto(outputLoop.invokeExact(join.getLocation(), "next", joinType, listOfRightType, table, emptyMatchList));
+            GambitCreator.IterateBuilder matchLoop = outputLoop.iterate(matched);
+            this.next.item(matchLoop, matchLoop.evaluateInto(matchLoop.invoke(join.getLocation(), compiledJoin, program, ctxExpr, outputLoop.getItem(), matchLoop.getItem())));
+            outputLoop.exec(matchLoop.build());
+            return this.next.end(scope, outputLoop);
+        }
+    }
+
+    /**
+     * SYMMETRIC_INSERT_LEFT and SYMMETRIC_INSERT_RIGHT: add each row to the SymmetricHashJoin, then pass it on.
+     */
+    private class SymmetricInsertSink extends BaseTransformSink {
+        private final boolean left;
+        private final OperatorNode<PhysicalExprOperator> state;
+        private final OperatorNode<FunctionOperator> key;
+        private BytecodeExpression stateExpr;
+        private GambitCreator.Invocable compiledKey;
+
+        public SymmetricInsertSink(StreamSink next, boolean left, OperatorNode<PhysicalExprOperator> state, OperatorNode<FunctionOperator> key) {
+            super(next);
+            this.left = left;
+            this.state = state;
+            this.key = key;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            this.stateExpr = scope.local(evaluateExpression(program, context, state));
+            this.compiledKey = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType), key);
+            super.prepare(scope, program, context, itemType);
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            BytecodeExpression keyValue = loop.cast(Location.NONE, AnyTypeWidget.getInstance(), loop.invoke(key.getLocation(), compiledKey, program, ctxExpr, item));
+            if (left) {
+                loop.exec(loop.invokeExact(key.getLocation(), "left", SymmetricHashJoin.class, BaseTypeAdapter.VOID, stateExpr, keyValue));
+            } else {
+                loop.exec(loop.invokeExact(key.getLocation(), "right", SymmetricHashJoin.class, BaseTypeAdapter.VOID, stateExpr, keyValue,
+                        loop.cast(Location.NONE, AnyTypeWidget.getInstance(), item)));
+            }
+            super.item(loop, item);
+        }
+    }
+
+    /**
+     * SYMMETRIC_JOIN and OUTER_SYMMETRIC_JOIN: the rows of the left input were all added by SYMMETRIC_INSERT_LEFT, so
+     * each one's matches can be emitted as it streams by. The right input is only referenced for its row type.
+     */
+    private class SymmetricJoinSink extends BaseStreamSink {
+        private final boolean outer;
+        private final StreamSink next;
+        private final OperatorNode<PhysicalExprOperator> state;
+        private final OperatorNode<PhysicalExprOperator> right;
+        private final OperatorNode<FunctionOperator> join;
+        private BytecodeExpression stateExpr;
+        private BytecodeExpression emptyMatchList;
+        private TypeWidget listOfRightType;
+        private GambitCreator.Invocable compiledJoin;
+
+        public SymmetricJoinSink(StreamSink next, boolean outer, OperatorNode<PhysicalExprOperator> state, OperatorNode<PhysicalExprOperator> right, OperatorNode<FunctionOperator> join) {
+            this.outer = outer;
+            this.next = new SkipNullsSink(next);
+            this.state = state;
+            this.right = right;
+            this.join = join;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            super.prepare(scope, program, context, itemType);
+            this.stateExpr = scope.local(evaluateExpression(program, context, state));
+            IterateAdapter rightIterator = evaluateExpression(program, context, right).getType().getIterableAdapter();
+            TypeWidget rightRowType = outer ? NullableTypeWidget.create(rightIterator.getValue()) : NotNullableTypeWidget.create(rightIterator.getValue());
+            this.listOfRightType = new ListTypeWidget(rightRowType);
+            this.emptyMatchList = outer ? scope.constant(listOfRightType, Arrays.asList(new Object[1])) : scope.constant(listOfRightType, ImmutableList.of());
+            this.compiledJoin = compileFunction(program.getType(), context.getType(), ImmutableList.of(itemType, rightRowType), join);
+            this.next.prepare(scope, program, context, compiledJoin.getReturnType());
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            // for right in join.next(): emit join(item, right)
+            BytecodeExpression matched = loop.evaluateInto(loop.invokeExact(join.getLocation(), "next", SymmetricHashJoin.class, listOfRightType, stateExpr, emptyMatchList));
+            GambitCreator.IterateBuilder matchLoop = loop.iterate(matched);
+            this.next.item(matchLoop, matchLoop.evaluateInto(matchLoop.invoke(join.getLocation(), compiledJoin, program, ctxExpr, item, matchLoop.getItem())));
+            loop.exec(matchLoop.build());
+        }
+
+        @Override
+        public BytecodeExpression end(GambitCreator.ScopeBuilder scope, GambitCreator.IterateBuilder loop) {
+            return this.next.end(scope, loop);
+        }
+    }
+
     private class TransformSink extends BaseTransformSink {
         private GambitCreator.Invocable compiledTransform;
         private final OperatorNode<FunctionOperator> function;
@@ -931,7 +1330,25 @@ public class PhysicalExprOperatorCompiler {
             BytecodeExpression scatterValue = funcBody.complete(functionCompiler.evaluateExpression(programArgument, ctxArgument, functionBody));
             CallableInvocable scatterFunction = functor.complete(scatterValue).prefix(program, ctxExpr);
             BytecodeExpression timeout = scope.propertyValue(function.getLocation(), ctxExpr, "timeout");
-            return scope.resolve(function.getLocation(), timeout, scope.scatter(function.getLocation(), getRuntime(scope, program, ctxExpr), output, scatterFunction));
+            BytecodeExpression runtime = getRuntime(scope, program, ctxExpr, (String) function.getAnnotation(PhysicalExprOperator.BULKHEAD));
+            return scope.resolve(function.getLocation(), timeout, scope.scatter(function.getLocation(), runtime, output, scatterFunction));
+        }
+    }
+
+    private class ChunkSink extends AccumulatedTransformSink {
+        private final OperatorNode<PhysicalExprOperator> size;
+
+        public ChunkSink(StreamSink next, OperatorNode<PhysicalExprOperator> size) {
+            super(next);
+            this.size = size;
+        }
+
+        @Override
+        protected BytecodeExpression transform(GambitCreator.ScopeBuilder scope, BytecodeExpression output) {
+            BytecodeExpression chunkSize = evaluateExpression(program, ctxExpr, size);
+            return scope.invokeStatic(size.getLocation(), "partition", Lists.class, new ListTypeWidget(NotNullableTypeWidget.create(output.getType())),
+                    scope.cast(scope.adapt(List.class, false), output),
+                    scope.cast(BaseTypeAdapter.INT32, chunkSize));
         }
     }
 
@@ -959,6 +1376,55 @@ public class PhysicalExprOperatorCompiler {
         }
     }
 
+    /**
+     * ORDERBY followed by a SLICE; rather than accumulating (and sorting) the whole input, retain only the first
+     * offset + limit rows in a bounded heap.
+     */
+    private class TopNSink extends BaseStreamSink {
+        private final StreamSink next;
+        private final OperatorNode<FunctionOperator> comparator;
+        private final OperatorNode<PhysicalExprOperator> offset;
+        private final OperatorNode<PhysicalExprOperator> limit;
+        private TypeWidget listOfItemType;
+        private BytecodeExpression heap;
+
+        public TopNSink(StreamSink next, OperatorNode<FunctionOperator> comparator, OperatorNode<PhysicalExprOperator> offset, OperatorNode<PhysicalExprOperator> limit) {
+            this.next = next;
+            this.comparator = comparator;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        @Override
+        public void prepare(GambitCreator.ScopeBuilder scope, BytecodeExpression program, BytecodeExpression context, TypeWidget itemType) {
+            super.prepare(scope, program, context, itemType);
+            this.listOfItemType = new ListTypeWidget(itemType);
+            TypeWidget comparatorType = compileComparator(program.getType(), context.getType(), itemType, comparator);
+            BytecodeExpression comparatorInstance = scope.invoke(comparator.getLocation(),
+                    scope.constructor(comparatorType, program.getType(), context.getType()), program, context);
+            heap = scope.evaluateInto(scope.invokeExact(comparator.getLocation(), "topN", ProgramInvocation.class, scope.adapt(TopN.class, false),
+                    program,
+                    new BytecodeCastExpression(scope.adapt(Comparator.class, false), comparatorInstance),
+                    new BytecodeCastExpression(BaseTypeAdapter.INT32, evaluateExpression(program, context, offset)),
+                    new BytecodeCastExpression(BaseTypeAdapter.INT32, evaluateExpression(program, context, limit))));
+        }
+
+        @Override
+        public void item(GambitCreator.IterateBuilder loop, BytecodeExpression item) {
+            loop.exec(loop.invokeExact(Location.NONE, "add", TopN.class, BaseTypeAdapter.BOOLEAN, heap, loop.cast(Location.NONE, AnyTypeWidget.getInstance(), item)));
+        }
+
+        @Override
+        public BytecodeExpression end(GambitCreator.ScopeBuilder scope, GambitCreator.IterateBuilder loop) {
+            scope.exec(loop.build());
+            BytecodeExpression rows = scope.evaluateInto(scope.invokeExact(limit.getLocation(), "finish", TopN.class, listOfItemType, heap));
+            GambitCreator.IterateBuilder nextLoop = scope.iterate(rows);
+            this.next.prepare(scope, program, ctxExpr, nextLoop.getItem().getType());
+            this.next.item(nextLoop, nextLoop.getItem());
+            return this.next.end(scope, nextLoop);
+        }
+    }
+
     private class DistinctSink extends BaseTransformSink {
         Location location;
         AssignableValue set;
@@ -1049,8 +1515,10 @@ public class PhysicalExprOperatorCompiler {
                 case STREAM: {
                     OperatorNode<PhysicalExprOperator> target = sink.getArgument(0);
                     BytecodeExpression targetExpression = evaluateExpression(program, ctxExpr, target);
-                    return new StreamingSink(targetExpression);
+                    return isOutputStream(target) ? new OutputStreamingSink(targetExpression) : new StreamingSink(targetExpression);
                 }
+                case OUTPUT:
+                    throw new ProgramCompileException(stream.getLocation(), "OUTPUT sink is only valid for a stream without operators");
                 default:
                     throw new UnsupportedOperationException("Unknown SINK operator: " + sink);
             }
@@ -1065,6 +1533,10 @@ public class PhysicalExprOperatorCompiler {
                 OperatorNode<FunctionOperator> function = stream.getArgument(1);
                 return new ScatterSink(next, function);
             }
+            case CHUNK: {
+                OperatorNode<PhysicalExprOperator> size = stream.getArgument(1);
+                return new ChunkSink(next, size);
+            }
             case DISTINCT: {
                 return new DistinctSink(next, stream.getLocation());
             }
@@ -1092,11 +1564,22 @@ public class PhysicalExprOperatorCompiler {
                 OperatorNode<FunctionOperator> comparator = stream.getArgument(1);
                 return new SortSink(next, comparator);
             }
+            case TOP_N: {
+                OperatorNode<FunctionOperator> comparator = stream.getArgument(1);
+                OperatorNode<PhysicalExprOperator> offset = stream.getArgument(2);
+                OperatorNode<PhysicalExprOperator> limit = stream.getArgument(3);
+                return new TopNSink(next, comparator, offset, limit);
+            }
             case GROUPBY: {
                 OperatorNode<FunctionOperator> key = stream.getArgument(1);
                 OperatorNode<FunctionOperator> output = stream.getArgument(2);
                 return new GroupbySink(next, key, output);
             }
+            case SORTED_GROUPBY: {
+                OperatorNode<FunctionOperator> key = stream.getArgument(1);
+                OperatorNode<FunctionOperator> output = stream.getArgument(2);
+                return new SortedGroupbySink(next, key, output);
+            }
             case CROSS: {
                 OperatorNode<PhysicalExprOperator> right = stream.getArgument(1);
                 OperatorNode<FunctionOperator> output = stream.getArgument(2);
@@ -1108,7 +1591,24 @@ public class PhysicalExprOperatorCompiler {
                 OperatorNode<FunctionOperator> leftKey = stream.getArgument(2);
                 OperatorNode<FunctionOperator> rightKey = stream.getArgument(3);
                 OperatorNode<FunctionOperator> join = stream.getArgument(4);
-                return new HashJoinSink(next, stream.getOperator() == StreamOperator.OUTER_HASH_JOIN, right, leftKey, rightKey, join);
+                boolean outer = stream.getOperator() == StreamOperator.OUTER_HASH_JOIN;
+                if (StreamOperator.BUILD_SMALLER.equals(stream.getAnnotation(StreamOperator.BUILD))) {
+                    return new SmallerSideHashJoinSink(next, outer, right, leftKey, rightKey, join);
+                }
+                return new HashJoinSink(next, outer, right, leftKey, rightKey, join);
+            }
+            case SYMMETRIC_INSERT_LEFT:
+            case SYMMETRIC_INSERT_RIGHT: {
+                OperatorNode<PhysicalExprOperator> state = stream.getArgument(1);
+                OperatorNode<FunctionOperator> key = stream.getArgument(2);
+                return new SymmetricInsertSink(next, stream.getOperator() == StreamOperator.SYMMETRIC_INSERT_LEFT, state, key);
+            }
+            case OUTER_SYMMETRIC_JOIN:
+            case SYMMETRIC_JOIN: {
+                OperatorNode<PhysicalExprOperator> state = stream.getArgument(1);
+                OperatorNode<PhysicalExprOperator> right = stream.getArgument(2);
+                OperatorNode<FunctionOperator> join = stream.getArgument(3);
+                return new SymmetricJoinSink(next, stream.getOperator() == StreamOperator.OUTER_SYMMETRIC_JOIN, state, right, join);
             }
             default:
                 throw new UnsupportedOperationException("Unexpected transform StreamOperator: " + stream.toString());
@@ -12,10 +12,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.MembersInjector;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.yahoo.cloud.metrics.api.TaskMetricEmitter;
 import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.PreparedProgram;
 import com.yahoo.yqlplus.engine.ProgramResult;
 import com.yahoo.yqlplus.engine.TaskContext;
 import com.yahoo.yqlplus.engine.api.InvocationResultHandler;
@@ -24,29 +26,35 @@ import com.yahoo.yqlplus.engine.api.NativeInvocationResultHandler;
 import com.yahoo.yqlplus.engine.internal.code.CodeOutput;
 import com.yahoo.yqlplus.engine.internal.generate.ProgramInvocation;
 import com.yahoo.yqlplus.engine.internal.java.runtime.ProgramTracer;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TracingPolicy;
 import com.yahoo.yqlplus.engine.internal.java.runtime.RelativeTicker;
 import com.yahoo.yqlplus.engine.internal.java.runtime.TimeoutTracker;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TimerWheelExecutor;
 import com.yahoo.yqlplus.engine.internal.plan.PlanPrinter;
 import com.yahoo.yqlplus.engine.internal.plan.TaskOperator;
 import com.yahoo.yqlplus.engine.internal.scope.ExecutionScoper;
 import com.yahoo.yqlplus.engine.internal.scope.ScopedObjects;
 import com.yahoo.yqlplus.engine.internal.scope.ScopedTracingExecutor;
+import com.yahoo.yqlplus.engine.internal.scope.TimeoutMode;
 import com.yahoo.yqlplus.engine.scope.EmptyExecutionScope;
 import com.yahoo.yqlplus.engine.scope.ExecutionScope;
 import com.yahoo.yqlplus.engine.scope.WrapScope;
 import com.yahoo.yqlplus.language.logical.SequenceOperator;
 import com.yahoo.yqlplus.language.operator.OperatorNode;
+import com.yahoo.yqlplus.language.parser.ProgramCompileException;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.lang.reflect.Constructor;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class PlanCompiledProgram implements CompiledProgram {
     private final String name;
@@ -55,10 +63,14 @@ public final class PlanCompiledProgram implements CompiledProgram {
     private final Map<String, OperatorNode<SequenceOperator>> views;
     private final byte[] dump;
     private final OperatorNode<TaskOperator> plan;
-    private final Class<? extends ProgramInvocation> compiledProgram;
+    private final long classBytes;
+    private final AtomicBoolean classBytesReported = new AtomicBoolean();
+    private volatile Class<? extends ProgramInvocation> compiledProgram;
+    private volatile ProgramFactory factory;
+    private volatile boolean shared;
 
 
-    PlanCompiledProgram(String name, List<ArgumentInfo> argumentInfos, List<ResultSetInfo> resultSetInfos, Map<String, OperatorNode<SequenceOperator>> views, OperatorNode<TaskOperator> plan, byte[] dump, Class<? extends ProgramInvocation> compiledProgram) {
+    PlanCompiledProgram(String name, List<ArgumentInfo> argumentInfos, List<ResultSetInfo> resultSetInfos, Map<String, OperatorNode<SequenceOperator>> views, OperatorNode<TaskOperator> plan, byte[] dump, Class<? extends ProgramInvocation> compiledProgram, long classBytes) {
         this.name = name;
         this.argumentInfos = argumentInfos;
         this.resultSetInfos = resultSetInfos;
@@ -66,6 +78,7 @@ public final class PlanCompiledProgram implements CompiledProgram {
         this.plan = plan;
         this.dump = dump;
         this.compiledProgram = compiledProgram;
+        this.classBytes = classBytes;
     }
 
     @Inject
@@ -79,9 +92,24 @@ public final class PlanCompiledProgram implements CompiledProgram {
     @Named("work")
     protected ExecutorService workExecutor;
 
+    @Inject
+    protected TimeoutMode timeoutMode;
+
+    @Inject
+    protected TracingPolicy tracingPolicy;
+
     @Inject
     protected Injector injector;
 
+    /**
+     * Executions are injected from a child of the engine injector so nothing the engine injector retains (such as the
+     * members injectors of the generated classes injected while running) refers to the classes of this program.
+     */
+    @Inject
+    void link() {
+        this.factory = new ProgramFactory(compiledProgram, injector.createChildInjector());
+    }
+
     public String getName() {
         return name;
     }
@@ -106,10 +134,49 @@ public final class PlanCompiledProgram implements CompiledProgram {
         return ImmutableList.copyOf(views.keySet());
     }
 
+    /**
+     * @return the generated program class, or null once this program is closed
+     */
     public Class<? extends ProgramInvocation> getCompiledProgram() {
         return compiledProgram;
     }
 
+    /**
+     * @return the total size of the class files generated for this program, an estimate of the metaspace it uses
+     */
+    public long getGeneratedClassBytes() {
+        return classBytes;
+    }
+
+    /**
+     * Mark this program as shared by several holders (see CompiledProgramCache), so close() leaves it open.
+     */
+    public void setShared() {
+        this.shared = true;
+    }
+
+    @Override
+    public void close() {
+        if (shared) {
+            return;
+        }
+        factory = null;
+        compiledProgram = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return factory == null;
+    }
+
+    private ProgramFactory factory() {
+        ProgramFactory factory = this.factory;
+        if (factory == null) {
+            throw new IllegalStateException("Program '" + name + "' is closed");
+        }
+        return factory;
+    }
+
     @Override
     public OperatorNode<SequenceOperator> getView(String name) {
         return views.get(name);
@@ -132,30 +199,52 @@ public final class PlanCompiledProgram implements CompiledProgram {
 
     @Override
     public ProgramResult run(Map<String, Object> arguments, boolean debug, ExecutionScope inputScope, long timeout, TimeUnit timeoutUnit) throws Exception {
+        return run(arguments, null, debug, inputScope, timeout, timeoutUnit);
+    }
+
+    ProgramResult run(Object[] arguments, boolean debug, ExecutionScope inputScope, long timeout, TimeUnit timeoutUnit) {
+        return run(null, arguments, debug, inputScope, timeout, timeoutUnit);
+    }
+
+    private ProgramResult run(Map<String, Object> arguments, Object[] boundArguments, boolean debug, ExecutionScope inputScope, long timeout, TimeUnit timeoutUnit) {
         TimeoutTracker tracker = new TimeoutTracker(timeout, timeoutUnit, new RelativeTicker(Ticker.systemTicker()));
-        ProgramTracer tracer = new ProgramTracer(Ticker.systemTicker(), debug, "program", name);
+        ProgramTracer tracer = new ProgramTracer(Ticker.systemTicker(), debug, tracingPolicy.sample(debug), "program", name);
         scoper.enter(new ScopedObjects(inputScope));
         TaskMetricEmitter requestEmitter = injector.getInstance(TaskMetricEmitter.class);
         TaskContext context = new TaskContext(requestEmitter, tracer, tracker);
         PlanProgramResultAdapter adapter = new PlanProgramResultAdapter(tracer, resultSetInfos, scoper);
-        invoke(adapter, arguments, inputScope, context);
+        if (boundArguments != null) {
+            invoke(adapter, boundArguments, inputScope, context);
+        } else {
+            invoke(adapter, arguments, inputScope, context);
+        }
         requestEmitter.end();
         scoper.exit();
         return adapter;
     }
 
-    @Override
-    public void invoke(final InvocationResultHandler resultHandler, final Map<String, Object> arguments, ExecutionScope inputScope, final TaskContext context) {
+    private ScopedTracingExecutor createExecutor(ExecutionScope inputScope, TaskContext context) {
         ExecutionScope scope = new WrapScope(inputScope)
                 .bind(Boolean.class, "debug", true)
                 .bind(String.class, "programName", name);
-       // final TaskMetricEmitter programTasks = context.metricEmitter; //.start("program.tmp", name); 
-        ScopedTracingExecutor tracingExecutor = new ScopedTracingExecutor(timerExecutor, workExecutor, scoper, context.metricEmitter, context.tracer, context.timeout, scope);
-        final Injector injector = this.injector;
-        tracingExecutor.runNow(new Runnable() {
+        if (timerExecutor instanceof TimerWheelExecutor) {
+            context.metricEmitter.emit("timerBacklog", ((TimerWheelExecutor) timerExecutor).getBacklog());
+        }
+        // a property of the program, not of each execution; reported by the first (there is no emitter while compiling)
+        if (classBytesReported.compareAndSet(false, true)) {
+            context.metricEmitter.emit("programClassBytes", classBytes);
+        }
+        boolean traced = !(context.tracer instanceof ProgramTracer) || ((ProgramTracer) context.tracer).isSampled();
+        return new ScopedTracingExecutor(timerExecutor, workExecutor, scoper, context.metricEmitter, context.tracer, context.timeout, scope, timeoutMode, traced);
+    }
+
+    @Override
+    public void invoke(final InvocationResultHandler resultHandler, final Map<String, Object> arguments, ExecutionScope inputScope, final TaskContext context) {
+        final ProgramFactory factory = factory();
+        createExecutor(inputScope, context).runNow(new Runnable() {
             @Override
             public void run() {
-                ProgramInvocation program = injector.getInstance(getCompiledProgram());
+                ProgramInvocation program = factory.create();
                 program.invoke(resultHandler, arguments);
             }
         });
@@ -163,21 +252,43 @@ public final class PlanCompiledProgram implements CompiledProgram {
 
     @Override
     public void invoke(final NativeEncoding encoding, final NativeInvocationResultHandler resultHandler, final Map<String, Object> arguments, ExecutionScope inputScope, TaskContext context) {
-        ExecutionScope scope = new WrapScope(inputScope)
-                .bind(Boolean.class, "debug", true)
-                .bind(String.class, "programName", name);
-        final TaskMetricEmitter programTasks = context.metricEmitter; //.start("program.tmp", name);
-        ScopedTracingExecutor tracingExecutor = new ScopedTracingExecutor(timerExecutor, workExecutor, scoper, programTasks, context.tracer, context.timeout, scope);
-        final Injector injector = this.injector;
-        tracingExecutor.runNow(new Runnable() {
+        final ProgramFactory factory = factory();
+        createExecutor(inputScope, context).runNow(new Runnable() {
             @Override
             public void run() {
-                ProgramInvocation program = injector.getInstance(getCompiledProgram());
+                ProgramInvocation program = factory.create();
+                program.invoke(encoding, resultHandler, arguments);
+            }
+        });
+    }
+
+    void invoke(final InvocationResultHandler resultHandler, final Object[] arguments, ExecutionScope inputScope, TaskContext context) {
+        final ProgramFactory factory = factory();
+        createExecutor(inputScope, context).runNow(new Runnable() {
+            @Override
+            public void run() {
+                ProgramInvocation program = factory.create();
+                program.invoke(resultHandler, arguments);
+            }
+        });
+    }
+
+    void invoke(final NativeEncoding encoding, final NativeInvocationResultHandler resultHandler, final Object[] arguments, ExecutionScope inputScope, TaskContext context) {
+        final ProgramFactory factory = factory();
+        createExecutor(inputScope, context).runNow(new Runnable() {
+            @Override
+            public void run() {
+                ProgramInvocation program = factory.create();
                 program.invoke(encoding, resultHandler, arguments);
             }
         });
     }
 
+    @Override
+    public PreparedProgram prepare() {
+        return new PlanPreparedProgram(this);
+    }
+
     @Override
     public void dump(OutputStream out) throws IOException {
         Writer output = new OutputStreamWriter(out, Charsets.UTF_8);
@@ -199,4 +310,30 @@ public final class PlanCompiledProgram implements CompiledProgram {
         }
         return false;
     }
+
+    private static final class ProgramFactory {
+        private final Constructor<? extends ProgramInvocation> constructor;
+        private final MembersInjector<ProgramInvocation> members;
+
+        ProgramFactory(Class<? extends ProgramInvocation> programClass, Injector programInjector) {
+            try {
+                this.constructor = programClass.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new ProgramCompileException(e);
+            }
+            this.constructor.setAccessible(true);
+            this.members = programInjector.getMembersInjector(ProgramInvocation.class);
+        }
+
+        ProgramInvocation create() {
+            ProgramInvocation program;
+            try {
+                program = constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            members.injectMembers(program);
+            return program;
+        }
+    }
 }
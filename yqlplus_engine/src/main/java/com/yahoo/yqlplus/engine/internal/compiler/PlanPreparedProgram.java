@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.compiler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import com.yahoo.yqlplus.api.types.YQLCoreType;
+import com.yahoo.yqlplus.api.types.YQLOptionalType;
+import com.yahoo.yqlplus.api.types.YQLType;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.PreparedProgram;
+import com.yahoo.yqlplus.engine.ProgramResult;
+import com.yahoo.yqlplus.engine.TaskContext;
+import com.yahoo.yqlplus.engine.api.InvocationResultHandler;
+import com.yahoo.yqlplus.engine.api.NativeEncoding;
+import com.yahoo.yqlplus.engine.api.NativeInvocationResultHandler;
+import com.yahoo.yqlplus.engine.scope.EmptyExecutionScope;
+import com.yahoo.yqlplus.engine.scope.ExecutionScope;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+final class PlanPreparedProgram implements PreparedProgram {
+    private final PlanCompiledProgram program;
+    private final Slot[] slots;
+    private final Map<String, Integer> slotIndex;
+
+    PlanPreparedProgram(PlanCompiledProgram program) {
+        this.program = program;
+        List<CompiledProgram.ArgumentInfo> arguments = program.getArguments();
+        this.slots = new Slot[arguments.size()];
+        ImmutableMap.Builder<String, Integer> index = ImmutableMap.builder();
+        for (int i = 0; i < slots.length; i++) {
+            CompiledProgram.ArgumentInfo info = arguments.get(i);
+            slots[i] = new Slot(info);
+            index.put(info.getName(), i);
+        }
+        this.slotIndex = index.build();
+    }
+
+    @Override
+    public CompiledProgram getProgram() {
+        return program;
+    }
+
+    @Override
+    public Binding bind(Object... values) {
+        if (values.length > slots.length) {
+            throw new IllegalArgumentException("Program accepts " + slots.length + " arguments (got " + values.length + ")");
+        }
+        Object[] bound = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            bound[i] = slots[i].coerce(i < values.length ? values[i] : null);
+        }
+        return new BoundProgram(bound);
+    }
+
+    @Override
+    public Binding bind(Map<String, Object> arguments) {
+        Set<String> unknown = Sets.difference(arguments.keySet(), slotIndex.keySet());
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown program argument(s): " + unknown);
+        }
+        Object[] bound = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            bound[i] = slots[i].coerce(arguments.get(slots[i].name));
+        }
+        return new BoundProgram(bound);
+    }
+
+    private final class BoundProgram implements Binding {
+        private final Object[] arguments;
+
+        BoundProgram(Object[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public ProgramResult execute() {
+            return execute(false);
+        }
+
+        @Override
+        public ProgramResult execute(boolean debug) {
+            return execute(debug, new EmptyExecutionScope(), 30L, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public ProgramResult execute(boolean debug, ExecutionScope scope, long timeout, TimeUnit timeoutUnit) {
+            return program.run(arguments, debug, scope, timeout, timeoutUnit);
+        }
+
+        @Override
+        public void invoke(InvocationResultHandler resultHandler, ExecutionScope scope, TaskContext context) {
+            program.invoke(resultHandler, arguments, scope, context);
+        }
+
+        @Override
+        public void invoke(NativeEncoding encoding, NativeInvocationResultHandler resultHandler, ExecutionScope scope, TaskContext context) {
+            program.invoke(encoding, resultHandler, arguments, scope, context);
+        }
+
+        @Override
+        public String toString() {
+            return program.getName() + Arrays.toString(arguments);
+        }
+    }
+
+    private static final class Slot {
+        private final String name;
+        private final YQLType type;
+        private final YQLCoreType coreType;
+        private final boolean required;
+
+        Slot(CompiledProgram.ArgumentInfo info) {
+            this.name = info.getName();
+            this.type = info.getYQLType();
+            this.coreType = type != null ? YQLOptionalType.deoptional(type).getCoreType() : YQLCoreType.ANY;
+            this.required = info.isRequired();
+        }
+
+        Object coerce(Object value) {
+            if (value == null) {
+                if (required) {
+                    throw new IllegalArgumentException("Missing required program argument '" + name + "' (type '" + type + "')");
+                }
+                return null;
+            }
+            switch (coreType) {
+                case INT8:
+                    return (byte) integral(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                case INT16:
+                    return (short) integral(value, Short.MIN_VALUE, Short.MAX_VALUE);
+                case INT32:
+                    return (int) integral(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                case INT64:
+                case TIMESTAMP:
+                    return integral(value, Long.MIN_VALUE, Long.MAX_VALUE);
+                case FLOAT32:
+                    return ((Number) check(value, Number.class)).floatValue();
+                case FLOAT64:
+                    return ((Number) check(value, Number.class)).doubleValue();
+                case BOOLEAN:
+                    return check(value, Boolean.class);
+                case STRING:
+                    return check(value, String.class);
+                case MAP:
+                    return check(value, Map.class);
+                case ARRAY:
+                    if (value instanceof Object[]) {
+                        return ImmutableList.copyOf((Object[]) value);
+                    } else if (value instanceof Collection && !(value instanceof List)) {
+                        return ImmutableList.copyOf((Collection<?>) value);
+                    }
+                    return check(value, List.class);
+                default:
+                    return value;
+            }
+        }
+
+        private long integral(Object value, long min, long max) {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                long result = ((Number) value).longValue();
+                if (result < min || result > max) {
+                    throw invalid(value);
+                }
+                return result;
+            }
+            throw invalid(value);
+        }
+
+        private Object check(Object value, Class<?> expected) {
+            if (!expected.isInstance(value)) {
+                throw invalid(value);
+            }
+            return value;
+        }
+
+        private IllegalArgumentException invalid(Object value) {
+            return new IllegalArgumentException("Program argument '" + name + "' (type '" + type + "') cannot accept " + value.getClass().getName() + " value '" + value + "'");
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.yahoo.yqlplus.engine.internal.plan.TaskOperator;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorStep;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorValue;
 import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeExpression;
+import com.yahoo.yqlplus.engine.internal.scope.SourceBulkheads;
 import com.yahoo.yqlplus.engine.internal.plan.types.TypeWidget;
 import com.yahoo.yqlplus.engine.internal.plan.types.base.BaseTypeAdapter;
 import com.yahoo.yqlplus.engine.rules.LogicalTransforms;
@@ -50,17 +51,15 @@ public class PlanProgramCompiler implements ProgramCompiler {
         private final ASMClassSource classSource;
         private final GambitScope gambitScope;
         private final ProgramPlanner planner;
+        private final PlanProgramCompileOptions planProgramCompileOptions;
 
         @Inject
-        CompilerInstance(ASMClassSource classSource, Injector injector, LogicalTransforms transforms, SourceNamespace sourceNamespace, ModuleNamespace moduleNamespace, ViewRegistry viewNamespace, PlanProgramCompileOptions planProgramCompileOptions) {
+        CompilerInstance(ASMClassSource classSource, Injector injector, LogicalTransforms transforms, SourceNamespace sourceNamespace, ModuleNamespace moduleNamespace, ViewRegistry viewNamespace, PlanProgramCompileOptions planProgramCompileOptions, SourceBulkheads bulkheads) {
             this.classSource = classSource;
             this.gambitScope = new GambitSource(classSource);
-            if (planProgramCompileOptions != null) {
-                this.planner = new ProgramPlanner(transforms, sourceNamespace, moduleNamespace, gambitScope, viewNamespace, planProgramCompileOptions);
-            } else {
-                this.planner = new ProgramPlanner(transforms, sourceNamespace, moduleNamespace, gambitScope, viewNamespace);
-            }
+            this.planner = new ProgramPlanner(transforms, sourceNamespace, moduleNamespace, gambitScope, viewNamespace, planProgramCompileOptions, bulkheads);
             this.injector = injector;
+            this.planProgramCompileOptions = planProgramCompileOptions;
         }
 
         private CompiledProgram compilePlan(ProgramEnvironment environment, OperatorNode<TaskOperator> plan) {
@@ -129,18 +128,18 @@ public class PlanProgramCompiler implements ProgramCompiler {
         }
 
         public CompiledProgram compile(String programName, String program) throws IOException, RecognitionException {
-            return compilePlan(new ProgramEnvironment(programName, classSource), planner.plan(programName, program));
+            return compilePlan(new ProgramEnvironment(programName, classSource, planProgramCompileOptions), planner.plan(programName, program));
         }
 
 
         public CompiledProgram compile(String programName, InputStream program) throws IOException, RecognitionException {
-            return compilePlan(new ProgramEnvironment(programName, classSource), planner.plan(programName, program));
+            return compilePlan(new ProgramEnvironment(programName, classSource, planProgramCompileOptions), planner.plan(programName, program));
         }
 
         public CompiledProgram compile(OperatorNode<StatementOperator> program) throws IOException {
             Location loc = program.getLocation();
             String programName = loc != null ? loc.getProgramName() : "<string>";
-            return compilePlan(new ProgramEnvironment(programName, classSource), planner.plan(program));
+            return compilePlan(new ProgramEnvironment(programName, classSource, planProgramCompileOptions), planner.plan(program));
         }
 
         private JoinGenerator compileJoin(ProgramEnvironment environment, String name, List<OperatorValue> used, int count) {
@@ -16,8 +16,11 @@ import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitScope;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitSource;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.ObjectBuilder;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.ScopedBuilder;
+import com.yahoo.yqlplus.engine.internal.code.CodeOutput;
+import com.yahoo.yqlplus.engine.internal.compiler.streams.PlanProgramCompileOptions;
 import com.yahoo.yqlplus.engine.internal.generate.ProgramGenerator;
 import com.yahoo.yqlplus.engine.internal.generate.ProgramInvocation;
+import com.yahoo.yqlplus.engine.internal.plan.PlanPrinter;
 import com.yahoo.yqlplus.engine.internal.plan.TaskOperator;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorValue;
 import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeExpression;
@@ -38,11 +41,13 @@ public class ProgramEnvironment {
     Map<String, ObjectBuilder.FieldBuilder> joinFields = Maps.newLinkedHashMap();
     ASMClassSource classSource;
     GambitScope scope;
+    PlanProgramCompileOptions compileOptions;
 
     private OperatorNode<TaskOperator> plan;
 
-    ProgramEnvironment(String name, ASMClassSource source) {
+    ProgramEnvironment(String name, ASMClassSource source, PlanProgramCompileOptions compileOptions) {
         this.classSource = source;
+        this.compileOptions = compileOptions;
         this.scope = new GambitSource(classSource);
         this.program = new ProgramGenerator(scope);
         this.name = name;
@@ -64,12 +69,18 @@ public class ProgramEnvironment {
 
     public CompiledProgram compile(Injector injector) {
         try {
-            classSource.build();
+            CodeOutput planDump = new CodeOutput();
+            if (compileOptions != null) {
+                // the options change the generated code as well as the plan shape, so they are part of the class cache key
+                planDump.println(compileOptions.toString());
+            }
+            new PlanPrinter().dump(planDump, plan);
+            classSource.build(planDump.toDumpString());
             Class<? extends ProgramInvocation> programClazz = (Class<? extends ProgramInvocation>) scope.getObjectClass(program.getProgram());
             ByteArrayOutputStream stream = new ByteArrayOutputStream();
             classSource.dump(stream);
             byte[] dump = stream.toByteArray();
-            PlanCompiledProgram compiledProgram = new PlanCompiledProgram(name, program.getArgumentInfos(), program.getResultSetInfos(), ImmutableMap.<String, OperatorNode<SequenceOperator>>of(), plan, dump, programClazz);
+            PlanCompiledProgram compiledProgram = new PlanCompiledProgram(name, program.getArgumentInfos(), program.getResultSetInfos(), ImmutableMap.<String, OperatorNode<SequenceOperator>>of(), plan, dump, programClazz, classSource.getGeneratedClassBytes());
             injector.injectMembers(compiledProgram);
             return compiledProgram;
         } catch (IOException | ClassNotFoundException e) {
@@ -14,22 +14,34 @@ public class PlanProgramCompileOptions {
     public static final PlanProgramCompileOptions DEFAULT_OPTIONS = new PlanProgramCompileOptions.PlanProgramOptionsBuilder().build();
 
     private boolean keepMergeSequential; //enable this option merge tables will be sequential
+    private boolean symmetricJoin; //enable this option joins hash each input as soon as it arrives
 
     private PlanProgramCompileOptions(PlanProgramOptionsBuilder builder) {
         this.keepMergeSequential = builder.keepMergeSequential;
+        this.symmetricJoin = builder.symmetricJoin;
     }
 
     public boolean isKeepMergeSequential() {
         return keepMergeSequential;
     }
 
+    public boolean isSymmetricJoin() {
+        return symmetricJoin;
+    }
+
     public static final class PlanProgramOptionsBuilder {
         private boolean keepMergeSequential;
+        private boolean symmetricJoin;
         public PlanProgramOptionsBuilder keepMergeSequential(boolean keepMergeSequential) {
             this.keepMergeSequential = keepMergeSequential;
             return this;
         }
 
+        public PlanProgramOptionsBuilder symmetricJoin(boolean symmetricJoin) {
+            this.symmetricJoin = symmetricJoin;
+            return this;
+        }
+
         public PlanProgramCompileOptions build() {
             return new PlanProgramCompileOptions(this);
         }
@@ -39,6 +51,7 @@ public class PlanProgramCompileOptions {
     public String toString() {
         return "PlanProgramCompileOptions{" +
                 "keepMergeSequential=" + keepMergeSequential +
+                ", symmetricJoin=" + symmetricJoin +
                 '}';
     }
 }
@@ -39,6 +39,8 @@ import java.util.Map;
 public class ProgramGenerator {
     private final ObjectBuilder.MethodBuilder readArguments;
     private final GambitCreator.ScopeBuilder readArgumentsBody;
+    private final ObjectBuilder.MethodBuilder bindArguments;
+    private final GambitCreator.ScopeBuilder bindArgumentsBody;
     private final ObjectBuilder.MethodBuilder runMethod;
     private final GambitCreator.ScopeBuilder runBody;
 
@@ -59,6 +61,10 @@ public class ProgramGenerator {
         this.readArguments.addArgument("$args", new MapTypeWidget(BaseTypeAdapter.STRING, AnyTypeWidget.getInstance()));
         this.readArgumentsBody = readArguments.block();
         this.readArguments.exit();
+        this.bindArguments = program.method("bindArguments");
+        this.bindArguments.addArgument("$argv", scope.adapt(Object[].class, false));
+        this.bindArgumentsBody = bindArguments.block();
+        this.bindArguments.exit();
         this.runMethod = program.method("run");
         this.runBody = runMethod.block();
         this.runBody.alias("this", "$program");
@@ -190,10 +196,42 @@ public class ProgramGenerator {
         }
     }
 
+    static final class ReadArgumentSlotExpr extends BaseTypeExpression {
+        private final BytecodeExpression arguments;
+        private final int slot;
+        private final BytecodeExpression defaultValue;
+
+        ReadArgumentSlotExpr(TypeWidget type, BytecodeExpression arguments, int slot, BytecodeExpression defaultValue) {
+            super(type);
+            this.arguments = arguments;
+            this.slot = slot;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public void generate(CodeEmitter code) {
+            Label done = new Label();
+            Label useDefault = new Label();
+            MethodVisitor mv = code.getMethodVisitor();
+            arguments.generate(code);
+            code.emitIntConstant(slot);
+            mv.visitInsn(Opcodes.AALOAD);
+            code.cast(getType(), BaseTypeAdapter.ANY, useDefault);
+            mv.visitJumpInsn(Opcodes.GOTO, done);
+            mv.visitLabel(useDefault);
+            defaultValue.generate(code);
+            code.cast(getType(), defaultValue.getType());
+            mv.visitLabel(done);
+        }
+    }
+
     private BytecodeExpression defineArgument(String name, BytecodeExpression nameExpr, TypeWidget type, BytecodeExpression defaultValue) {
         ObjectBuilder.FieldBuilder argumentField = program.field(name, type);
         ReadArgumentExpr readExpr = new ReadArgumentExpr(type, readArgumentsBody.local("$args").read(), nameExpr, defaultValue);
         readArgumentsBody.exec(argumentField.get(readArgumentsBody.local("this")).write(readExpr));
+        // positional slots follow the order of getArgumentInfos()
+        ReadArgumentSlotExpr slotExpr = new ReadArgumentSlotExpr(type, bindArgumentsBody.local("$argv").read(), argumentInfos.size() - 1, defaultValue);
+        bindArgumentsBody.exec(argumentField.get(bindArgumentsBody.local("this")).write(slotExpr));
         return argumentField.get(new LocalVarExpr(program.type(), "$program")).read();
     }
 
@@ -20,10 +20,14 @@ import com.yahoo.yqlplus.engine.TaskContext;
 import com.yahoo.yqlplus.engine.api.InvocationResultHandler;
 import com.yahoo.yqlplus.engine.api.NativeEncoding;
 import com.yahoo.yqlplus.engine.api.NativeInvocationResultHandler;
+import com.yahoo.yqlplus.engine.api.StreamingInvocationResultHandler;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitRuntime;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLRuntimeException;
 import com.yahoo.yqlplus.engine.internal.java.runtime.TimeoutHandler;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TopN;
+import com.yahoo.yqlplus.engine.internal.scope.Bulkhead;
 import com.yahoo.yqlplus.engine.internal.scope.ScopedTracingExecutor;
+import com.yahoo.yqlplus.engine.internal.scope.SourceBulkheads;
 
 import javax.inject.Named;
 import java.util.Collection;
@@ -34,6 +38,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
 
 public abstract class ProgramInvocation {
     private volatile InvocationResultHandler resultHandler;
@@ -56,6 +61,9 @@ public abstract class ProgramInvocation {
     @Inject
     public TimeoutHandler timeouts;
 
+    @Inject
+    public SourceBulkheads bulkheads;
+
     public void execute(Runnable runnable) {
         tasks.submit(wrap(runnable));
     }
@@ -137,6 +145,10 @@ public abstract class ProgramInvocation {
         return rows;
     }
 
+    public <ROW> TopN<ROW> topN(Comparator<ROW> comparator, int offset, int limit) {
+        return new TopN<>(comparator, offset, limit);
+    }
+
     public void invoke(InvocationResultHandler resultHandler, Map<String, Object> arguments) {
         this.resultHandler = resultHandler;
         try {
@@ -154,10 +166,54 @@ public abstract class ProgramInvocation {
         invoke(new NativeEncodingAdapter(encoding, resultHandler, getNativeSerializer()), arguments);
     }
 
+    /**
+     * Invoke with positional arguments (in CompiledProgram.getArguments() order) which have already been validated
+     * and coerced to their declared types.
+     */
+    public void invoke(InvocationResultHandler resultHandler, Object[] arguments) {
+        this.resultHandler = resultHandler;
+        try {
+            bindArguments(arguments);
+            run();
+        } catch (Exception e) {
+            fail(e);
+        } catch (Error e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    public void invoke(NativeEncoding encoding, NativeInvocationResultHandler resultHandler, Object[] arguments) {
+        invoke(new NativeEncodingAdapter(encoding, resultHandler, getNativeSerializer()), arguments);
+    }
+
     protected abstract void readArguments(Map<String, Object> arguments);
 
+    protected abstract void bindArguments(Object[] arguments);
+
     public final void succeed(String name, Object out) {
-        resultHandler.succeed(name, out);
+        if (resultHandler instanceof StreamingInvocationResultHandler && out instanceof List) {
+            StreamingInvocationResultHandler streaming = (StreamingInvocationResultHandler) resultHandler;
+            emitRows(name, (List<Object>) out);
+            streaming.onComplete(name);
+        } else {
+            resultHandler.succeed(name, out);
+        }
+    }
+
+    /**
+     * Deliver rows of result set name ahead of its completion.
+     *
+     * @return false if the result handler does not accept streamed rows (and the caller must retain them)
+     */
+    public final boolean emitRows(String name, List<Object> rows) {
+        if (!(resultHandler instanceof StreamingInvocationResultHandler)) {
+            return false;
+        }
+        if (!rows.isEmpty()) {
+            ((StreamingInvocationResultHandler) resultHandler).onRows(name, rows);
+        }
+        return true;
     }
 
     public final void fail(String name, Throwable failure) {
@@ -168,14 +224,24 @@ public abstract class ProgramInvocation {
         while ((failure instanceof YQLRuntimeException || failure instanceof ExecutionException) && failure.getCause() != null) {
             failure = failure.getCause();
         }
+        if (failure instanceof InterruptedException && ((ScopedTracingExecutor) tasks).isDeadlineExpired()) {
+            // a task waiting on others is interrupted when the program deadline fires; report the timeout instead
+            try {
+                rootContext.timeout.verify();
+            } catch (TimeoutException timeout) {
+                return timeout;
+            }
+        }
         return failure;
     }
 
     public final void end() {
+        ((ScopedTracingExecutor) tasks).finish();
         resultHandler.end();
     }
 
     public final void fail(Throwable t) {
+        ((ScopedTracingExecutor) tasks).finish();
         resultHandler.fail(extractCause(t));
     }
 
@@ -191,7 +257,21 @@ public abstract class ProgramInvocation {
     }
 
     public final GambitRuntime getRuntime(TaskContext context) {
-        final ListeningExecutorService tasks = ((ScopedTracingExecutor) this.tasks).createSubExecutor(context);
+        return createRuntime(((ScopedTracingExecutor) this.tasks).createSubExecutor(context), null);
+    }
+
+    /**
+     * @return a runtime for the calls to a source, which are admitted to the work pool through its bulkhead (if any)
+     */
+    public final GambitRuntime getRuntime(TaskContext context, String sourceName) {
+        Bulkhead bulkhead = bulkheads.get(sourceName);
+        if (bulkhead == null) {
+            return getRuntime(context);
+        }
+        return createRuntime(((ScopedTracingExecutor) this.tasks).createSubExecutor(context, bulkhead), bulkhead);
+    }
+
+    private GambitRuntime createRuntime(final ListeningExecutorService tasks, final Bulkhead bulkhead) {
         return new GambitRuntime() {
             @Override
             public ListenableFuture<List<Object>> scatter(List<Callable<Object>> targets) {
@@ -217,7 +297,20 @@ public abstract class ProgramInvocation {
             }
 
             @Override
-            public ListenableFuture<Object> forkAsync(Callable<ListenableFuture<Object>> target) {
+            public ListenableFuture<Object> forkAsync(final Callable<ListenableFuture<Object>> target) {
+                if (bulkhead != null) {
+                    // the source's backend call is outstanding until its future completes; keep the bulkhead slot until then
+                    return Futures.transformAsync(tasks.submit(new Callable<ListenableFuture<Object>>() {
+                        @Override
+                        public ListenableFuture<Object> call() throws Exception {
+                            ListenableFuture<Object> result = target.call();
+                            if (result != null) {
+                                bulkhead.holdUntil(result);
+                            }
+                            return result;
+                        }
+                    }), (AsyncFunction) DEREFERENCER);
+                }
                 return Futures.transformAsync(tasks.submit(target), (AsyncFunction) DEREFERENCER);
             }
         };
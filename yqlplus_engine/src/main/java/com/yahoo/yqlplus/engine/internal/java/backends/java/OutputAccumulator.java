@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.backends.java;
+
+import com.yahoo.yqlplus.engine.internal.generate.ProgramInvocation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A stream feeding an OUTPUT directly; rows are handed to a streaming result handler as they are received rather than
+ * being accumulated.
+ */
+public class OutputAccumulator extends RecordAccumulator<Object> {
+    private final ProgramInvocation program;
+    private final String name;
+
+    public OutputAccumulator(ProgramInvocation program, String name) {
+        this.program = program;
+        this.name = name;
+    }
+
+    @Override
+    public boolean receive(Object row) {
+        return receiveAll(Collections.singletonList(row));
+    }
+
+    @Override
+    public synchronized boolean receiveAll(List<Object> rows) {
+        return program.emitRows(name, rows) || super.receiveAll(rows);
+    }
+}
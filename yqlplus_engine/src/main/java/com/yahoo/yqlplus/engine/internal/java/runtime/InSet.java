@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The right side of an IN predicate, materialized once so each row is a single hash probe instead of a scan of the
+ * list.
+ *
+ * Lists of integers or of strings get an open-addressing table of unboxed keys; anything else is copied into a
+ * HashSet. Membership keeps the equals() semantics of the list it replaces (an Integer does not match a Long).
+ */
+public final class InSet {
+    /**
+     * Below this size scanning the list is as cheap as hashing the probe.
+     */
+    static final int MIN_SIZE = 8;
+
+    private InSet() {
+    }
+
+    /**
+     * @return a set with the same members as values, or values itself if it is null, already a set, or small
+     */
+    public static Collection<?> of(Collection<?> values) {
+        if (values == null || values instanceof Set || values.size() < MIN_SIZE) {
+            return values;
+        }
+        Class<?> elementType = elementType(values);
+        if (elementType == Integer.class || elementType == Long.class || elementType == Short.class || elementType == Byte.class) {
+            return new LongSet(elementType, values);
+        } else if (elementType == String.class) {
+            return new StringSet(values);
+        }
+        return Sets.newHashSet(values);
+    }
+
+    /**
+     * @return the class shared by every element, or null if they differ or one is null
+     */
+    private static Class<?> elementType(Collection<?> values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null || (type != null && value.getClass() != type)) {
+                return null;
+            }
+            type = value.getClass();
+        }
+        return type;
+    }
+
+    private static int capacity(int size) {
+        int capacity = 16;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private abstract static class ArraySet extends AbstractSet<Object> {
+        final Object[] members;
+        int size;
+
+        ArraySet(int expected) {
+            this.members = new Object[expected];
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(members).subList(0, size)).iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static final class LongSet extends ArraySet {
+        private final Class<?> elementType;
+        private final long[] keys;
+        private final boolean[] used;
+
+        LongSet(Class<?> elementType, Collection<?> values) {
+            super(values.size());
+            this.elementType = elementType;
+            int capacity = capacity(values.size());
+            this.keys = new long[capacity];
+            this.used = new boolean[capacity];
+            for (Object value : values) {
+                long key = ((Number) value).longValue();
+                int i = slot(key);
+                if (!used[i]) {
+                    used[i] = true;
+                    keys[i] = key;
+                    members[size++] = value;
+                }
+            }
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = LongJoinTable.hash(key) & mask;
+            while (used[i] && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && o.getClass() == elementType && used[slot(((Number) o).longValue())];
+        }
+    }
+
+    private static final class StringSet extends ArraySet {
+        private final String[] keys;
+
+        StringSet(Collection<?> values) {
+            super(values.size());
+            this.keys = new String[capacity(values.size())];
+            for (Object value : values) {
+                String key = (String) value;
+                int i = slot(key);
+                if (keys[i] == null) {
+                    keys[i] = key;
+                    members[size++] = key;
+                }
+            }
+        }
+
+        private int slot(String key) {
+            int mask = keys.length - 1;
+            int h = key.hashCode();
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != null && !key.equals(keys[i])) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && keys[slot((String) o)] != null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+import com.yahoo.yqlplus.api.annotations.ExecuteScoped;
+import com.yahoo.yqlplus.engine.api.Record;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares the results of identical source invocations within one program execution.
+ *
+ * Invocations are identified by the source method and its key and free arguments. The first invocation of each runs
+ * the method; any identical invocation made while it is running, or after it completes, gets the same result (for an
+ * asynchronous method, the same ListenableFuture) instead of calling the source again. Failures are shared too.
+ *
+ * Sources opt out with @NotIdempotent.
+ */
+@ExecuteScoped
+public final class InvocationMemo {
+    private final ConcurrentMap<List<Object>, SettableFuture<Object>> results = Maps.newConcurrentMap();
+
+    /**
+     * Key records are generated per query, so they are compared by their fields rather than by identity.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Record) {
+            Record record = (Record) value;
+            Map<String, Object> fields = Maps.newHashMap();
+            for (String field : record.getFieldNames()) {
+                fields.put(field, normalize(record.get(field)));
+            }
+            return fields;
+        } else if (value instanceof List) {
+            List<Object> result = Lists.newArrayList();
+            for (Object item : (List<?>) value) {
+                result.add(normalize(item));
+            }
+            return result;
+        }
+        return value;
+    }
+
+    /**
+     * @return the identity of an invocation of method with the given arguments
+     */
+    static List<Object> keyOf(String method, Object[] arguments) {
+        List<Object> key = Lists.newArrayListWithCapacity(2);
+        key.add(method);
+        key.add(normalize(Arrays.asList(arguments)));
+        return key;
+    }
+
+    public SharedInvocation begin(String method, Object[] arguments) {
+        List<Object> key = keyOf(method, arguments);
+        SettableFuture<Object> result = SettableFuture.create();
+        SettableFuture<Object> existing = results.putIfAbsent(key, result);
+        return existing == null ? new Invocation(result, false) : new Invocation(existing, true);
+    }
+
+    private static final class Invocation extends SharedInvocation {
+        private final SettableFuture<Object> result;
+        private final boolean shared;
+
+        Invocation(SettableFuture<Object> result, boolean shared) {
+            this.result = result;
+            this.shared = shared;
+        }
+
+        @Override
+        public boolean isShared() {
+            return shared;
+        }
+
+        @Override
+        public Object await() {
+            return await(result);
+        }
+
+        @Override
+        public Object complete(Object value) {
+            result.set(value);
+            return value;
+        }
+
+        @Override
+        protected void failed(Throwable failure) {
+            result.setException(failure);
+        }
+    }
+}
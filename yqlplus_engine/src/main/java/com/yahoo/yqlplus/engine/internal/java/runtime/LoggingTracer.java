@@ -7,19 +7,17 @@
 package com.yahoo.yqlplus.engine.internal.java.runtime;
 
 import com.google.common.base.Ticker;
-import com.yahoo.yqlplus.api.trace.TraceLogEntry;
 import com.yahoo.yqlplus.api.trace.Tracer;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 abstract class LoggingTracer implements Tracer {
     private final int id;
     private final Ticker ticker;
-    private final ConcurrentLinkedQueue<TraceLogEntry> log;
+    private final TraceRecorder log;
     private final int logThreshold;
 
-    protected LoggingTracer(int id, Ticker ticker, ConcurrentLinkedQueue<TraceLogEntry> log, Level logLevel) {
+    protected LoggingTracer(int id, Ticker ticker, TraceRecorder log, Level logLevel) {
         this.id = id;
         this.ticker = ticker;
         this.log = log;
@@ -84,37 +82,37 @@ abstract class LoggingTracer implements Tracer {
 
     private void log(Level level, String message) {
         if (level.intValue() >= logThreshold) {
-            log.add(new StringEntry(id, message, ticker.read(), level));
+            log.log(new StringEntry(id, message, ticker.read(), level));
         }
     }
 
     private void log(Level level, String message, Object arg0) {
         if (level.intValue() >= logThreshold) {
-            log.add(new StringEntry(id, ticker.read(), level, message, arg0));
+            log.log(new StringEntry(id, ticker.read(), level, message, arg0));
         }
     }
 
     private void log(Level level, String message, Object... args) {
         if (level.intValue() >= logThreshold) {
-            log.add(new StringEntry(id, ticker.read(), level, message, args));
+            log.log(new StringEntry(id, ticker.read(), level, message, args));
         }
     }
 
     private void log(Level level, Throwable t, String message, Object... args) {
         if (level.intValue() >= logThreshold) {
-            log.add(new ThrowableEntry(id, ticker.read(), level, t, message, args));
+            log.log(new ThrowableEntry(id, ticker.read(), level, t, message, args));
         }
     }
 
     private void log(Level level, Throwable t, String message) {
         if (level.intValue() >= logThreshold) {
-            log.add(new ThrowableEntry(id, message, t, ticker.read(), level));
+            log.log(new ThrowableEntry(id, message, t, ticker.read(), level));
         }
     }
 
     private void log(Level level, Object payload) {
         if (level.intValue() >= logThreshold) {
-            log.add(new PayloadEntry(id, ticker.read(), level, payload));
+            log.log(new PayloadEntry(id, ticker.read(), level, payload));
         }
     }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * The build side of a hash join on INT32 or INT64 keys: an open-addressing table from unboxed keys to the rows with
+ * that key, probed with a single lookup.
+ */
+public final class LongJoinTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private List<Object>[] rows;
+    private int size;
+
+    public LongJoinTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.rows = new List[capacity];
+    }
+
+    static int hash(long key) {
+        // murmur3 fmix64; keys are often sequential ids
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (rows[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public void add(long key, Object row) {
+        int i = slot(key);
+        List<Object> list = rows[i];
+        if (list == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                i = slot(key);
+            }
+            keys[i] = key;
+            rows[i] = list = Lists.newArrayListWithCapacity(1);
+            ++size;
+        }
+        list.add(row);
+    }
+
+    /**
+     * @return the rows added with key, or missing if there are none
+     */
+    public List<Object> get(long key, List<Object> missing) {
+        List<Object> list = rows[slot(key)];
+        return list == null ? missing : list;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        List<Object>[] oldRows = rows;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldRows[j] != null) {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                rows[i] = oldRows[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.yahoo.yqlplus.engine.internal.operations.Like;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiles LIKE and MATCHES patterns which are not constant in the program (such as arguments), sharing the compiled
+ * patterns across executions through a bounded, concurrent cache.
+ */
+public final class PatternCache {
+    static final int MAXIMUM_SIZE = 1024;
+
+    private static final LoadingCache<String, Like> LIKE = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build(new CacheLoader<String, Like>() {
+                @Override
+                public Like load(String pattern) {
+                    return Like.compile(pattern);
+                }
+            });
+
+    private static final LoadingCache<String, Pattern> REGEX = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build(new CacheLoader<String, Pattern>() {
+                @Override
+                public Pattern load(String pattern) {
+                    return Pattern.compile(pattern);
+                }
+            });
+
+    private PatternCache() {
+    }
+
+    /**
+     * @return the compiled LIKE pattern, or null if pattern is null
+     */
+    public static Like like(String pattern) {
+        return pattern == null ? null : get(LIKE, pattern);
+    }
+
+    /**
+     * @return the compiled regex, or null if pattern is null
+     */
+    public static Pattern regex(String pattern) {
+        return pattern == null ? null : get(REGEX, pattern);
+    }
+
+    private static <T> T get(LoadingCache<String, T> cache, String pattern) {
+        try {
+            return cache.getUnchecked(pattern);
+        } catch (UncheckedExecutionException e) {
+            // an invalid regex; report its PatternSyntaxException
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -14,7 +14,6 @@ import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.util.ISO8601Utils;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
 import com.google.inject.Key;
@@ -27,24 +26,25 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.logging.Level;
 
 @ExecuteScoped
 public class ProgramTracer implements RequestTracer {
     private final long started;
     private final boolean debug;
+    private final boolean sampled;
     private final RelativeTicker ticker;
     private final Tracer programTracer;
-    private final ConcurrentLinkedQueue<Entry> entries;
-    private final ConcurrentLinkedQueue<TraceLogEntry> log;
-    private final AtomicInteger idSource = new AtomicInteger(0);
+    private final Tracer unsampledTracer;
+    private final TraceRecorder recorder;
+
+    private static final AtomicLongFieldUpdater<Entry> STOP = AtomicLongFieldUpdater.newUpdater(Entry.class, "stop");
 
     final class Entry implements TraceEntry {
         final long start;
-        long stop;
+        volatile long stop;
         final int parent;
         final String group;
         final String name;
@@ -55,7 +55,11 @@ public class ProgramTracer implements RequestTracer {
             this.start = start;
             this.group = group;
             this.name = name;
-            this.id = idSource.incrementAndGet();
+            this.id = recorder.nextId();
+        }
+
+        void end() {
+            STOP.compareAndSet(this, 0L, elapsedTicks());
         }
 
         @Override
@@ -211,12 +215,34 @@ public class ProgramTracer implements RequestTracer {
     }
 
     public ProgramTracer(Ticker ticker, boolean debug, String rootGroup, String rootName) {
+        this(ticker, debug, true, rootGroup, rootName);
+    }
+
+    /**
+     * An unsampled tracer (see {@link TracingPolicy}) only records the root entry; every tracer started from it is the
+     * same no-op tracer, which logs errors against the root entry.
+     */
+    public ProgramTracer(Ticker ticker, boolean debug, boolean sampled, String rootGroup, String rootName) {
         this.started = System.currentTimeMillis();
         this.ticker = new RelativeTicker(ticker);
         this.debug = debug;
-        this.entries = new ConcurrentLinkedQueue<>();
-        this.log = new ConcurrentLinkedQueue<>();
-        this.programTracer = start(rootGroup, rootName);
+        this.sampled = sampled;
+        this.recorder = new TraceRecorder();
+        final Entry root = new Entry(0, elapsedTicks(), rootGroup, rootName);
+        recorder.add(root);
+        this.programTracer = new EntryTracer(root);
+        this.unsampledTracer = sampled ? null : new UnsampledTracer(root);
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * @return false if tracer belongs to an execution which was not sampled (so anything started from it is discarded)
+     */
+    public static boolean isRecording(Tracer tracer) {
+        return !(tracer instanceof UnsampledTracer);
     }
 
     @Override
@@ -243,13 +269,19 @@ public class ProgramTracer implements RequestTracer {
 
     @Override
     public Tracer start(final String group, String name, Object... args) {
+        if (!sampled) {
+            return unsampledTracer;
+        }
         return start(group, maybeFormat(name, args));
     }
 
     @Override
     public Tracer start(String group, String name) {
+        if (!sampled) {
+            return unsampledTracer;
+        }
         final Entry entry = new Entry(0, elapsedTicks(), group, name);
-        entries.add(entry);
+        recorder.add(entry);
         return new EntryTracer(entry);
     }
 
@@ -332,14 +364,14 @@ public class ProgramTracer implements RequestTracer {
     @Override
     public TraceRequest createTrace() {
         end();
-        return new Request(started, ImmutableList.copyOf(entries), ImmutableList.copyOf(log));
+        return new Request(started, recorder.getEntries(), recorder.getLog());
     }
 
     private class EntryTracer extends LoggingTracer implements Tracer {
         private final Entry entry;
 
         public EntryTracer(Entry entry) {
-            super(entry.id, ticker, log, debug ? Level.FINE : Level.SEVERE);
+            super(entry.id, ticker, recorder, debug ? Level.FINE : Level.SEVERE);
             this.entry = entry;
         }
 
@@ -352,7 +384,7 @@ public class ProgramTracer implements RequestTracer {
         @Override
         public Tracer start(String group, String name) {
             final Entry entry = new Entry(this.entry.id, elapsedTicks(), group, name);
-            entries.add(entry);
+            recorder.add(entry);
             return new EntryTracer(entry);
         }
 
@@ -368,10 +400,8 @@ public class ProgramTracer implements RequestTracer {
 
 
         @Override
-        public synchronized void end() {
-            if (entry.stop == 0L) {
-                entry.stop = elapsedTicks();
-            }
+        public void end() {
+            entry.end();
         }
 
         @Override
@@ -379,4 +409,41 @@ public class ProgramTracer implements RequestTracer {
             end();
         }
     }
+
+    private class UnsampledTracer extends LoggingTracer implements Tracer {
+        private final Entry entry;
+
+        UnsampledTracer(Entry entry) {
+            super(entry.id, ticker, recorder, debug ? Level.FINE : Level.SEVERE);
+            this.entry = entry;
+        }
+
+        @Override
+        public Tracer start(String group, String name, Object... args) {
+            return this;
+        }
+
+        @Override
+        public Tracer start(String group, String name) {
+            return this;
+        }
+
+        @Override
+        public String getGroup() {
+            return entry.group;
+        }
+
+        @Override
+        public String getName() {
+            return entry.name;
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
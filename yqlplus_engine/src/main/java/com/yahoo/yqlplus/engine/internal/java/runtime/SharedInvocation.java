@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.yahoo.yqlplus.api.trace.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A source invocation which may be answered by another one's result (see InvocationMemo and SourceResultCache).
+ *
+ * Generated source adapters use it as:
+ * <pre>
+ *     try {
+ *         shared = begin(...);
+ *         if (shared.isShared()) {
+ *             result = shared.await();
+ *         }
+ *         if (!shared.isShared()) {
+ *             result = shared.complete(invoke(...));
+ *         }
+ *     } catch (Throwable e) {
+ *         SharedInvocation.fail(shared, e);
+ *     }
+ * </pre>
+ */
+public abstract class SharedInvocation {
+    /**
+     * @return true if the result of another invocation should be used instead of invoking the source
+     */
+    public abstract boolean isShared();
+
+    /**
+     * If the invocation being waited for is abandoned, this one may take its place instead: isShared() then returns
+     * false and the caller invokes the source itself.
+     *
+     * @return the shared result (waiting for it if it is still being computed)
+     */
+    public abstract Object await();
+
+    /**
+     * Publish the result of invoking the source.
+     *
+     * @return value
+     */
+    public abstract Object complete(Object value);
+
+    protected abstract void failed(Throwable failure);
+
+    /**
+     * Record the failure of an invocation (if it got as far as starting one) and pass it on.
+     *
+     * @return never; declared so generated code can use it in place of the invocation's result
+     */
+    public static Object fail(SharedInvocation invocation, Throwable failure) {
+        if (invocation != null) {
+            invocation.failed(failure);
+        }
+        throw SharedInvocation.<RuntimeException>rethrow(failure);
+    }
+
+    /**
+     * Wait no longer than timeout allows for result.
+     */
+    protected static Object await(ListenableFuture<Object> result, Timeout timeout) {
+        try {
+            return result.get(timeout.remainingTicks(), timeout.getTickUnits());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw SharedInvocation.<RuntimeException>rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            throw SharedInvocation.<RuntimeException>rethrow(e);
+        }
+    }
+
+    protected static Object await(ListenableFuture<Object> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw SharedInvocation.<RuntimeException>rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Source methods may throw checked exceptions; those are passed on unchanged to every invocation sharing the result.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T rethrow(Throwable failure) throws T {
+        throw (T) failure;
+    }
+}
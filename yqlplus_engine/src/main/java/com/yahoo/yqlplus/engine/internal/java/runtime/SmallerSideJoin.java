@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.yahoo.yqlplus.engine.TaskContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hash join of two materialized inputs which hashes whichever side is smaller.
+ *
+ * The join is driven in three passes: left(key) for each left row in order, right(key, row) for each right row, and
+ * finish(). Then next(missing) returns the matching right rows for each left row in turn, so the output is the same
+ * (and in the same order) whichever side was hashed.
+ */
+public abstract class SmallerSideJoin {
+    private static final List<Object> NO_MATCHES = ImmutableList.of();
+
+    private final boolean buildLeft;
+    private final List<Object>[] matches;
+    private int leftIndex;
+    private int cursor;
+
+    @SuppressWarnings("unchecked")
+    protected SmallerSideJoin(List<Object> left, Object right) {
+        // if the right side's size isn't known, hash it as HashJoinSink would
+        this.buildLeft = right instanceof Collection && left.size() < ((Collection<?>) right).size();
+        this.matches = new List[left.size()];
+    }
+
+    /**
+     * @return true if the left (streamed) side was hashed rather than the right
+     */
+    public final boolean isBuildLeft() {
+        return buildLeft;
+    }
+
+    /**
+     * Record which side was hashed as a metric and a trace entry.
+     */
+    public final void report(TaskContext context) {
+        context.metricEmitter.emit(buildLeft ? "hashJoinBuildLeft" : "hashJoinBuildRight", 1);
+        context.tracer.fine(buildLeft ? "hash join built left side" : "hash join built right side");
+    }
+
+    protected final int nextLeftIndex() {
+        return leftIndex++;
+    }
+
+    protected final void addMatches(List<Object> leftIndexes, Object row) {
+        for (Object index : leftIndexes) {
+            int i = (Integer) index;
+            if (matches[i] == null) {
+                matches[i] = Lists.newArrayListWithCapacity(1);
+            }
+            matches[i].add(row);
+        }
+    }
+
+    protected final void setMatches(int index, List<Object> rows) {
+        matches[index] = rows;
+    }
+
+    /**
+     * @return the right rows matching the next left row, or missing if there are none
+     */
+    public final List<Object> next(List<Object> missing) {
+        List<Object> rows = matches[cursor++];
+        return rows == null ? missing : rows;
+    }
+
+    public abstract void finish();
+
+    public static final class Longs extends SmallerSideJoin {
+        private final LongJoinTable table = new LongJoinTable();
+        private final long[] leftKeys;
+
+        public Longs(List<Object> left, Object right) {
+            super(left, right);
+            this.leftKeys = isBuildLeft() ? null : new long[left.size()];
+        }
+
+        public void left(long key) {
+            int index = nextLeftIndex();
+            if (isBuildLeft()) {
+                table.add(key, index);
+            } else {
+                leftKeys[index] = key;
+            }
+        }
+
+        public void right(long key, Object row) {
+            if (isBuildLeft()) {
+                addMatches(table.get(key, NO_MATCHES), row);
+            } else {
+                table.add(key, row);
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!isBuildLeft()) {
+                for (int i = 0; i < leftKeys.length; ++i) {
+                    setMatches(i, table.get(leftKeys[i], null));
+                }
+            }
+        }
+    }
+
+    public static final class Strings extends SmallerSideJoin {
+        private final StringJoinTable table = new StringJoinTable();
+        private final String[] leftKeys;
+
+        public Strings(List<Object> left, Object right) {
+            super(left, right);
+            this.leftKeys = isBuildLeft() ? null : new String[left.size()];
+        }
+
+        public void left(String key) {
+            int index = nextLeftIndex();
+            if (isBuildLeft()) {
+                table.add(key, index);
+            } else {
+                leftKeys[index] = key;
+            }
+        }
+
+        public void right(String key, Object row) {
+            if (isBuildLeft()) {
+                addMatches(table.get(key, NO_MATCHES), row);
+            } else {
+                table.add(key, row);
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!isBuildLeft()) {
+                for (int i = 0; i < leftKeys.length; ++i) {
+                    setMatches(i, table.get(leftKeys[i], null));
+                }
+            }
+        }
+    }
+
+    public static final class Objects extends SmallerSideJoin {
+        private final Map<Object, List<Object>> table = Maps.newHashMap();
+        private final Object[] leftKeys;
+
+        public Objects(List<Object> left, Object right) {
+            super(left, right);
+            this.leftKeys = isBuildLeft() ? null : new Object[left.size()];
+        }
+
+        private void add(Object key, Object value) {
+            List<Object> values = table.get(key);
+            if (values == null) {
+                values = Lists.newArrayListWithCapacity(1);
+                table.put(key, values);
+            }
+            values.add(value);
+        }
+
+        public void left(Object key) {
+            int index = nextLeftIndex();
+            if (isBuildLeft()) {
+                add(key, index);
+            } else {
+                leftKeys[index] = key;
+            }
+        }
+
+        public void right(Object key, Object row) {
+            if (isBuildLeft()) {
+                addMatches(table.getOrDefault(key, NO_MATCHES), row);
+            } else {
+                add(key, row);
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!isBuildLeft()) {
+                for (int i = 0; i < leftKeys.length; ++i) {
+                    setMatches(i, table.get(leftKeys[i]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Groups a stream of rows already ordered by key, holding only the group currently being read.
+ *
+ * If the input is not actually ordered, a key that reappears after another key starts a new group.
+ */
+public final class SortedGroups {
+    public static final class Group {
+        private final Object key;
+        private final List<Object> rows = Lists.newArrayList();
+
+        Group(Object key) {
+            this.key = key;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public List<Object> getRows() {
+            return rows;
+        }
+    }
+
+    private Group current;
+
+    /**
+     * @return the previous group if this row's key completed it, otherwise null
+     */
+    public Group add(Object key, Object row) {
+        Group completed = null;
+        if (current != null && !Objects.equals(current.key, key)) {
+            completed = current;
+            current = null;
+        }
+        if (current == null) {
+            current = new Group(key);
+        }
+        current.rows.add(row);
+        return completed;
+    }
+
+    /**
+     * @return the last group (if the input was not empty)
+     */
+    public List<Group> finish() {
+        Group last = current;
+        current = null;
+        return last == null ? ImmutableList.<Group>of() : ImmutableList.of(last);
+    }
+}
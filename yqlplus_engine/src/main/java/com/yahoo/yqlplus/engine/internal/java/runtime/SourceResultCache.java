@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.yahoo.yqlplus.engine.TaskContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caches the results of @Cached source methods across program executions.
+ *
+ * Each method has its own cache, bounded by weight (the number of rows in each result). A result is fresh for the
+ * method's TTL; after that, and until it is staleMilliseconds older, the first invocation to find it reloads it while
+ * any others keep using the stale result. Invocations missing the cache while a load is in progress wait for it, for
+ * no longer than their own timeout. A load which is interrupted, times out or is cancelled is abandoned rather than
+ * failed: the first of its waiters takes it over (and the others wait for that one).
+ *
+ * An asynchronous result is only cached once its future succeeds, and is weighed by what it resolved to; until then
+ * the stale result (if any) keeps being served. A failed reload leaves the stale result in place until it expires.
+ *
+ * Each lookup emits a cacheHit, cacheStale or cacheMiss metric and logs the outcome to the invocation's tracer.
+ */
+@Singleton
+public final class SourceResultCache {
+    private final Ticker ticker;
+    private final ConcurrentMap<String, MethodCache> caches = Maps.newConcurrentMap();
+
+    @Inject
+    public SourceResultCache() {
+        this(Ticker.systemTicker());
+    }
+
+    public SourceResultCache(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    public SharedInvocation begin(TaskContext context, String method, long ttlMilliseconds, long staleMilliseconds, long maximumWeight, Object[] arguments) {
+        MethodCache cache = caches.get(method);
+        if (cache == null) {
+            cache = new MethodCache(ttlMilliseconds, staleMilliseconds, maximumWeight);
+            MethodCache existing = caches.putIfAbsent(method, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache.begin(context, InvocationMemo.keyOf(method, arguments));
+    }
+
+    /**
+     * @return true if failure says the invocation gave up (was interrupted, timed out or cancelled) rather than failed
+     */
+    private static boolean abandoned(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof TimeoutException || cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long freshUntil;
+        final int weight;
+        final AtomicBoolean reloading = new AtomicBoolean();
+
+        Entry(Object value, long freshUntil, Object resolved) {
+            this.value = value;
+            this.freshUntil = freshUntil;
+            this.weight = resolved instanceof Collection ? Math.max(1, ((Collection<?>) resolved).size()) : 1;
+        }
+    }
+
+    private final class MethodCache {
+        private final long ttlNanos;
+        private final Cache<List<Object>, Entry> entries;
+        private final ConcurrentMap<List<Object>, SettableFuture<Object>> loading = Maps.newConcurrentMap();
+
+        MethodCache(long ttlMilliseconds, long staleMilliseconds, long maximumWeight) {
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMilliseconds);
+            this.entries = CacheBuilder.newBuilder()
+                    .ticker(ticker)
+                    .expireAfterWrite(ttlMilliseconds + staleMilliseconds, TimeUnit.MILLISECONDS)
+                    .maximumWeight(maximumWeight)
+                    .weigher(new Weigher<List<Object>, Entry>() {
+                        @Override
+                        public int weigh(List<Object> key, Entry entry) {
+                            return entry.weight;
+                        }
+                    })
+                    .build();
+        }
+
+        SharedInvocation begin(TaskContext context, List<Object> key) {
+            Entry entry = entries.getIfPresent(key);
+            if (entry != null && ticker.read() < entry.freshUntil) {
+                context.metricEmitter.emit("cacheHit", 1);
+                context.tracer.fine("cache hit");
+                return new Hit(entry.value);
+            } else if (entry != null && !entry.reloading.compareAndSet(false, true)) {
+                // someone else is already reloading it
+                context.metricEmitter.emit("cacheStale", 1);
+                context.tracer.fine("cache hit (stale)");
+                return new Hit(entry.value);
+            } else if (entry != null) {
+                context.metricEmitter.emit("cacheMiss", 1);
+                context.tracer.fine("cache miss (reloading stale result)");
+                return new Reload(key, entry);
+            }
+            SettableFuture<Object> result = SettableFuture.create();
+            SettableFuture<Object> existing = loading.putIfAbsent(key, result);
+            if (existing != null) {
+                context.metricEmitter.emit("cacheHit", 1);
+                context.tracer.fine("cache hit (waiting for load)");
+                return new Waiter(context, key, existing);
+            }
+            context.metricEmitter.emit("cacheMiss", 1);
+            context.tracer.fine("cache miss");
+            return new Load(key, result);
+        }
+
+        /**
+         * Cache value (once it has resolved, if it is a future) and then run done with whether it succeeded.
+         */
+        void store(final List<Object> key, final Object value, final FutureCallback<Object> done) {
+            if (!(value instanceof ListenableFuture)) {
+                entries.put(key, new Entry(value, ticker.read() + ttlNanos, value));
+                done.onSuccess(value);
+                return;
+            }
+            Futures.addCallback((ListenableFuture<?>) value, new FutureCallback<Object>() {
+                @Override
+                public void onSuccess(Object result) {
+                    entries.put(key, new Entry(value, ticker.read() + ttlNanos, result));
+                    done.onSuccess(result);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    done.onFailure(t);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        private final class Load extends SharedInvocation {
+            private final List<Object> key;
+            private final SettableFuture<Object> result;
+
+            Load(List<Object> key, SettableFuture<Object> result) {
+                this.key = key;
+                this.result = result;
+            }
+
+            @Override
+            public boolean isShared() {
+                return false;
+            }
+
+            @Override
+            public Object await() {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public Object complete(Object value) {
+                // waiters share the (possibly pending) result; later invocations join them until it is cached
+                result.set(value);
+                store(key, value, new FutureCallback<Object>() {
+                    @Override
+                    public void onSuccess(Object resolved) {
+                        loading.remove(key, result);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        loading.remove(key, result);
+                    }
+                });
+                return value;
+            }
+
+            @Override
+            protected void failed(Throwable failure) {
+                loading.remove(key, result);
+                if (abandoned(failure)) {
+                    // that is this request's problem, not its waiters'; they retry the load
+                    result.cancel(false);
+                } else {
+                    result.setException(failure);
+                }
+            }
+        }
+
+        private final class Waiter extends SharedInvocation {
+            private final TaskContext context;
+            private final List<Object> key;
+            private ListenableFuture<Object> result;
+            private Load load;
+
+            Waiter(TaskContext context, List<Object> key, ListenableFuture<Object> result) {
+                this.context = context;
+                this.key = key;
+                this.result = result;
+            }
+
+            @Override
+            public boolean isShared() {
+                return load == null;
+            }
+
+            @Override
+            public Object await() {
+                while (true) {
+                    try {
+                        return await(result, context.timeout);
+                    } catch (CancellationException e) {
+                        SettableFuture<Object> next = SettableFuture.create();
+                        SettableFuture<Object> existing = loading.putIfAbsent(key, next);
+                        if (existing == null) {
+                            context.tracer.fine("cache miss (load abandoned)");
+                            load = new Load(key, next);
+                            return null;
+                        }
+                        result = existing;
+                    }
+                }
+            }
+
+            @Override
+            public Object complete(Object value) {
+                return load != null ? load.complete(value) : value;
+            }
+
+            @Override
+            protected void failed(Throwable failure) {
+                if (load != null) {
+                    load.failed(failure);
+                }
+            }
+        }
+
+        private final class Reload extends SharedInvocation {
+            private final List<Object> key;
+            private final Entry stale;
+
+            Reload(List<Object> key, Entry stale) {
+                this.key = key;
+                this.stale = stale;
+            }
+
+            @Override
+            public boolean isShared() {
+                return false;
+            }
+
+            @Override
+            public Object await() {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public Object complete(Object value) {
+                store(key, value, new FutureCallback<Object>() {
+                    @Override
+                    public void onSuccess(Object resolved) {
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        failed(t);
+                    }
+                });
+                return value;
+            }
+
+            @Override
+            protected void failed(Throwable failure) {
+                // leave the stale result for the next invocation to retry
+                stale.reloading.set(false);
+            }
+        }
+    }
+
+    private static final class Hit extends SharedInvocation {
+        private final Object value;
+
+        Hit(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean isShared() {
+            return true;
+        }
+
+        @Override
+        public Object await() {
+            return value;
+        }
+
+        @Override
+        public Object complete(Object value) {
+            return value;
+        }
+
+        @Override
+        protected void failed(Throwable failure) {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * The build side of a hash join on STRING keys: an open-addressing table from keys to the rows with that key, probed
+ * with a single lookup. As with a HashMap, a null key matches rows added with a null key.
+ */
+public final class StringJoinTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys;
+    private List<Object>[] rows;
+    private List<Object> nullRows;
+    private int size;
+
+    public StringJoinTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        this.keys = new String[capacity];
+        this.rows = new List[capacity];
+    }
+
+    private int slot(String key) {
+        int mask = keys.length - 1;
+        int h = key.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        while (rows[i] != null && !key.equals(keys[i])) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public void add(String key, Object row) {
+        if (key == null) {
+            if (nullRows == null) {
+                nullRows = Lists.newArrayListWithCapacity(1);
+            }
+            nullRows.add(row);
+            return;
+        }
+        int i = slot(key);
+        List<Object> list = rows[i];
+        if (list == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                i = slot(key);
+            }
+            keys[i] = key;
+            rows[i] = list = Lists.newArrayListWithCapacity(1);
+            ++size;
+        }
+        list.add(row);
+    }
+
+    /**
+     * @return the rows added with key, or missing if there are none
+     */
+    public List<Object> get(String key, List<Object> missing) {
+        List<Object> list = key == null ? nullRows : rows[slot(key)];
+        return list == null ? missing : list;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        List<Object>[] oldRows = rows;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldRows[j] != null) {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                rows[i] = oldRows[j];
+            }
+        }
+    }
+}
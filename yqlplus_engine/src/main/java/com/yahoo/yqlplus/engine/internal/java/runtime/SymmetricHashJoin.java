@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of a symmetric hash join, shared by the tasks reading its two inputs.
+ *
+ * Each input adds its rows as soon as it is available: a row is hashed into its own side's table and probed against
+ * the other side's, so whichever input arrives first is already hashed (and partly matched) while the other is still
+ * outstanding. Every matching pair is found exactly once, by whichever of its two rows is added later.
+ *
+ * Matches are recorded per left row, and once both inputs are complete next() returns them in the same order as a
+ * HASH_JOIN: left rows in order, each with its matching right rows in order.
+ */
+public final class SymmetricHashJoin {
+    private final Map<Object, List<Integer>> leftTable = Maps.newHashMap();
+    private final Map<Object, List<Object>> rightTable = Maps.newHashMap();
+    private final List<List<Object>> matches = Lists.newArrayList();
+    private int cursor;
+
+    /**
+     * Integer keys of different widths (an int on one side, a long on the other) must still match.
+     */
+    private static Object normalize(Object key) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+
+    /**
+     * Add the next left row, by its key.
+     */
+    public synchronized void left(Object key) {
+        key = normalize(key);
+        int index = matches.size();
+        List<Object> rights = rightTable.get(key);
+        matches.add(rights == null ? null : Lists.newArrayList(rights));
+        List<Integer> lefts = leftTable.get(key);
+        if (lefts == null) {
+            lefts = Lists.newArrayList();
+            leftTable.put(key, lefts);
+        }
+        lefts.add(index);
+    }
+
+    /**
+     * Add the next right row.
+     */
+    public synchronized void right(Object key, Object row) {
+        key = normalize(key);
+        List<Object> rights = rightTable.get(key);
+        if (rights == null) {
+            rights = Lists.newArrayList();
+            rightTable.put(key, rights);
+        }
+        rights.add(row);
+        List<Integer> lefts = leftTable.get(key);
+        if (lefts != null) {
+            for (Integer index : lefts) {
+                List<Object> matched = matches.get(index);
+                if (matched == null) {
+                    matched = Lists.newArrayList();
+                    matches.set(index, matched);
+                }
+                matched.add(row);
+            }
+        }
+    }
+
+    /**
+     * @return the right rows matching the next left row, or missing if there are none
+     */
+    public synchronized List<Object> next(List<Object> missing) {
+        List<Object> matched = matches.get(cursor++);
+        return matched == null ? missing : matched;
+    }
+}
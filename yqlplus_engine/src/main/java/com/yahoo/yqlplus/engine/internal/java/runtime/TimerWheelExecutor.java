@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel implementing ScheduledExecutorService, for the engine's timeout timers.
+ *
+ * Tasks are coalesced into ticks of a fixed duration and run on a single timer thread no earlier than their deadline
+ * (and at most about one tick after it). Scheduling appends to a lock-free queue and cancelling just marks the task
+ * (the timer thread unlinks it from its bucket at the next tick), so both are O(1) regardless of how many timers are
+ * outstanding -- which suits timeouts, nearly all of which are cancelled long before they fire.
+ *
+ * Tasks still pending at shutdown are discarded.
+ */
+public final class TimerWheelExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final long MAX_DELAY = Long.MAX_VALUE / 4;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry<?>> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry<?>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final long startTime;
+    private final Thread worker;
+    private volatile int state = RUNNING;
+    private long tick;
+
+    public TimerWheelExecutor(ThreadFactory threadFactory, long tickDuration, TimeUnit tickUnit, int ticksPerWheel) {
+        Preconditions.checkArgument(tickDuration > 0, "tickDuration must be positive: %s", tickDuration);
+        Preconditions.checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "ticksPerWheel out of range: %s", ticksPerWheel);
+        this.tickNanos = Math.max(1L, tickUnit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        });
+        worker.start();
+    }
+
+    public TimerWheelExecutor(long tickDuration, TimeUnit tickUnit, int ticksPerWheel) {
+        this(Executors.defaultThreadFactory(), tickDuration, tickUnit, ticksPerWheel);
+    }
+
+    /**
+     * @return the number of scheduled tasks which have neither run nor been cancelled
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    private long now() {
+        return System.nanoTime() - startTime;
+    }
+
+    private <V> Entry<V> enqueue(Entry<V> entry) {
+        if (state != RUNNING) {
+            throw new RejectedExecutionException("TimerWheelExecutor has been shut down");
+        }
+        backlog.incrementAndGet();
+        pending.add(entry);
+        return entry;
+    }
+
+    private static long deadlineAfter(long now, long delay, TimeUnit unit) {
+        return now + Math.min(Math.max(0L, unit.toNanos(delay)), MAX_DELAY);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        Preconditions.checkNotNull(command);
+        return enqueue(new Entry<Void>(Executors.<Void>callable(command, null), deadlineAfter(now(), delay, unit), 0L));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        Preconditions.checkNotNull(callable);
+        return enqueue(new Entry<>(callable, deadlineAfter(now(), delay, unit), 0L));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        Preconditions.checkNotNull(command);
+        Preconditions.checkArgument(period > 0, "period must be positive: %s", period);
+        return enqueue(new Entry<Void>(Executors.<Void>callable(command, null), deadlineAfter(now(), initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        Preconditions.checkNotNull(command);
+        Preconditions.checkArgument(delay > 0, "delay must be positive: %s", delay);
+        return enqueue(new Entry<Void>(Executors.<Void>callable(command, null), deadlineAfter(now(), initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        state = SHUTDOWN;
+        worker.interrupt();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> remaining = Lists.newArrayList();
+        for (Entry<?> entry : pending) {
+            if (!entry.isCancelled()) {
+                remaining.add(entry);
+            }
+        }
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    private void runWheel() {
+        try {
+            while (state == RUNNING) {
+                long deadline = waitForNextTick();
+                if (state != RUNNING) {
+                    break;
+                }
+                removeCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire(deadline);
+                ++tick;
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = now();
+            long sleepMillis = (deadline - current + 999999L) / 1000000L;
+            if (sleepMillis <= 0) {
+                return current;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (state != RUNNING) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Entry<?> entry;
+        while ((entry = cancelled.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void transferPending() {
+        Entry<?> entry;
+        while ((entry = pending.poll()) != null) {
+            if (entry.isCancelled()) {
+                backlog.decrementAndGet();
+                continue;
+            }
+            long expiry = entry.deadline / tickNanos;
+            entry.remainingRounds = (expiry - tick) / wheel.length;
+            // anything already due goes into the current bucket
+            wheel[(int) (Math.max(expiry, tick) & mask)].add(entry);
+        }
+    }
+
+    private void reschedule(Entry<?> entry) {
+        if (state == RUNNING) {
+            entry.deadline = entry.period > 0 ? entry.deadline + entry.period : now() - entry.period;
+            enqueue(entry);
+        }
+    }
+
+    private final class Entry<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        private long deadline;
+        private final long period;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Entry<?> prev;
+        private Entry<?> next;
+
+        Entry(Callable<V> callable, long deadline, long period) {
+            super(callable);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset()) {
+                reschedule(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if (result) {
+                cancelled.add(this);
+            }
+            return result;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - now(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private final class Bucket {
+        private Entry<?> head;
+        private Entry<?> tail;
+
+        void add(Entry<?> entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        void remove(Entry<?> entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+            backlog.decrementAndGet();
+        }
+
+        void expire(long deadline) {
+            Entry<?> entry = head;
+            while (entry != null) {
+                Entry<?> next = entry.next;
+                if (entry.isCancelled()) {
+                    remove(entry);
+                } else if (entry.remainingRounds <= 0 && entry.deadline <= deadline) {
+                    remove(entry);
+                    entry.run();
+                } else if (entry.remainingRounds > 0) {
+                    --entry.remainingRounds;
+                }
+                entry = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Retains the rows of a stream that survive ORDER BY ... OFFSET ... LIMIT without accumulating the whole stream.
+ *
+ * Rows are kept in a bounded max-heap of offset + limit entries; ties are broken by arrival order so the result
+ * matches a stable sort of the full input followed by the slice.
+ */
+public final class TopN<ROW> {
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Comparator<? super ROW> comparator;
+    private final int offset;
+    private final int capacity;
+    private final PriorityQueue<Slot<ROW>> heap;
+    private long sequence;
+
+    public TopN(Comparator<? super ROW> comparator, int offset, int limit) {
+        this.comparator = comparator;
+        this.offset = Math.max(offset, 0);
+        this.capacity = limit <= 0 ? 0 : (int) Math.min((long) this.offset + limit, MAX_CAPACITY);
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(capacity, INITIAL_CAPACITY)), new Comparator<Slot<ROW>>() {
+            @Override
+            public int compare(Slot<ROW> left, Slot<ROW> right) {
+                // reversed, so the head of the queue is the row that would be evicted first
+                return order(right, left);
+            }
+        });
+    }
+
+    private int order(Slot<ROW> left, Slot<ROW> right) {
+        int result = comparator.compare(left.row, right.row);
+        return result != 0 ? result : Long.compare(left.sequence, right.sequence);
+    }
+
+    /**
+     * @return true if the row is (for now) among the retained rows
+     */
+    public boolean add(ROW row) {
+        if (capacity == 0) {
+            return false;
+        }
+        Slot<ROW> slot = new Slot<>(row, sequence++);
+        if (heap.size() < capacity) {
+            heap.add(slot);
+            return true;
+        }
+        if (order(slot, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the retained rows in order, with the first offset rows dropped
+     */
+    @SuppressWarnings("unchecked")
+    public List<ROW> finish() {
+        int count = heap.size() - offset;
+        if (count <= 0) {
+            heap.clear();
+            return ImmutableList.of();
+        }
+        Object[] rows = new Object[count];
+        for (int i = heap.size() - 1; i >= offset; --i) {
+            rows[i - offset] = heap.poll().row;
+        }
+        heap.clear();
+        return (List<ROW>) Arrays.asList(rows);
+    }
+
+    private static final class Slot<ROW> {
+        final ROW row;
+        final long sequence;
+
+        Slot(ROW row, long sequence) {
+            this.row = row;
+            this.sequence = sequence;
+        }
+    }
+}
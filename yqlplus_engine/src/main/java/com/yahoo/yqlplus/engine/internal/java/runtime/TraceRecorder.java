@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.yahoo.yqlplus.api.trace.TraceEntry;
+import com.yahoo.yqlplus.api.trace.TraceLogEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the entries and log entries of one trace.
+ *
+ * Each thread appends to a buffer of its own, found through a small table indexed by thread id, so recording takes no
+ * locks and threads share no queue. Threads whose ids share a slot chain their buffers there, so each thread allocates
+ * its buffer once however the slot is shared. Entry ids are handed out in blocks per thread. The buffers are merged
+ * (ordered by start time and then id, and log entries by time) when the trace is read.
+ */
+final class TraceRecorder {
+    private static final int ID_BLOCK = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final AtomicInteger idBlocks = new AtomicInteger(0);
+    private final AtomicReferenceArray<Buffer> stripes;
+    private final int mask;
+
+    TraceRecorder() {
+        int size = 1;
+        while (size < 2 * Runtime.getRuntime().availableProcessors()) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * A buffer is only ever written by its owning thread.
+     */
+    private static final class Buffer {
+        final Thread owner;
+        final Buffer next;
+        final Appender<TraceEntry> entries = new Appender<>();
+        final Appender<TraceLogEntry> log = new Appender<>();
+        int nextId;
+        int idLimit;
+
+        Buffer(Thread owner, Buffer next) {
+            this.owner = owner;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Single-writer append-only list; readers see every item added before the size they read.
+     */
+    private static final class Appender<T> {
+        private volatile Object[] items = new Object[INITIAL_CAPACITY];
+        private volatile int size;
+
+        void add(T item) {
+            int n = size;
+            Object[] target = items;
+            if (n == target.length) {
+                target = Arrays.copyOf(target, n * 2);
+                items = target;
+            }
+            target[n] = item;
+            size = n + 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        void copyTo(List<T> output) {
+            int n = size;
+            Object[] source = items;
+            for (int i = 0; i < n; ++i) {
+                output.add((T) source[i]);
+            }
+        }
+    }
+
+    private Buffer buffer() {
+        Thread thread = Thread.currentThread();
+        int index = (int) thread.getId() & mask;
+        while (true) {
+            Buffer head = stripes.get(index);
+            for (Buffer buffer = head; buffer != null; buffer = buffer.next) {
+                if (buffer.owner == thread) {
+                    return buffer;
+                }
+            }
+            Buffer buffer = new Buffer(thread, head);
+            if (stripes.compareAndSet(index, head, buffer)) {
+                return buffer;
+            }
+        }
+    }
+
+    int nextId() {
+        Buffer buffer = buffer();
+        if (buffer.nextId == buffer.idLimit) {
+            buffer.nextId = idBlocks.getAndIncrement() * ID_BLOCK + 1;
+            buffer.idLimit = buffer.nextId + ID_BLOCK;
+        }
+        return buffer.nextId++;
+    }
+
+    void add(TraceEntry entry) {
+        buffer().entries.add(entry);
+    }
+
+    void log(TraceLogEntry entry) {
+        buffer().log.add(entry);
+    }
+
+    List<TraceEntry> getEntries() {
+        List<TraceEntry> result = Lists.newArrayList();
+        for (int i = 0; i < stripes.length(); ++i) {
+            for (Buffer buffer = stripes.get(i); buffer != null; buffer = buffer.next) {
+                buffer.entries.copyTo(result);
+            }
+        }
+        Collections.sort(result, new Comparator<TraceEntry>() {
+            @Override
+            public int compare(TraceEntry left, TraceEntry right) {
+                int cmp = Long.compare(left.getStartTicks(), right.getStartTicks());
+                return cmp != 0 ? cmp : Integer.compare(left.getId(), right.getId());
+            }
+        });
+        return ImmutableList.copyOf(result);
+    }
+
+    List<TraceLogEntry> getLog() {
+        List<TraceLogEntry> result = Lists.newArrayList();
+        for (int i = 0; i < stripes.length(); ++i) {
+            for (Buffer buffer = stripes.get(i); buffer != null; buffer = buffer.next) {
+                buffer.log.copyTo(result);
+            }
+        }
+        Collections.sort(result, new Comparator<TraceLogEntry>() {
+            @Override
+            public int compare(TraceLogEntry left, TraceLogEntry right) {
+                return Long.compare(left.getTicks(), right.getTicks());
+            }
+        });
+        return ImmutableList.copyOf(result);
+    }
+}
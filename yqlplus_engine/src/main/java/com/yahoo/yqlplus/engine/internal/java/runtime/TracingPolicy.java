@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which program executions record a full trace (an entry for every task and source invocation).
+ *
+ * Debug executions are always traced. Other executions are traced with the policy's sampling rate; unsampled
+ * executions only record the program's root entry and its errors, and skip the per-task tracing work (including
+ * renaming the worker thread).
+ *
+ * Bind a value with an OptionalBinder to override the default of FULL.
+ */
+public final class TracingPolicy {
+    /**
+     * Only trace debug executions.
+     */
+    public static final TracingPolicy OFF = new TracingPolicy(0.0);
+
+    /**
+     * Trace every execution.
+     */
+    public static final TracingPolicy FULL = new TracingPolicy(1.0);
+
+    /**
+     * Trace debug executions and the given fraction (0.0 - 1.0) of the others.
+     */
+    public static TracingPolicy sampled(double rate) {
+        Preconditions.checkArgument(rate >= 0.0 && rate <= 1.0, "sampling rate must be between 0.0 and 1.0: %s", rate);
+        return new TracingPolicy(rate);
+    }
+
+    private final double rate;
+
+    private TracingPolicy(double rate) {
+        this.rate = rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return true if an execution should be traced
+     */
+    public boolean sample(boolean debug) {
+        return debug || rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    @Override
+    public String toString() {
+        return "TracingPolicy{rate=" + rate + '}';
+    }
+}
@@ -18,6 +18,7 @@ import com.google.common.util.concurrent.*;
 import com.yahoo.yqlplus.api.trace.Timeout;
 import com.yahoo.yqlplus.api.trace.Tracer;
 import com.yahoo.yqlplus.engine.api.Record;
+import com.yahoo.yqlplus.engine.internal.java.runtime.ProgramTracer;
 import com.yahoo.yqlplus.engine.internal.java.runtime.TimeoutHandler;
 
 import javax.annotation.Nullable;
@@ -170,7 +171,8 @@ public final class Sequences {
         return new Callable<SEQUENCE>() {
             @Override
             public SEQUENCE call() throws Exception {
-                Tracer childTracer = tracer.start(tracer.getGroup(), tracer.getName() + "." + idx);
+                // don't build the child's name for an execution which isn't being traced
+                Tracer childTracer = ProgramTracer.isRecording(tracer) ? tracer.start(tracer.getGroup(), tracer.getName() + "." + idx) : tracer;
                 try {
                     return source.apply(key);
                 } finally {
@@ -6,33 +6,137 @@
 
 package com.yahoo.yqlplus.engine.internal.operations;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class Like {
-    private static Pattern DIRECTIVE = Pattern.compile("([%_])");
+/**
+ * A compiled LIKE pattern.
+ *
+ * Patterns of the shapes 'abc', 'abc%', '%abc' and '%abc%' are matched with String.equals, startsWith, endsWith and
+ * contains on the literal; anything else (an embedded % or any _) is compiled to a regex. % matches any sequence of
+ * characters (including line terminators) and _ any single character; everything else matches itself.
+ */
+public final class Like {
+    public enum Shape {
+        EXACT,
+        PREFIX,
+        SUFFIX,
+        CONTAINS,
+        PATTERN
+    }
+
+    private final Shape shape;
+    private final String literal;
+    private final Pattern pattern;
+
+    private Like(Shape shape, String literal, Pattern pattern) {
+        this.shape = shape;
+        this.literal = literal;
+        this.pattern = pattern;
+    }
 
-    public static Pattern compileLike(CharSequence pattern) {
+    public static Like compile(CharSequence like) {
+        String text = like.toString();
+        if (text.indexOf('_') < 0) {
+            int start = 0;
+            int end = text.length();
+            boolean leading = end > 0 && text.charAt(0) == '%';
+            if (leading) {
+                ++start;
+            }
+            boolean trailing = end > start && text.charAt(end - 1) == '%';
+            if (trailing) {
+                --end;
+            }
+            String literal = text.substring(start, end);
+            if (literal.indexOf('%') < 0) {
+                if (leading && trailing) {
+                    return new Like(Shape.CONTAINS, literal, null);
+                } else if (leading) {
+                    // '%' alone is a contains of the empty string
+                    return new Like(literal.isEmpty() ? Shape.CONTAINS : Shape.SUFFIX, literal, null);
+                } else if (trailing) {
+                    return new Like(Shape.PREFIX, literal, null);
+                }
+                return new Like(Shape.EXACT, literal, null);
+            }
+        }
+        return new Like(Shape.PATTERN, null, compileLike(text));
+    }
+
+    public static Pattern compileLike(CharSequence like) {
         // % -> .*
         // _ -> .
         // anything else -> quote
-        Matcher matcher = DIRECTIVE.matcher(pattern);
-        // must use StringBuffer if we want to use matcher.appendReplacement
-        StringBuffer regex = new StringBuffer(pattern.length() + 10);
-        while (matcher.find()) {
-            String dir = matcher.group(1);
-            switch (dir) {
-                case "%":
-                    matcher.appendReplacement(regex, ".*");
-                    break;
-                case "_":
-                    matcher.appendReplacement(regex, ".");
-                    break;
-                default:
-                    matcher.appendReplacement(regex, Matcher.quoteReplacement(Pattern.quote(dir)));
+        StringBuilder regex = new StringBuilder(like.length() + 10);
+        int literalStart = 0;
+        for (int i = 0; i < like.length(); ++i) {
+            char c = like.charAt(i);
+            if (c == '%' || c == '_') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(like.subSequence(literalStart, i).toString()));
+                }
+                regex.append(c == '%' ? ".*" : ".");
+                literalStart = i + 1;
             }
         }
-        matcher.appendTail(regex);
-        return Pattern.compile(regex.toString());
+        if (literalStart < like.length()) {
+            regex.append(Pattern.quote(like.subSequence(literalStart, like.length()).toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * @return the text to compare for every shape but PATTERN
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * @return the regex for PATTERN
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public boolean matches(CharSequence input) {
+        switch (shape) {
+            case EXACT:
+                return literal.equals(input.toString());
+            case PREFIX:
+                return input.toString().startsWith(literal);
+            case SUFFIX:
+                return input.toString().endsWith(literal);
+            case CONTAINS:
+                return input.toString().contains(literal);
+            default:
+                return pattern.matcher(input).matches();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Like)) {
+            return false;
+        }
+        Like other = (Like) o;
+        return toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return shape == Shape.PATTERN ? "LIKE " + pattern.pattern() : "LIKE " + shape + " " + literal;
     }
 }
@@ -212,8 +212,7 @@ public class ConstantExpressionEvaluator implements Function<OperatorNode<Expres
             }
             case LIKE: {
                 if (right instanceof CharSequence && left instanceof CharSequence) {
-                    Pattern pattern = Like.compileLike((CharSequence) right);
-                    return pattern.matcher((CharSequence) left).matches();
+                    return Like.compile((CharSequence) right).matches((CharSequence) left);
                 }
                 throw new ProgramCompileException(location, "Left and right side of LIKE must be strings");
             }
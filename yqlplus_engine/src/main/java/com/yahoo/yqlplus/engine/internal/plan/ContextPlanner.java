@@ -7,9 +7,12 @@
 package com.yahoo.yqlplus.engine.internal.plan;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.yahoo.yqlplus.engine.CompiledProgram;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitScope;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SymmetricHashJoin;
 import com.yahoo.yqlplus.engine.internal.java.sequences.Sequences;
 import com.yahoo.yqlplus.engine.internal.plan.ast.ExprScope;
 import com.yahoo.yqlplus.engine.internal.plan.ast.FunctionOperator;
@@ -99,7 +102,10 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
         return program.pipe(source.getLocation(), this, execute(input), path, args);
     }
 
-    StreamValue executeJoin(OperatorNode<SequenceOperator> join, OperatorNode<PhysicalExprOperator> leftSide, OperatorNode<ExpressionOperator> joinExpression, OperatorNode<SequenceOperator> query) {
+    /**
+     * @param leftEstimatedRows the estimated size of leftSide (or -1 if unknown)
+     */
+    StreamValue executeJoin(OperatorNode<SequenceOperator> join, OperatorNode<PhysicalExprOperator> leftSide, long leftEstimatedRows, OperatorNode<ExpressionOperator> joinExpression, OperatorNode<SequenceOperator> query) {
         SequenceOperator operator = join.getOperator();
         ReadFieldAliasAnnotate.RowType leftRowType = ReadFieldAliasAnnotate.RowType.getLeftType(join);
         ReadFieldAliasAnnotate.RowType rightRowType = ReadFieldAliasAnnotate.RowType.getRightType(join);
@@ -137,8 +143,15 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
         OperatorNode<FunctionOperator> outputFunction =
                 joinOutputScope.createFunction(OperatorNode.create(PhysicalExprOperator.RECORD, fieldNames, fieldValues));
 
+        if (program.isSymmetricJoin()) {
+            return executeSymmetricJoin(operator, leftSide, rightSide, leftKeyFunction, rightKeyFunction, outputFunction);
+        }
         StreamValue leftSideJoin = StreamValue.iterate(this, leftSide);
-        leftSideJoin.add(Location.NONE,
+        // only copy the left side so it can be hashed when the sources say it is likely the smaller one;
+        // otherwise stream it against a table of the right side
+        long rightEstimatedRows = rightSide.getEstimatedRows();
+        boolean buildSmaller = leftEstimatedRows >= 0 && rightEstimatedRows >= 0 && leftEstimatedRows < rightEstimatedRows;
+        leftSideJoin.add(Location.NONE, buildSmaller ? ImmutableMap.<String, Object>of(StreamOperator.BUILD, StreamOperator.BUILD_SMALLER) : ImmutableMap.<String, Object>of(),
                 operator == SequenceOperator.LEFT_JOIN ? StreamOperator.OUTER_HASH_JOIN : StreamOperator.HASH_JOIN,
                 rightSide.materializeValue(),
                 leftKeyFunction,
@@ -147,6 +160,29 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
         return leftSideJoin;
     }
 
+    /**
+     * Each input is added to a shared SymmetricHashJoin by its own step, which runs as soon as that input is ready
+     * rather than when both are. All that remains once the second input arrives is emitting the matches.
+     */
+    private StreamValue executeSymmetricJoin(SequenceOperator operator, OperatorNode<PhysicalExprOperator> leftSide, StreamValue rightSide,
+                                             OperatorNode<FunctionOperator> leftKeyFunction, OperatorNode<FunctionOperator> rightKeyFunction,
+                                             OperatorNode<FunctionOperator> outputFunction) {
+        OperatorNode<PhysicalExprOperator> state = computeExpr(OperatorNode.create(PhysicalExprOperator.NEW,
+                getGambitScope().adapt(SymmetricHashJoin.class, false), ImmutableList.of()));
+        StreamValue leftInsert = StreamValue.iterate(this, leftSide);
+        leftInsert.add(Location.NONE, StreamOperator.SYMMETRIC_INSERT_LEFT, state, leftKeyFunction);
+        OperatorNode<PhysicalExprOperator> leftRows = leftInsert.materializeValue();
+        rightSide.add(Location.NONE, StreamOperator.SYMMETRIC_INSERT_RIGHT, state, rightKeyFunction);
+        OperatorNode<PhysicalExprOperator> rightRows = rightSide.materializeValue();
+        StreamValue leftSideJoin = StreamValue.iterate(this, leftRows);
+        leftSideJoin.add(Location.NONE,
+                operator == SequenceOperator.LEFT_JOIN ? StreamOperator.OUTER_SYMMETRIC_JOIN : StreamOperator.SYMMETRIC_JOIN,
+                state,
+                rightRows,
+                outputFunction);
+        return leftSideJoin;
+    }
+
     private void mergeFields(ReadFieldAliasAnnotate.RowType rowType, List<String> fieldNames, List<OperatorNode<PhysicalExprOperator>> fieldValues, OperatorNode<PhysicalExprOperator> row) {
         for(String alias : rowType.getAliases()) {
             fieldNames.add(alias);
@@ -307,6 +343,11 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
         return program.constant(value);
     }
 
+    @Override
+    public OperatorNode<PhysicalExprOperator> evaluateOnce(OperatorNode<PhysicalExprOperator> expr) {
+        return program.evaluateOnce(expr);
+    }
+
     public ProgramValueTypeAdapter getValueTypeAdapter() {
         return program.getValueTypeAdapter();
     }
@@ -315,6 +356,10 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
         return program.getGambitScope();
     }
 
+    public boolean hasBulkhead(String sourceName) {
+        return program.hasBulkhead(sourceName);
+    }
+
 
     private StreamValue executeLocalChain(final OperatorNode<SequenceOperator> seq) {
         return new LocalPlanChain(this, seq).execute(seq);
@@ -399,7 +444,7 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
                     OperatorNode<ExpressionOperator> joinExpression = source.getArgument(2);
                     StreamValue leftSideStream = context.executeJoinRightQuery(this.leftSide, this.joinExpression, leftQuery);
                     OperatorNode<PhysicalExprOperator> leftSide = leftSideStream.materializeValue();
-                    return executeJoin(source, leftSide, joinExpression, rightQuery);
+                    return executeJoin(source, leftSide, leftSideStream.getEstimatedRows(), joinExpression, rightQuery);
                 }
                 case MERGE: {
                     List<OperatorNode<SequenceOperator>> inputs = source.getArgument(0);
@@ -449,7 +494,7 @@ public class ContextPlanner implements DynamicExpressionEnvironment {
                     OperatorNode<ExpressionOperator> joinExpression = source.getArgument(2);
                     StreamValue leftSideStream = context.execute(leftQuery);
                     OperatorNode<PhysicalExprOperator> leftSide = leftSideStream.materializeValue();
-                    return context.executeJoin(source, leftSide, joinExpression, rightQuery);
+                    return context.executeJoin(source, leftSide, leftSideStream.getEstimatedRows(), joinExpression, rightQuery);
                 }
                 case MERGE: {
                     List<OperatorNode<SequenceOperator>> inputs = source.getArgument(0);
@@ -26,4 +26,10 @@ public interface DynamicExpressionEnvironment {
     OperatorNode<PhysicalExprOperator> property(Location location, List<String> path);
 
     OperatorNode<PhysicalExprOperator> constant(Object value);
+
+    /**
+     * @return an expression for the value of expr (which must not depend on the row) computed once per execution
+     * rather than once per row
+     */
+    OperatorNode<PhysicalExprOperator> evaluateOnce(OperatorNode<PhysicalExprOperator> expr);
 }
@@ -21,6 +21,7 @@ import com.yahoo.yqlplus.language.operator.OperatorNode;
 import com.yahoo.yqlplus.language.parser.Location;
 import com.yahoo.yqlplus.language.parser.ProgramCompileException;
 
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -78,28 +79,16 @@ public class DynamicExpressionEvaluator implements Function<OperatorNode<Express
             case IN: {
                 return compare(input.getLocation(), input.getOperator(),
                         apply((OperatorNode<ExpressionOperator>) input.getArgument(0)),
-                        apply((OperatorNode<ExpressionOperator>) input.getArgument(1)));
+                        inSet(apply((OperatorNode<ExpressionOperator>) input.getArgument(1))));
             }
             case LIKE:
             case NOT_LIKE:
             case MATCHES:
             case NOT_MATCHES: {
-                // these require a constant pattern
-                ConstantExpressionEvaluator patternEval = new ConstantExpressionEvaluator();
+                boolean like = input.getOperator() == ExpressionOperator.LIKE || input.getOperator() == ExpressionOperator.NOT_LIKE;
                 OperatorNode<ExpressionOperator> pattern = input.getArgument(1);
-                Object patternValue = patternEval.apply(pattern);
-                if (patternValue instanceof String) {
-                    if (input.getOperator() == ExpressionOperator.LIKE || input.getOperator() == ExpressionOperator.NOT_LIKE) {
-                        patternValue = Like.compileLike((CharSequence) patternValue);
-                    } else {
-                        patternValue = Pattern.compile((String) patternValue);
-                    }
-                } else if (!(patternValue instanceof Pattern)) {
-                    throw new ProgramCompileException(input.getLocation(), input.getOperator() + " pattern must be constant String or Pattern");
-                }
                 OperatorNode<PhysicalExprOperator> left = apply((OperatorNode<ExpressionOperator>) input.getArgument(0));
-                OperatorNode<PhysicalExprOperator> right = environment.constant(patternValue);
-                return compare(input.getLocation(), input.getOperator(), left, right);
+                return compare(input.getLocation(), input.getOperator(), left, compilePattern(like, pattern));
             }
             case IS_NULL:
                 return OperatorNode.create(input.getLocation(), PhysicalExprOperator.IS_NULL, apply((OperatorNode<ExpressionOperator>) input.getArgument(0)));
@@ -235,6 +224,45 @@ public class DynamicExpressionEvaluator implements Function<OperatorNode<Express
             .build());
 
 
+    /**
+     * A constant pattern is compiled now; any other is compiled (through PatternCache) when it is evaluated, which for
+     * a pattern not depending on the row (such as an argument) is once per execution.
+     */
+    private OperatorNode<PhysicalExprOperator> compilePattern(boolean like, OperatorNode<ExpressionOperator> pattern) {
+        Object patternValue;
+        try {
+            patternValue = CONSTANT.apply(pattern);
+        } catch (NotConstantExpressionException e) {
+            OperatorNode<PhysicalExprOperator> patternExpr = apply(pattern);
+            OperatorNode<PhysicalExprOperator> compiled = OperatorNode.create(pattern.getLocation(), like ? PhysicalExprOperator.LIKE_PATTERN : PhysicalExprOperator.REGEX_PATTERN, patternExpr);
+            return patternExpr.getOperator() == PhysicalExprOperator.VALUE ? environment.evaluateOnce(compiled) : compiled;
+        }
+        if (patternValue instanceof String) {
+            patternValue = like ? Like.compile((CharSequence) patternValue) : Pattern.compile((String) patternValue);
+        } else if (!(patternValue instanceof Pattern)) {
+            throw new ProgramCompileException(pattern.getLocation(), (like ? "LIKE" : "MATCHES") + " pattern must be a String or Pattern");
+        }
+        return environment.constant(patternValue);
+    }
+
+    /**
+     * The right side of IN is probed once per row; when it does not depend on the row (a subquery result, argument or
+     * constant list) hash it once per execution instead.
+     */
+    private OperatorNode<PhysicalExprOperator> inSet(OperatorNode<PhysicalExprOperator> right) {
+        switch (right.getOperator()) {
+            case VALUE:
+                return environment.evaluateOnce(OperatorNode.create(right.getLocation(), PhysicalExprOperator.IN_SET, right));
+            case CONSTANT:
+                if (right.getArgument(1) instanceof Collection) {
+                    return environment.evaluateOnce(OperatorNode.create(right.getLocation(), PhysicalExprOperator.IN_SET, right));
+                }
+                return right;
+            default:
+                return right;
+        }
+    }
+
     private OperatorNode<PhysicalExprOperator> compare(final Location location, ExpressionOperator operator, OperatorNode<PhysicalExprOperator> left, OperatorNode<PhysicalExprOperator> right) {
         if (BINARY_MAP.containsKey(operator)) {
             return OperatorNode.create(location, BINARY_MAP.get(operator), left, right);
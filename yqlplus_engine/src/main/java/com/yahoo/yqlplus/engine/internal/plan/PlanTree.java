@@ -21,7 +21,7 @@ import java.util.Set;
 
 public class PlanTree {
     static class Next {
-        Set<OperatorValue> used = Sets.newIdentityHashSet();
+        Set<OperatorValue> used = Sets.newLinkedHashSet();
         String name;
         OperatorNode<TaskOperator> operator;
 
@@ -40,9 +40,9 @@ public class PlanTree {
 
     static class PlanState {
         List<OperatorNode<TaskOperator>> tasks = Lists.newArrayList();
-        Map<OperatorValue, OperatorNode<TaskOperator>> outputMap = Maps.newIdentityHashMap();
-        Map<Task, Next> names = Maps.newIdentityHashMap();
-        Map<JoinTask, Next> joins = Maps.newIdentityHashMap();
+        Map<OperatorValue, OperatorNode<TaskOperator>> outputMap = Maps.newLinkedHashMap();
+        Map<Task, Next> names = Maps.newLinkedHashMap();
+        Map<JoinTask, Next> joins = Maps.newLinkedHashMap();
         int sym = 0;
 
         void assignName(OperatorValue value) {
@@ -87,7 +87,7 @@ public class PlanTree {
             add(next.used, task.getAvailable(), task.getInputs());
             List<Next> nexts = createNexts(task, next);
             List<OperatorStep> steps = Lists.newArrayList();
-            Set<OperatorValue> outputs = Sets.newIdentityHashSet();
+            Set<OperatorValue> outputs = Sets.newLinkedHashSet();
             for (Step step : task.getSteps()) {
                 if (step instanceof OperatorStep) {
                     steps.add((OperatorStep) step);
@@ -10,12 +10,14 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.yahoo.yqlplus.api.types.*;
 import com.yahoo.yqlplus.engine.CompiledProgram;
 import com.yahoo.yqlplus.engine.api.DependencyNotFoundException;
 import com.yahoo.yqlplus.engine.api.ViewRegistry;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitScope;
 import com.yahoo.yqlplus.engine.internal.compiler.streams.PlanProgramCompileOptions;
+import com.yahoo.yqlplus.engine.internal.scope.SourceBulkheads;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorStep;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorValue;
 import com.yahoo.yqlplus.engine.internal.plan.ast.PhysicalExprOperator;
@@ -31,7 +33,9 @@ import com.yahoo.yqlplus.language.logical.ExpressionOperator;
 import com.yahoo.yqlplus.language.logical.SequenceOperator;
 import com.yahoo.yqlplus.language.logical.StatementOperator;
 import com.yahoo.yqlplus.language.logical.TypeOperator;
+import com.yahoo.yqlplus.language.operator.Operator;
 import com.yahoo.yqlplus.language.operator.OperatorNode;
+import com.yahoo.yqlplus.language.operator.OperatorVisitor;
 import com.yahoo.yqlplus.language.parser.Location;
 import com.yahoo.yqlplus.language.parser.ProgramCompileException;
 import com.yahoo.yqlplus.language.parser.ProgramParser;
@@ -42,6 +46,7 @@ import java.io.InputStream;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -71,10 +76,12 @@ public class ProgramPlanner implements ViewRegistry {
     private final ContextPlanner rootContext;
     private final AtomicBoolean once = new AtomicBoolean(false);
     private final Map<Object, OperatorNode<PhysicalExprOperator>> valueConstants = Maps.newHashMap();
+    private final Map<OperatorNode<PhysicalExprOperator>, OperatorNode<PhysicalExprOperator>> executionValues = Maps.newHashMap();
     private final GambitScope adapter;
     private final EnumSet<CompiledProgram.ProgramStatement> writeStatements = EnumSet.noneOf(CompiledProgram.ProgramStatement.class);
     private final ViewRegistry parentViews;
     private final PlanProgramCompileOptions planProgramCompileOptions;
+    private final SourceBulkheads bulkheads;
 
     private final Map<String, SourceType> resolvedSources = Maps.newHashMap();
     private final Map<String, ModuleType> resolvedModules = Maps.newHashMap();
@@ -84,6 +91,10 @@ public class ProgramPlanner implements ViewRegistry {
     }
 
     public ProgramPlanner(LogicalTransforms transforms, SourceNamespace sourceNamespace, ModuleNamespace moduleNamespace, GambitScope gambitScope, ViewRegistry viewNamespace, PlanProgramCompileOptions planProgramCompileOptions) {
+        this(transforms, sourceNamespace, moduleNamespace, gambitScope, viewNamespace, planProgramCompileOptions, SourceBulkheads.NONE);
+    }
+
+    public ProgramPlanner(LogicalTransforms transforms, SourceNamespace sourceNamespace, ModuleNamespace moduleNamespace, GambitScope gambitScope, ViewRegistry viewNamespace, PlanProgramCompileOptions planProgramCompileOptions, SourceBulkheads bulkheads) {
         this.logicalTransforms = transforms;
         this.sourceNamespace = sourceNamespace;
         this.moduleNamespace = moduleNamespace;
@@ -93,6 +104,21 @@ public class ProgramPlanner implements ViewRegistry {
         this.adapter = gambitScope;
         this.parentViews = viewNamespace;
         this.planProgramCompileOptions = planProgramCompileOptions;
+        this.bulkheads = bulkheads;
+    }
+
+    /**
+     * @return true if calls to the named source must be forked through its bulkhead
+     */
+    public boolean hasBulkhead(String sourceName) {
+        return bulkheads.contains(sourceName);
+    }
+
+    /**
+     * @return true if joins should hash each input as it arrives rather than waiting for both
+     */
+    public boolean isSymmetricJoin() {
+        return planProgramCompileOptions != null && planProgramCompileOptions.isSymmetricJoin();
     }
 
     public SourceType findSource(ContextPlanner contextPlanner, OperatorNode<SequenceOperator> source) {
@@ -185,6 +211,7 @@ public class ProgramPlanner implements ViewRegistry {
         // TODO: VIEW processing will be fixed in a future commit
 
         List<OperatorNode<TaskOperator>> arguments = Lists.newArrayList();
+        Set<String> streamableOutputs = findStreamableOutputs(statements);
 
         for (OperatorNode<StatementOperator> stmt : statements) {
             switch (stmt.getOperator()) {
@@ -217,7 +244,8 @@ public class ProgramPlanner implements ViewRegistry {
                     String variableName = stmt.getArgument(1);
                     OperatorNode<SequenceOperator> transformedQuery = logicalTransforms.apply(query, this);
                     ContextPlanner planner = rootContext.create(variableName);
-                    OperatorValue out = planner.execute(transformedQuery).materialize();
+                    StreamValue result = planner.execute(transformedQuery);
+                    OperatorValue out = streamableOutputs.contains(variableName) ? result.materializeOutput(variableName) : result.materialize();
                     // TODO: context end needs to be tied more intimately with value resolution
                     // we have two scenarios for contexts:
                     //   1) it's created and ended in a single scope (including attaching to an async output)
@@ -246,6 +274,49 @@ public class ProgramPlanner implements ViewRegistry {
         return x;
     }
 
+    /**
+     * @return names of query results referenced only by a single OUTPUT statement, which therefore need not be
+     * accumulated for any other consumer
+     */
+    private static Set<String> findStreamableOutputs(List<OperatorNode<StatementOperator>> statements) {
+        final Map<String, Integer> references = Maps.newHashMap();
+        Set<String> outputs = Sets.newHashSet();
+        for (OperatorNode<StatementOperator> stmt : statements) {
+            switch (stmt.getOperator()) {
+                case OUTPUT:
+                    outputs.add((String) stmt.getArgument(0));
+                    // fall through
+                case COUNT: {
+                    String name = stmt.getArgument(0);
+                    references.put(name, references.containsKey(name) ? references.get(name) + 1 : 1);
+                    break;
+                }
+                default:
+                    stmt.visit(new OperatorVisitor() {
+                        @Override
+                        public <T extends Operator> boolean enter(OperatorNode<T> node) {
+                            if (node.getOperator() == ExpressionOperator.VARREF) {
+                                String name = (String) node.getArgument(0);
+                                references.put(name, references.containsKey(name) ? references.get(name) + 1 : 1);
+                            }
+                            return true;
+                        }
+
+                        @Override
+                        public <T extends Operator> void exit(OperatorNode<T> node) {
+                        }
+                    });
+            }
+        }
+        Set<String> result = Sets.newHashSet();
+        for (String name : outputs) {
+            if (references.get(name) == 1) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
     public void addTerminal(Value value) {
         terminals.add(value);
     }
@@ -287,6 +358,22 @@ public class ProgramPlanner implements ViewRegistry {
         return vexpr;
     }
 
+    /**
+     * Evaluate a row-independent expression (such as the hash set for an IN predicate or a compiled LIKE pattern)
+     * once per execution, as a step of its own shared by every filter that uses it.
+     */
+    public OperatorNode<PhysicalExprOperator> evaluateOnce(OperatorNode<PhysicalExprOperator> expr) {
+        if (executionValues.containsKey(expr)) {
+            return executionValues.get(expr);
+        }
+        OperatorValue value = OperatorStep.create(getValueTypeAdapter(), expr.getLocation(), PhysicalOperator.EVALUATE,
+                OperatorNode.create(expr.getLocation(), PhysicalExprOperator.ROOT_CONTEXT),
+                expr);
+        OperatorNode<PhysicalExprOperator> result = OperatorNode.create(expr.getLocation(), PhysicalExprOperator.VALUE, value);
+        executionValues.put(expr, result);
+        return result;
+    }
+
     @Override
     public OperatorNode<SequenceOperator> getView(List<String> name) {
         if (name.size() == 1 && views.containsKey(name.get(0))) {
@@ -55,7 +55,7 @@ public final class OperatorStep implements Step {
     @Override
     public Set<? extends Value> getInputs() {
         if (compute != null) {
-            final Set<Value> inputs = Sets.newIdentityHashSet();
+            final Set<Value> inputs = Sets.newLinkedHashSet();
             compute.visitNode(new OperatorTreeVisitor() {
                 @Override
                 public void visit(Object arg) {
@@ -36,6 +36,7 @@ public enum PhysicalExprOperator implements Operator {
     TRACE_CONTEXT(PhysicalExprOperator.class),
 
     WITH_CONTEXT(PhysicalExprOperator.class, PhysicalExprOperator.class),
+    // ENFORCE_TIMEOUT(expr) -- forks expr; a BULKHEAD annotation names the source bulkhead to fork through
     ENFORCE_TIMEOUT(PhysicalExprOperator.class),
 
     // STREAM_CREATE(operators) -> stream<rowtype>
@@ -53,6 +54,12 @@ public enum PhysicalExprOperator implements Operator {
     NEQ(PhysicalExprOperator.class, PhysicalExprOperator.class),
     BOOLEAN_COMPARE(BinaryComparison.class, PhysicalExprOperator.class, PhysicalExprOperator.class),
     IN(PhysicalExprOperator.class, PhysicalExprOperator.class),
+    // IN_SET(collection) -- the collection as a hash set, for the right side of IN predicates evaluated once per execution
+    IN_SET(PhysicalExprOperator.class),
+    // LIKE_PATTERN(string) -- the pattern compiled to an operations.Like, for the right side of LIKE
+    LIKE_PATTERN(PhysicalExprOperator.class),
+    // REGEX_PATTERN(string) -- the pattern compiled to a java.util.regex.Pattern, for the right side of MATCHES
+    REGEX_PATTERN(PhysicalExprOperator.class),
     IS_NULL(PhysicalExprOperator.class),
     MATCHES(PhysicalExprOperator.class, PhysicalExprOperator.class),
     CONTAINS(PhysicalExprOperator.class, PhysicalExprOperator.class),
@@ -105,6 +112,11 @@ public enum PhysicalExprOperator implements Operator {
     SERIALIZE(PhysicalExprOperator.class, PhysicalExprOperator.class),
     DESERIALIZE(PhysicalExprOperator.class, PhysicalExprOperator.class);
 
+    /**
+     * Annotation on ENFORCE_TIMEOUT (and on SCATTER functions) naming the source whose bulkhead the fork goes through.
+     */
+    public static final String BULKHEAD = "bulkhead";
+
     private final ArgumentsTypeChecker checker;
 
 
@@ -158,6 +170,9 @@ public enum PhysicalExprOperator implements Operator {
                         case NEQ:
                         case BOOLEAN_COMPARE:
                         case IN:
+                        case IN_SET:
+                        case LIKE_PATTERN:
+                        case REGEX_PATTERN:
                         case IS_NULL:
                         case MATCHES:
                         case CONTAINS:
@@ -29,8 +29,21 @@ public class MergeStreamValue extends StreamValue {
 
     @Override
     public OperatorValue materialize() {
+        return materialize(this.stream);
+    }
+
+    @Override
+    public OperatorValue materializeOutput(String name) {
+        if (this.stream.getOperator() == StreamOperator.SINK) {
+            // no operations tied to this stream -- rows from each input can be delivered as soon as it completes
+            return materialize(OperatorNode.create(StreamOperator.SINK, OperatorNode.create(SinkOperator.OUTPUT, name)));
+        }
+        return materialize();
+    }
+
+    private OperatorValue materialize(OperatorNode<StreamOperator> target) {
         OperatorValue stream = OperatorStep.create(context.getValueTypeAdapter(), PhysicalOperator.EVALUATE, context.getContextExpr(),
-                OperatorNode.create(PhysicalExprOperator.STREAM_CREATE, this.stream));
+                OperatorNode.create(PhysicalExprOperator.STREAM_CREATE, target));
         List<OperatorValue> steps = Lists.newArrayList();
         for (StreamValue val : inputStreams) {
             steps.addAll(val.feed(stream));
@@ -56,7 +56,7 @@ public class SequenceBuiltinsModule implements ModuleType {
                     throw new ProgramCompileException(location, "arguments to groupby must be constant: (not constant: %s)", arg);
                 }
             }
-            input.add(location, StreamOperator.GROUPBY,
+            input.add(location, input.isGroupedBy(args.get(0)) ? StreamOperator.SORTED_GROUPBY : StreamOperator.GROUPBY,
                     OperatorNode.create(FunctionOperator.FUNCTION, ImmutableList.of("$row"), OperatorNode.create(PhysicalExprOperator.PROPREF, OperatorNode.create(PhysicalExprOperator.LOCAL, "$row"), args.get(0))),
                     OperatorNode.create(FunctionOperator.FUNCTION, ImmutableList.of("$key", "$rows"), OperatorNode.create(PhysicalExprOperator.RECORD,
                             ImmutableList.of(args.get(1), args.get(2)),
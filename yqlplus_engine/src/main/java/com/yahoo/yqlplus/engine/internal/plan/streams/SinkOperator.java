@@ -18,7 +18,9 @@ import com.yahoo.yqlplus.language.parser.Location;
 
 public enum SinkOperator implements Operator {
     ACCUMULATE(),
-    STREAM(PhysicalExprOperator.class);
+    STREAM(PhysicalExprOperator.class),
+    // OUTPUT(name) -- deliver rows to the named program result as they arrive; only valid as the whole of a STREAM_CREATE
+    OUTPUT(String.class);
 
     public static OperatorNode<SinkOperator> create(Location loc, SinkOperator operator, Object... arguments) {
         return OperatorNode.create(loc, operator, arguments);
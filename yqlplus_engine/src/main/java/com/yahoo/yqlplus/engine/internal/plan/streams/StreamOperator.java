@@ -27,17 +27,40 @@ public enum StreamOperator implements Operator {
     LIMIT(StreamOperator.class, PhysicalExprOperator.class),
     SLICE(StreamOperator.class, PhysicalExprOperator.class, PhysicalExprOperator.class),
     ORDERBY(StreamOperator.class, FunctionOperator.class),
+    // TOP_N(comparator, offset, limit) -- ORDERBY followed by SLICE, retaining only offset + limit rows
+    TOP_N(StreamOperator.class, FunctionOperator.class, PhysicalExprOperator.class, PhysicalExprOperator.class),
     TRANSFORM(StreamOperator.class, FunctionOperator.class),
+    // CHUNK(size) -- rows -> lists of at most size consecutive rows
+    CHUNK(StreamOperator.class, PhysicalExprOperator.class),
     // like transform but parallel
     SCATTER(StreamOperator.class, FunctionOperator.class),
     // GROUPBY((row) -> key, (key, rows) -> row)
     GROUPBY(StreamOperator.class, FunctionOperator.class, FunctionOperator.class),
+    // like GROUPBY, but the input is known to be ordered by key so each group is emitted as soon as the key changes
+    SORTED_GROUPBY(StreamOperator.class, FunctionOperator.class, FunctionOperator.class),
     // CROSS(right_rows, (left, right) -> rows)
     CROSS(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class),
-    // HASH_JOIN(right_sequence, (left) -> key, (right) -> key, (left, right) -> row)
+    // HASH_JOIN(right_sequence, (left) -> key, (right) -> key, (left, right) -> row) -- a BUILD annotation picks the side to hash
     HASH_JOIN(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class, FunctionOperator.class, FunctionOperator.class),
     // OUTER_HASH_JOIN(right_sequence, (left) -> key, (right) -> key, (left, right_or_null) -> row)
-    OUTER_HASH_JOIN(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class, FunctionOperator.class, FunctionOperator.class);
+    OUTER_HASH_JOIN(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class, FunctionOperator.class, FunctionOperator.class),
+    // SYMMETRIC_INSERT_LEFT(join, (left) -> key) -- add each row to a SymmetricHashJoin as it passes through
+    SYMMETRIC_INSERT_LEFT(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class),
+    // SYMMETRIC_INSERT_RIGHT(join, (right) -> key)
+    SYMMETRIC_INSERT_RIGHT(StreamOperator.class, PhysicalExprOperator.class, FunctionOperator.class),
+    // SYMMETRIC_JOIN(join, right_sequence, (left, right) -> row) -- emit the matches found by the SYMMETRIC_INSERTs
+    SYMMETRIC_JOIN(StreamOperator.class, PhysicalExprOperator.class, PhysicalExprOperator.class, FunctionOperator.class),
+    // OUTER_SYMMETRIC_JOIN(join, right_sequence, (left, right_or_null) -> row)
+    OUTER_SYMMETRIC_JOIN(StreamOperator.class, PhysicalExprOperator.class, PhysicalExprOperator.class, FunctionOperator.class);
+
+    /**
+     * Annotation on HASH_JOIN and OUTER_HASH_JOIN naming the input hashed into the join table: BUILD_RIGHT (the
+     * default) or BUILD_SMALLER, which hashes whichever input is smaller once both are materialized. The planner only
+     * asks for BUILD_SMALLER when @EstimatedRows on both sources says the left input is likely the smaller.
+     */
+    public static final String BUILD = "build";
+    public static final String BUILD_RIGHT = "right";
+    public static final String BUILD_SMALLER = "smaller";
 
     public static OperatorNode<StreamOperator> create(Location loc, StreamOperator operator, Object... arguments) {
         return OperatorNode.create(loc, operator, arguments);
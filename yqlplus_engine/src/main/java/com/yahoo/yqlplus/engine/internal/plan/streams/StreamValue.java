@@ -6,6 +6,7 @@
 
 package com.yahoo.yqlplus.engine.internal.plan.streams;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.yqlplus.engine.internal.plan.ContextPlanner;
 import com.yahoo.yqlplus.engine.internal.plan.ast.OperatorValue;
@@ -15,10 +16,21 @@ import com.yahoo.yqlplus.language.parser.Location;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public abstract class StreamValue {
     public static StreamValue merge(ContextPlanner planner, List<StreamValue> inputStreams) {
-        return new MergeStreamValue(planner, inputStreams);
+        MergeStreamValue merged = new MergeStreamValue(planner, inputStreams);
+        long estimatedRows = 0L;
+        for (StreamValue input : inputStreams) {
+            if (input.estimatedRows < 0) {
+                estimatedRows = -1L;
+                break;
+            }
+            estimatedRows += input.estimatedRows;
+        }
+        merged.setEstimatedRows(estimatedRows);
+        return merged;
     }
 
     public static StreamValue singleton(ContextPlanner context, OperatorNode<PhysicalExprOperator> input) {
@@ -35,15 +47,97 @@ public abstract class StreamValue {
 
     protected ContextPlanner context;
     OperatorNode<StreamOperator> stream;
+    private List<String> orderedBy = ImmutableList.of();
+    private long estimatedRows = -1L;
 
     protected StreamValue(ContextPlanner context) {
         this.context = context;
         this.stream = OperatorNode.create(StreamOperator.SINK, OperatorNode.create(SinkOperator.ACCUMULATE));
     }
 
+    /**
+     * @return the fields the rows of this stream are known to be ordered by, most significant first (or empty if unknown)
+     */
+    public List<String> getOrderedBy() {
+        return orderedBy;
+    }
+
+    public void setOrderedBy(List<String> orderedBy) {
+        this.orderedBy = ImmutableList.copyOf(orderedBy);
+    }
+
+    /**
+     * @return true if rows with equal values for field are known to be adjacent
+     */
+    public boolean isGroupedBy(String field) {
+        return !orderedBy.isEmpty() && orderedBy.get(0).equals(field);
+    }
+
+    /**
+     * @return an estimate of the number of rows in this stream (an upper bound if operators have filtered it), or -1 if
+     * unknown
+     */
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    /**
+     * @return true if operator passes on a subset of its input rows in their input order (so neither the ordering nor
+     * the row estimate of the stream is lost)
+     */
+    private static boolean preservesOrder(StreamOperator operator) {
+        switch (operator) {
+            case DISTINCT:
+            case FILTER:
+            case OFFSET:
+            case LIMIT:
+            case SLICE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     public void add(Location location, StreamOperator operator, Object... arguments) {
+        add(location, ImmutableMap.<String, Object>of(), operator, arguments);
+    }
+
+    public void add(Location location, Map<String, Object> annotations, StreamOperator operator, Object... arguments) {
+        if (!preservesOrder(operator)) {
+            this.orderedBy = ImmutableList.of();
+            this.estimatedRows = -1L;
+        }
+        if ((operator == StreamOperator.LIMIT || operator == StreamOperator.SLICE) && tailOperator(this.stream) == StreamOperator.ORDERBY) {
+            // ORDER BY followed by LIMIT only needs to retain offset + limit rows
+            OperatorNode<PhysicalExprOperator> offset = operator == StreamOperator.SLICE ? (OperatorNode<PhysicalExprOperator>) arguments[0] : context.constant(0);
+            OperatorNode<PhysicalExprOperator> limit = (OperatorNode<PhysicalExprOperator>) arguments[arguments.length - 1];
+            this.stream = fuseTopN(this.stream, location, offset, limit);
+            return;
+        }
         // this is a little expensive; maybe revisit how we build this up
-        this.stream = setTail(this.stream, location, operator, arguments);
+        this.stream = setTail(this.stream, location, annotations, operator, arguments);
+    }
+
+    private static StreamOperator tailOperator(OperatorNode<StreamOperator> target) {
+        if (target.getOperator() == StreamOperator.SINK) {
+            return null;
+        }
+        OperatorNode<StreamOperator> next = target.getArgument(0);
+        return next.getOperator() == StreamOperator.SINK ? target.getOperator() : tailOperator(next);
+    }
+
+    private static OperatorNode<StreamOperator> fuseTopN(OperatorNode<StreamOperator> target, Location location, OperatorNode<PhysicalExprOperator> offset, OperatorNode<PhysicalExprOperator> limit) {
+        OperatorNode<StreamOperator> next = target.getArgument(0);
+        if (next.getOperator() == StreamOperator.SINK) {
+            return OperatorNode.createAs(location, target.getAnnotations(), StreamOperator.TOP_N, new Object[]{next, target.getArgument(1), offset, limit});
+        }
+        Object[] newArguments = target.getArguments().clone();
+        newArguments[0] = fuseTopN(next, location, offset, limit);
+        return OperatorNode.createAs(target.getLocation(), target.getAnnotations(), target.getOperator(), newArguments);
     }
 
     public static OperatorNode<StreamOperator> setSink(OperatorNode<StreamOperator> target, OperatorNode<SinkOperator> sink) {
@@ -51,17 +145,21 @@ public abstract class StreamValue {
     }
 
     public static OperatorNode<StreamOperator> setTail(OperatorNode<StreamOperator> target, Location location, StreamOperator operator, Object... arguments) {
+        return setTail(target, location, ImmutableMap.<String, Object>of(), operator, arguments);
+    }
+
+    private static OperatorNode<StreamOperator> setTail(OperatorNode<StreamOperator> target, Location location, Map<String, Object> annotations, StreamOperator operator, Object... arguments) {
         switch (target.getOperator()) {
             case SINK: {
                 if (operator == StreamOperator.SINK) {
-                    return OperatorNode.createAs(location, ImmutableMap.<String, Object>of(), operator, arguments);
+                    return OperatorNode.createAs(location, annotations, operator, arguments);
                 } else {
                     Object[] args = new Object[arguments == null ? 1 : 1 + arguments.length];
                     args[0] = target;
                     if (arguments != null) {
                         System.arraycopy(arguments, 0, args, 1, arguments.length);
                     }
-                    return OperatorNode.createAs(location, ImmutableMap.<String, Object>of(), operator, args);
+                    return OperatorNode.createAs(location, annotations, operator, args);
                 }
             }
             case DISTINCT:
@@ -71,14 +169,21 @@ public abstract class StreamValue {
             case LIMIT:
             case SLICE:
             case ORDERBY:
+            case TOP_N:
             case HASH_JOIN:
             case OUTER_HASH_JOIN:
+            case SYMMETRIC_INSERT_LEFT:
+            case SYMMETRIC_INSERT_RIGHT:
+            case SYMMETRIC_JOIN:
+            case OUTER_SYMMETRIC_JOIN:
             case TRANSFORM:
+            case CHUNK:
             case SCATTER:
-            case GROUPBY: {
+            case GROUPBY:
+            case SORTED_GROUPBY: {
                 Object[] oldArguments = target.getArguments();
                 Object[] newArguments = new Object[oldArguments.length];
-                newArguments[0] = setTail((OperatorNode<StreamOperator>) oldArguments[0], location, operator, arguments);
+                newArguments[0] = setTail((OperatorNode<StreamOperator>) oldArguments[0], location, annotations, operator, arguments);
                 System.arraycopy(oldArguments, 1, newArguments, 1, oldArguments.length - 1);
                 return OperatorNode.createAs(target.getLocation(), target.getAnnotations(), target.getOperator(), newArguments);
             }
@@ -89,6 +194,14 @@ public abstract class StreamValue {
 
     public abstract OperatorValue materialize();
 
+    /**
+     * Materialize this stream as the value of OUTPUT name, which is not otherwise referenced. Streams which can
+     * deliver rows before they are complete do so; others simply materialize.
+     */
+    public OperatorValue materializeOutput(String name) {
+        return materialize();
+    }
+
     public abstract OperatorValue  materializeIf(OperatorNode<PhysicalExprOperator> condition);
 
     public abstract Collection<OperatorValue> feed(OperatorValue stream);
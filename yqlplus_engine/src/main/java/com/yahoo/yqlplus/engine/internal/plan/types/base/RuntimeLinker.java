@@ -24,8 +24,8 @@ public class RuntimeLinker {
     private final MethodHandle property;
     private final MethodHandle propertyString;
     private final MethodHandle index;
-   // private final MethodHandle serializeJson;
-   // private final MethodHandle serializeTBin;
+    private final MethodHandle serializeJson;
+    private final MethodHandle serializeTBin;
     private final MethodHandle mergeIntoFieldWriter;
     private final MethodHandle getFieldNames;
 
@@ -36,6 +36,7 @@ public class RuntimeLinker {
 //            public abstract Object property(Object source, String propertyName);
 //            public abstract Object index(Object source, Object index);
 //            public abstract void serializeJson(Object source, JsonGenerator generator);
+//            public abstract void serializeTBin(Object source, TBinEncoder encoder);
 //            public abstract void mergeIntoFieldWriter(Object source, FieldWriter writer);
 //            public abstract Iterable<String> getFieldNames(Object source);
             final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
@@ -45,13 +46,10 @@ public class RuntimeLinker {
                     .bindTo(widgetInstance);
             index = lookup.findVirtual(widget, "index", MethodType.methodType(Object.class, Object.class, Object.class))
                     .bindTo(widgetInstance);
-
-          //  Comment out for now since the code is targeting for gateway implementation
-          //  Gateway is not fully implemented and the code will fail some tests of current none-gateway use cases
-          //  serializeJson = lookup.findVirtual(widget, "serializeJson", MethodType.methodType(void.class, Object.class, JsonGenerator.class))
-          //          .bindTo(widgetInstance);
-          //  serializeTBin = lookup.findVirtual(widget, "serializeTBin", MethodType.methodType(void.class, Object.class, TBinEncoder.class))
-          //          .bindTo(widgetInstance);
+            serializeJson = lookup.findVirtual(widget, "serializeJson", MethodType.methodType(void.class, Object.class, JsonGenerator.class))
+                    .bindTo(widgetInstance);
+            serializeTBin = lookup.findVirtual(widget, "serializeTBin", MethodType.methodType(void.class, Object.class, TBinEncoder.class))
+                    .bindTo(widgetInstance);
             mergeIntoFieldWriter = lookup.findVirtual(widget, "mergeIntoFieldWriter", MethodType.methodType(void.class, Object.class, FieldWriter.class))
                     .bindTo(widgetInstance);
             getFieldNames = lookup.findVirtual(widget, "getFieldNames", MethodType.methodType(Iterable.class, Object.class))
@@ -72,18 +70,15 @@ public class RuntimeLinker {
             } else if("getFieldNames".equals(desc.getNameToken(1))) {
               return new GuardedInvocation(getFieldNames,
                       Guards.isOfClass(clazz, getFieldNames.type()));
+            } else if ("serialize".equals(desc.getNameToken(1)) && desc.getNameTokenCount() > 2) {
+                if ("json".equals(desc.getNameToken(2))) {
+                    return new GuardedInvocation(serializeJson,
+                            Guards.isOfClass(clazz, serializeJson.type()));
+                } else if ("tbin".equals(desc.getNameToken(2))) {
+                    return new GuardedInvocation(serializeTBin,
+                            Guards.isOfClass(clazz, serializeTBin.type()));
+                }
             }
-// Comment out for now since the code is targeting for gateway implementation
-// Gateway is not fully implemented and the code will fail some tests of current none-gateway use cases
-//            else if ("serialize".equals(desc.getNameToken(1))) {
-//                if("json".equals(desc.getNameToken(2))) {
-//                    return new GuardedInvocation(serializeJson,
-//                            Guards.isOfClass(clazz, serializeJson.type()));
-//                } else if("tbin".equals(desc.getNameToken(2))) {
-//                    return new GuardedInvocation(serializeJson,
-//                            Guards.isOfClass(clazz, serializeTBin.type()));
-//                }
-//            }
         }
         if (!"dyn".equals(desc.getNameToken(0))) {
             return null;
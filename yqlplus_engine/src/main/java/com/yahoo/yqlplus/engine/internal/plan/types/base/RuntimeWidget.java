@@ -7,6 +7,7 @@
 package com.yahoo.yqlplus.engine.internal.plan.types.base;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.yahoo.tbin.TBinEncoder;
 
 public abstract class RuntimeWidget {
     public Object propertyObject(Object source, Object propertyName) {
@@ -22,6 +23,8 @@ public abstract class RuntimeWidget {
 
     public abstract void serializeJson(Object source, JsonGenerator generator);
 
+    public abstract void serializeTBin(Object source, TBinEncoder encoder);
+
     public abstract void mergeIntoFieldWriter(Object source, FieldWriter writer);
 
     public abstract Iterable<String> getFieldNames(Object source);
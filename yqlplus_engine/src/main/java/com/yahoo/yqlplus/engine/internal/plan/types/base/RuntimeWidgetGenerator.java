@@ -19,6 +19,7 @@ import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeExpression;
 import com.yahoo.yqlplus.engine.internal.plan.types.BytecodeSequence;
 import com.yahoo.yqlplus.engine.internal.plan.types.TypeWidget;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 
 public class RuntimeWidgetGenerator extends UnitGenerator {
     public RuntimeWidgetGenerator(String name, ASMClassSource environment) {
@@ -29,14 +30,12 @@ public class RuntimeWidgetGenerator extends UnitGenerator {
         //    public abstract Object property(Object source, String propertyName);
         //    public abstract Object index(Object source, Object index);
         //    public abstract void serializeJson(Object source, JsonGenerator generator);
+        //    public abstract void serializeTBin(Object source, TBinEncoder encoder);
         //    public abstract void mergeIntoFieldWriter(Object source, FieldWriter writer);
         generateProperty(targetType, adapter);
         generateIndex(targetType, adapter);
-
-     // Comment out for now since the code is targeting for gateway implementation
-     // Gateway is not fully implemented and the code will fail some tests of current none-gateway use case
-     //   generateJson(targetType, adapter);
-     //   generateTBin(targetType, adapter);
+        generateJson(targetType, adapter);
+        generateTBin(targetType, adapter);
         generateMerge(targetType, adapter);
         generateGetFieldNames(targetType, adapter);
 
@@ -88,20 +87,47 @@ public class RuntimeWidgetGenerator extends UnitGenerator {
 
     private void generateJson(TypeWidget targetType, RuntimeAdapter adapter) {
         MethodGenerator method = createMethod("serializeJson");
-        BytecodeExpression sourceExpr = new BytecodeCastExpression(targetType, method.addArgument("source", AnyTypeWidget.getInstance()).read());
-        BytecodeExpression generatorExpr = method.addArgument("index", environment.adaptInternal(JsonGenerator.class)).read();
-        method.add(adapter.serializeJson(sourceExpr, generatorExpr));
+        BytecodeExpression source = method.addArgument("source", AnyTypeWidget.getInstance()).read();
+        BytecodeExpression generatorExpr = method.addArgument("generator", environment.adaptInternal(JsonGenerator.class)).read();
+        BytecodeSequence serialize;
+        try {
+            serialize = adapter.serializeJson(new BytecodeCastExpression(targetType, source), generatorExpr);
+        } catch (UnsupportedOperationException e) {
+            serialize = invokeFallback("serializeJson", JsonGenerator.class, source, generatorExpr);
+        }
+        method.add(serialize);
         method.add(new ReturnCode());
     }
 
     private void generateTBin(TypeWidget targetType, RuntimeAdapter adapter) {
         MethodGenerator method = createMethod("serializeTBin");
-        BytecodeExpression sourceExpr = new BytecodeCastExpression(targetType, method.addArgument("source", AnyTypeWidget.getInstance()).read());
-        BytecodeExpression generatorExpr = method.addArgument("index", environment.adaptInternal(TBinEncoder.class)).read();
-        method.add(adapter.serializeTBin(sourceExpr, generatorExpr));
+        BytecodeExpression source = method.addArgument("source", AnyTypeWidget.getInstance()).read();
+        BytecodeExpression generatorExpr = method.addArgument("encoder", environment.adaptInternal(TBinEncoder.class)).read();
+        BytecodeSequence serialize;
+        try {
+            serialize = adapter.serializeTBin(new BytecodeCastExpression(targetType, source), generatorExpr);
+        } catch (UnsupportedOperationException e) {
+            serialize = invokeFallback("serializeTBin", TBinEncoder.class, source, generatorExpr);
+        }
+        method.add(serialize);
         method.add(new ReturnCode());
     }
 
+    /**
+     * Types whose serialization adapters can't generate code for an encoding use the generic YqlFallbackLinker path.
+     */
+    private BytecodeSequence invokeFallback(final String methodName, final Class<?> generatorType, final BytecodeExpression source, final BytecodeExpression generator) {
+        return new BytecodeSequence() {
+            @Override
+            public void generate(CodeEmitter code) {
+                code.exec(source);
+                code.exec(generator);
+                code.getMethodVisitor().visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(YqlFallbackLinker.class), methodName,
+                        Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object.class), Type.getType(generatorType)), false);
+            }
+        };
+    }
+
     private void generateMerge(TypeWidget targetType, RuntimeAdapter adapter) {
         MethodGenerator method = createMethod("mergeIntoFieldWriter");
         BytecodeExpression sourceExpr = new BytecodeCastExpression(targetType, method.addArgument("source", AnyTypeWidget.getInstance()).read());
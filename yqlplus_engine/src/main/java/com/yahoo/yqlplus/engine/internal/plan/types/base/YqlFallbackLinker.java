@@ -8,6 +8,7 @@ package com.yahoo.yqlplus.engine.internal.plan.types.base;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.yahoo.tbin.TBinEncoder;
 import org.dynalang.dynalink.CallSiteDescriptor;
 import org.dynalang.dynalink.linker.GuardedInvocation;
 import org.dynalang.dynalink.linker.GuardingDynamicLinker;
@@ -56,8 +57,14 @@ public class YqlFallbackLinker implements GuardingDynamicLinker {
         target.writeObject(source);
     }
 
+    public static void serializeTBin(Object source, TBinEncoder target) throws IOException {
+        // the encoder's reflective path, as Jackson's is for JSON
+        target.encode(source);
+    }
+
     private static MethodHandle MERGE_FIELDS = Lookup.findOwnStatic(MethodHandles.lookup(), "mergeFields", void.class, Object.class, FieldWriter.class);
     private static MethodHandle SERIALIZE_JSON = Lookup.findOwnStatic(MethodHandles.lookup(), "serializeJson", void.class, Object.class, JsonGenerator.class);
+    private static MethodHandle SERIALIZE_TBIN = Lookup.findOwnStatic(MethodHandles.lookup(), "serializeTBin", void.class, Object.class, TBinEncoder.class);
 
     @Override
     public GuardedInvocation getGuardedInvocation(LinkRequest linkRequest, LinkerServices linkerServices) throws Exception {
@@ -67,9 +74,14 @@ public class YqlFallbackLinker implements GuardingDynamicLinker {
             if ("mergeFields".equals(desc.getNameToken(1))) {
                 return new GuardedInvocation(MERGE_FIELDS,
                         Guards.isInstance(clazz, 0, MERGE_FIELDS.type()));
-            } else if ("serializeJson".equals(desc.getNameToken(1))) {
-                return new GuardedInvocation(SERIALIZE_JSON,
-                        Guards.isInstance(clazz, 0, SERIALIZE_JSON.type()));
+            } else if ("serialize".equals(desc.getNameToken(1)) && desc.getNameTokenCount() > 2) {
+                if ("json".equals(desc.getNameToken(2))) {
+                    return new GuardedInvocation(SERIALIZE_JSON,
+                            Guards.isInstance(clazz, 0, SERIALIZE_JSON.type()));
+                } else if ("tbin".equals(desc.getNameToken(2))) {
+                    return new GuardedInvocation(SERIALIZE_TBIN,
+                            Guards.isInstance(clazz, 0, SERIALIZE_TBIN.type()));
+                }
             }
         }
         return null;
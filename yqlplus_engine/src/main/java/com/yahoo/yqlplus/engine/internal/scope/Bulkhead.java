@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.scope;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.yahoo.cloud.metrics.api.MetricEmitter;
+import com.yahoo.yqlplus.api.trace.Timeout;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLError;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLRuntimeException;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the calls made to one source, shared by every program.
+ *
+ * At most maxConcurrent tasks run on the work pool at once; up to maxQueued more wait in FIFO order and anything
+ * beyond that is rejected immediately with a YQLRuntimeException (so a slow source fails its own queries rather
+ * than tying up the work pool; ScopedTracingExecutor reports it as the failure of the submitted task's future). A task whose source returns a future holds its slot until that future completes (see
+ * {@link #holdUntil(ListenableFuture)}), and queued tasks whose timeout has expired are dropped instead of started.
+ */
+public final class Bulkhead {
+    public static final String REJECTED_TYPE = "BULKHEAD_REJECTED";
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Queue<Permit> queue = new ArrayDeque<>();
+    private final ThreadLocal<Permit> current = new ThreadLocal<>();
+    private int running;
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued) {
+        Preconditions.checkArgument(maxConcurrent > 0, "maxConcurrent must be positive: %s", maxConcurrent);
+        Preconditions.checkArgument(maxQueued >= 0, "maxQueued must not be negative: %s", maxQueued);
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @return an executor submitting to work through this bulkhead, reporting queue depth and rejections to emitter
+     */
+    public ExecutorService wrap(final ExecutorService work, final MetricEmitter emitter) {
+        return wrap(work, emitter, null);
+    }
+
+    /**
+     * @param timeout the timeout of the tasks submitted to the returned executor; tasks still queued when it has
+     *                expired are dropped rather than run (their callers have already been failed by the timeout)
+     */
+    public ExecutorService wrap(final ExecutorService work, final MetricEmitter emitter, final Timeout timeout) {
+        final MetricEmitter metrics = emitter.create("bulkhead", name);
+        return new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                admit(work, metrics, timeout, command);
+            }
+
+            @Override
+            public void shutdown() {
+                work.shutdown();
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return work.shutdownNow();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return work.isShutdown();
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return work.isTerminated();
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                return work.awaitTermination(timeout, unit);
+            }
+        };
+    }
+
+    /**
+     * Keep the permit of the task running on the calling thread until result completes, so a source returning a
+     * future counts against maxConcurrent until its backend call is done. Has no effect outside a bulkhead task.
+     */
+    public void holdUntil(ListenableFuture<?> result) {
+        Permit permit = current.get();
+        if (permit != null) {
+            permit.held = result;
+        }
+    }
+
+    private void admit(ExecutorService work, MetricEmitter metrics, Timeout timeout, Runnable command) {
+        Permit task = new Permit(work, metrics, timeout, command);
+        int depth;
+        synchronized (this) {
+            if (running < maxConcurrent) {
+                ++running;
+                depth = 0;
+            } else if (queue.size() < maxQueued) {
+                queue.add(task);
+                depth = queue.size();
+            } else {
+                depth = -1;
+            }
+        }
+        if (depth < 0) {
+            metrics.emit("bulkheadRejected", 1);
+            YQLError error = new YQLError();
+            error.setType(REJECTED_TYPE);
+            error.setMessage(String.format("Source '%s' is overloaded (%d calls running, %d queued); request rejected", name, maxConcurrent, maxQueued));
+            throw new YQLRuntimeException(error);
+        }
+        metrics.emit("bulkheadQueueDepth", depth);
+        if (depth == 0) {
+            start(work, task);
+        }
+    }
+
+    private void start(ExecutorService work, Runnable task) {
+        try {
+            work.execute(task);
+        } catch (RejectedExecutionException e) {
+            release(work);
+            throw e;
+        }
+    }
+
+    private void release(ExecutorService work) {
+        Permit next;
+        while (true) {
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    --running;
+                    return;
+                }
+            }
+            if (next.timeout == null || next.timeout.check()) {
+                break;
+            }
+            next.metrics.emit("bulkheadExpired", 1);
+        }
+        start(work, next);
+    }
+
+    private final class Permit implements Runnable {
+        private final ExecutorService work;
+        private final MetricEmitter metrics;
+        private final Timeout timeout;
+        private final Runnable command;
+        private ListenableFuture<?> held;
+
+        Permit(ExecutorService work, MetricEmitter metrics, Timeout timeout, Runnable command) {
+            this.work = work;
+            this.metrics = metrics;
+            this.timeout = timeout;
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            current.set(this);
+            try {
+                command.run();
+            } finally {
+                current.remove();
+                ListenableFuture<?> pending = held;
+                held = null;
+                if (pending == null) {
+                    release(work);
+                } else {
+                    pending.addListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            release(work);
+                        }
+                    }, MoreExecutors.directExecutor());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.scope;
+
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.yahoo.yqlplus.api.trace.Timeout;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The single timer shared by the tasks of one program (see {@link TimeoutMode#PROGRAM_DEADLINE}).
+ *
+ * The timer is scheduled at the root timeout's deadline when the first task registers and cancelled when the program
+ * ends; when it fires every registered task still outstanding is failed with a TimeoutException and cancelled.
+ */
+final class ProgramDeadline {
+    private final ScheduledExecutorService timers;
+    private final Timeout timeout;
+    private final long timeoutNanos;
+    private final Set<Child<?>> outstanding = Sets.newConcurrentHashSet();
+    private volatile boolean expired;
+    private boolean closed;
+    private ScheduledFuture<?> timer;
+
+    ProgramDeadline(ScheduledExecutorService timers, Timeout timeout) {
+        this.timers = timers;
+        this.timeout = timeout;
+        this.timeoutNanos = timeout.getRemaining(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return true if candidate expires before this deadline (and so needs a timer of its own)
+     */
+    boolean isTighter(Timeout candidate) {
+        return candidate != timeout && candidate.getRemaining(TimeUnit.NANOSECONDS) < timeout.getRemaining(TimeUnit.NANOSECONDS);
+    }
+
+    <T> ListenableFuture<T> register(final ListenableFuture<T> source) {
+        final SettableFuture<T> result = SettableFuture.create();
+        final Child<T> child = new Child<>(source, result);
+        outstanding.add(child);
+        start();
+        if (expired && outstanding.remove(child)) {
+            child.expire();
+            return result;
+        }
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                outstanding.remove(child);
+                if (result.isCancelled()) {
+                    source.cancel(true);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        Futures.addCallback(source, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T out) {
+                result.set(out);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.setException(t);
+            }
+        });
+        return result;
+    }
+
+    private synchronized void start() {
+        if (timer == null && !closed) {
+            long remaining = timeout.getRemaining(TimeUnit.NANOSECONDS);
+            if (remaining <= 0L) {
+                expire();
+                return;
+            }
+            timer = timers.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire();
+                }
+            }, remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void expire() {
+        expired = true;
+        for (Child<?> child : outstanding) {
+            if (outstanding.remove(child)) {
+                child.expire();
+            }
+        }
+    }
+
+    boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Release the timer once the program has ended.
+     */
+    synchronized void close() {
+        closed = true;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+
+    private final class Child<T> {
+        private final ListenableFuture<T> source;
+        private final SettableFuture<T> result;
+
+        Child(ListenableFuture<T> source, SettableFuture<T> result) {
+            this.source = source;
+            this.result = result;
+        }
+
+        void expire() {
+            result.setException(new TimeoutException(String.format("Timeout after %d %s.", timeoutNanos, TimeUnit.NANOSECONDS)));
+            source.cancel(true);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import com.yahoo.cloud.metrics.api.TaskMetricEmitter;
 import com.yahoo.yqlplus.api.trace.Timeout;
 import com.yahoo.yqlplus.api.trace.Tracer;
 import com.yahoo.yqlplus.engine.TaskContext;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLRuntimeException;
 import com.yahoo.yqlplus.engine.scope.ExecutionScope;
 import com.yahoo.yqlplus.engine.scope.WrapScope;
 
@@ -27,6 +28,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public final class ScopedTracingExecutor extends AbstractExecutorService implements ListeningExecutorService {
     private final ScheduledExecutorService timers;
     private final ExecutorService work;
+    private final ExecutorService callbacks;
     private final ExecutionScoper scoper;
     private final ThreadLocal<TaskMetricEmitter> currentTask;
     private final ThreadLocal<Tracer> currentTracer;
@@ -35,11 +37,32 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
     private final ScopedObjects scope;
     private final TaskContext rootContext;
     private final AtomicInteger threadIdSource;
+    private final ProgramDeadline deadline;
+    private final boolean traced;
+    // listeners run scoped, but on the unbounded callbacks executor rather than through work (which may be a bulkhead)
+    private final Executor listeners = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            callbacks.execute(wrap(command));
+        }
+    };
 
     public ScopedTracingExecutor(ScheduledExecutorService timers, ExecutorService work, ExecutionScoper scoper, TaskMetricEmitter task, Tracer tracer, Timeout timeout, ExecutionScope scope) {
+        this(timers, work, scoper, task, tracer, timeout, scope, TimeoutMode.PER_TASK);
+    }
+
+    public ScopedTracingExecutor(ScheduledExecutorService timers, ExecutorService work, ExecutionScoper scoper, TaskMetricEmitter task, Tracer tracer, Timeout timeout, ExecutionScope scope, TimeoutMode timeoutMode) {
+        this(timers, work, scoper, task, tracer, timeout, scope, timeoutMode, true);
+    }
+
+    /**
+     * @param traced false to skip starting a tracer and naming the thread for each task (for unsampled executions)
+     */
+    public ScopedTracingExecutor(ScheduledExecutorService timers, ExecutorService work, ExecutionScoper scoper, TaskMetricEmitter task, Tracer tracer, Timeout timeout, ExecutionScope scope, TimeoutMode timeoutMode, boolean traced) {
         this.rootContext = new TaskContext(task, tracer, timeout);
         this.timers = timers;
         this.work = work;
+        this.callbacks = work;
         this.scoper = scoper;
         this.task = task;
         this.timeout = timeout;
@@ -52,19 +75,27 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
                 .bind(Tracer.class, new CurrentThreadTracer(currentTracer))
                 .bind(Key.get(TaskContext.class, Names.named("rootContext")), new TaskContext(task, tracer, timeout)));
         this.threadIdSource = new AtomicInteger(0);
+        this.deadline = timeoutMode == TimeoutMode.PROGRAM_DEADLINE ? new ProgramDeadline(timers, timeout) : null;
+        this.traced = traced;
     }
 
-    protected ScopedTracingExecutor(ScheduledExecutorService timers, ExecutorService work, ExecutionScoper scoper, ThreadLocal<TaskMetricEmitter> currentTask, ThreadLocal<Tracer> currentTracer, TaskMetricEmitter task, Timeout timeout, ScopedObjects scope, TaskContext rootContext, AtomicInteger threadIdSource) {
+    /**
+     * @param callbacks the (unbounded) executor running the listeners of the futures this executor returns
+     */
+    protected ScopedTracingExecutor(ScheduledExecutorService timers, ExecutorService work, ExecutorService callbacks, ExecutionScoper scoper, ThreadLocal<TaskMetricEmitter> currentTask, ThreadLocal<Tracer> currentTracer, TaskMetricEmitter task, Timeout timeout, ScopedObjects scope, TaskContext rootContext, AtomicInteger threadIdSource, ProgramDeadline deadline, boolean traced) {
         this.currentTracer = currentTracer;
         this.currentTask = currentTask;
         this.timers = timers;
         this.work = work;
+        this.callbacks = callbacks;
         this.scoper = scoper;
         this.task = task;
         this.timeout = timeout;
         this.scope = scope;
         this.rootContext = rootContext;
         this.threadIdSource = threadIdSource;
+        this.deadline = deadline;
+        this.traced = traced;
     }
 
     public ScopedTracingExecutor createSubExecutor(TaskContext context) {
@@ -72,7 +103,35 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
         if (currentTask == null) {
             currentTask = task;
         }
-        return new ScopedTracingExecutor(timers, work, scoper, this.currentTask, this.currentTracer, currentTask, context.timeout, scope, context, threadIdSource);
+        return new ScopedTracingExecutor(timers, work, callbacks, scoper, this.currentTask, this.currentTracer, currentTask, context.timeout, scope, context, threadIdSource, deadline, traced);
+    }
+
+    /**
+     * Create a sub-executor whose tasks are admitted to the work pool through bulkhead. The listeners of the futures
+     * it returns run on the work pool directly, so they never wait for (or are rejected by) the bulkhead.
+     */
+    public ScopedTracingExecutor createSubExecutor(TaskContext context, Bulkhead bulkhead) {
+        TaskMetricEmitter currentTask = this.currentTask.get();
+        if (currentTask == null) {
+            currentTask = task;
+        }
+        return new ScopedTracingExecutor(timers, bulkhead.wrap(work, currentTask, context.timeout), callbacks, scoper, this.currentTask, this.currentTracer, currentTask, context.timeout, scope, context, threadIdSource, deadline, traced);
+    }
+
+    /**
+     * Release the program's deadline timer (if any) once the program has ended.
+     */
+    public void finish() {
+        if (deadline != null) {
+            deadline.close();
+        }
+    }
+
+    /**
+     * @return true if this program runs under a {@link TimeoutMode#PROGRAM_DEADLINE} which has fired
+     */
+    public boolean isDeadlineExpired() {
+        return deadline != null && deadline.isExpired();
     }
 
     @Override
@@ -112,17 +171,32 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
 
     @Override
     public ListenableFuture<?> submit(Runnable task) {
-        return wrapResult((ListenableFuture<?>) super.submit(task));
+        try {
+            return wrapResult((ListenableFuture<?>) super.submit(task));
+        } catch (YQLRuntimeException | RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(e);
+        }
     }
 
     @Override
     public <T> ListenableFuture<T> submit(Runnable task, @Nullable T result) {
-        return wrapResult((ListenableFuture<T>) super.submit(task, result));
+        try {
+            return wrapResult((ListenableFuture<T>) super.submit(task, result));
+        } catch (YQLRuntimeException | RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(e);
+        }
     }
 
+    /**
+     * A task the work pool (or a bulkhead) refuses fails its future rather than throwing.
+     */
     @Override
     public <T> ListenableFuture<T> submit(Callable<T> task) {
-        return wrapResult((ListenableFuture<T>) super.submit(task));
+        try {
+            return wrapResult((ListenableFuture<T>) super.submit(task));
+        } catch (YQLRuntimeException | RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(e);
+        }
     }
 
     public <T> ListenableFuture<T> submitAsync(Callable<ListenableFuture<T>> task) {
@@ -138,8 +212,12 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
                 try {
                     scoper.enter(scope);
                     currentTask.set(task.start(new MetricDimension()));
-                    currentTracer.set(rootContext.tracer.start("thread", name));
-                    thread.setName(name + ": " + currentTask.get().dimensions());
+                    if (traced) {
+                        currentTracer.set(rootContext.tracer.start("thread", name));
+                        thread.setName(name + ": " + currentTask.get().dimensions());
+                    } else {
+                        currentTracer.set(rootContext.tracer);
+                    }
                     if (timeout.check()) {
                         command.run();
                     } else {
@@ -153,11 +231,13 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
                     }
                     currentTask.remove();
                     Tracer tracer = currentTracer.get();
-                    if (tracer != null) {
+                    if (tracer != null && traced) {
                         tracer.end();
                     }
                     currentTracer.remove();
-                    thread.setName(name);
+                    if (traced) {
+                        thread.setName(name);
+                    }
                 }
             }
         };
@@ -186,6 +266,20 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
                     public void onSuccess(@Nullable ListenableFuture<T> next) {
                         try {
                             long remaining = tracker.verify();
+                            if (deadline != null && !deadline.isTighter(tracker)) {
+                                Futures.addCallback(deadline.register(next), new FutureCallback<T>() {
+                                    @Override
+                                    public void onSuccess(T out) {
+                                        result.set(out);
+                                    }
+
+                                    @Override
+                                    public void onFailure(Throwable t) {
+                                        result.setException(t);
+                                    }
+                                }, listeners);
+                                return;
+                            }
                             final ScheduledFuture<?> remainingFuture = timers.schedule(new TimeoutTask<>(next, result, remaining, units), remaining, units);
                             Futures.addCallback(next, new FutureCallback<T>() {
                                 @Override
@@ -199,7 +293,7 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
                                     remainingFuture.cancel(false);
                                     result.setException(t);
                                 }
-                            }, ScopedTracingExecutor.this);
+                            }, listeners);
                         } catch (TimeoutException e) {
                             next.cancel(true);
                             result.setException(e);
@@ -216,6 +310,10 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
     }
 
     public <T> ListenableFuture<T> withTimeout(final ListenableFuture<T> source, Timeout timeout) {
+        if (deadline != null && !deadline.isTighter(timeout)) {
+            // the program's deadline timer covers this task
+            return new WrappedListenableFuture<>(deadline.register(source));
+        }
         return withTimeout(source, timeout.remainingTicks(), timeout.getTickUnits());
     }
 
@@ -291,8 +389,8 @@ public final class ScopedTracingExecutor extends AbstractExecutorService impleme
 
         @Override
         public void addListener(Runnable listener, Executor exec) {
-            // what is the best way to handle this? for now, force usage of our scoped executor
-            super.addListener(listener, ScopedTracingExecutor.this);
+            // what is the best way to handle this? for now, force usage of our scoped executor (but not our bulkhead)
+            super.addListener(listener, listeners);
         }
     }
 }
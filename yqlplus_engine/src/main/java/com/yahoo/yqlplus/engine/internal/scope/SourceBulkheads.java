@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.scope;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * Per-source concurrency limits. Calls to a listed source (by its namespace name, e.g. "foo.bar") are run on the
+ * work pool through that source's {@link Bulkhead}; other sources are unaffected.
+ *
+ * Bind an instance with an OptionalBinder to override the default of no limits.
+ */
+public final class SourceBulkheads {
+    public static final SourceBulkheads NONE = new Builder().build();
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    private SourceBulkheads(Map<String, Bulkhead> bulkheads) {
+        this.bulkheads = ImmutableMap.copyOf(bulkheads);
+    }
+
+    public boolean contains(String sourceName) {
+        return sourceName != null && bulkheads.containsKey(sourceName);
+    }
+
+    /**
+     * @return the bulkhead for sourceName, or null if it is not limited
+     */
+    public Bulkhead get(String sourceName) {
+        return sourceName == null ? null : bulkheads.get(sourceName);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final Map<String, Bulkhead> bulkheads = Maps.newLinkedHashMap();
+
+        public Builder limit(String sourceName, int maxConcurrent, int maxQueued) {
+            bulkheads.put(sourceName, new Bulkhead(sourceName, maxConcurrent, maxQueued));
+            return this;
+        }
+
+        public SourceBulkheads build() {
+            return new SourceBulkheads(bulkheads);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SourceBulkheads{" + bulkheads.keySet() + '}';
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.scope;
+
+/**
+ * How the program executor enforces timeouts on the tasks it forks.
+ *
+ * Bind a value with an OptionalBinder to override the default of PER_TASK.
+ */
+public enum TimeoutMode {
+    /**
+     * Schedule a timer for every forked task.
+     */
+    PER_TASK,
+    /**
+     * Schedule one timer per program at the deadline of its root timeout, failing every task still outstanding when
+     * it fires. Tasks with a tighter timeout (e.g. from @TimeoutBudget or a TIMEOUT clause) still get their own timer.
+     */
+    PROGRAM_DEADLINE
+}
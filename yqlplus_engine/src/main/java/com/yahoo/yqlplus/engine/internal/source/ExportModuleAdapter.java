@@ -46,6 +46,13 @@ public class ExportModuleAdapter implements ModuleType {
         this.fields = fields;
     }
 
+    /**
+     * @return an adapter for the same module class without the module instance of the program this one was used in
+     */
+    ExportModuleAdapter copy() {
+        return new ExportModuleAdapter(type, moduleName, methods, fields);
+    }
+
     @Override
     public OperatorNode<PhysicalExprOperator> call(Location location, ContextPlanner context, String name, List<OperatorNode<ExpressionOperator>> arguments) {
         return callInRowContext(location, context, name, arguments, null);
@@ -105,7 +105,7 @@ public class ExportUnitGenerator extends SourceApiGenerator {
         }
 
 
-        public ModuleType create() {
+        public ExportModuleAdapter create() {
             return new ExportModuleAdapter(target.type(), sourceName, methods, fields);
         }
 
@@ -225,6 +225,10 @@ public class ExportUnitGenerator extends SourceApiGenerator {
      * @return
      */
     public ModuleType apply(List<String> path, Provider<? extends Exports> input) {
+        return createAdapter(path, input);
+    }
+
+    ExportModuleAdapter createAdapter(List<String> path, Provider<? extends Exports> input) {
         String sourceName = Joiner.on(".").join(path);
         Exports source = input.get();
         final Class<? extends Exports> clazz = source.getClass();
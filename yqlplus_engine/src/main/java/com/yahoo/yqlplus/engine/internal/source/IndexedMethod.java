@@ -6,6 +6,7 @@
 
 package com.yahoo.yqlplus.engine.internal.source;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.yahoo.yqlplus.api.index.IndexDescriptor;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitCreator;
@@ -19,6 +20,7 @@ import com.yahoo.yqlplus.language.operator.OperatorNode;
 import com.yahoo.yqlplus.language.parser.Location;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class IndexedMethod {
@@ -57,6 +59,13 @@ public class IndexedMethod {
     }
 
     protected OperatorNode<PhysicalExprOperator> createInvocation(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> key, List<OperatorNode<PhysicalExprOperator>> moreArguments) {
+        return createInvocation(location, source, planner, key, moreArguments, null);
+    }
+
+    /**
+     * @param bulkhead if not null, the name of the source whose bulkhead the invocation is forked through
+     */
+    protected OperatorNode<PhysicalExprOperator> createInvocation(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> key, List<OperatorNode<PhysicalExprOperator>> moreArguments, String bulkhead) {
         List<OperatorNode<PhysicalExprOperator>> callArgs = Lists.newArrayListWithExpectedSize(2);
         callArgs.add(source);
         callArgs.add(OperatorNode.create(PhysicalExprOperator.CURRENT_CONTEXT));
@@ -68,10 +77,13 @@ public class IndexedMethod {
                 invoker.getReturnType().isPromise() ? PhysicalExprOperator.ASYNC_INVOKE : PhysicalExprOperator.INVOKE,
                 invoker,
                 callArgs);
+        Map<String, Object> fork = bulkhead == null ? ImmutableMap.<String, Object>of() : ImmutableMap.<String, Object>of(PhysicalExprOperator.BULKHEAD, bulkhead);
         if (minimumBudget > 0 || maximumBudget > 0) {
             OperatorNode<PhysicalExprOperator> ms = planner.constant(TimeUnit.MILLISECONDS);
             OperatorNode<PhysicalExprOperator> subContext = OperatorNode.create(PhysicalExprOperator.TIMEOUT_GUARD, planner.constant(minimumBudget), ms, planner.constant(maximumBudget), ms);
-            return OperatorNode.create(PhysicalExprOperator.WITH_CONTEXT, subContext, OperatorNode.create(PhysicalExprOperator.ENFORCE_TIMEOUT, invocation));
+            return OperatorNode.create(PhysicalExprOperator.WITH_CONTEXT, subContext, OperatorNode.create(Location.NONE, fork, PhysicalExprOperator.ENFORCE_TIMEOUT, invocation));
+        } else if (bulkhead != null) {
+            return OperatorNode.create(Location.NONE, fork, PhysicalExprOperator.ENFORCE_TIMEOUT, invocation);
         }
         return invocation;
     }
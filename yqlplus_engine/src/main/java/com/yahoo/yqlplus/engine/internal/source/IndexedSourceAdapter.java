@@ -75,7 +75,7 @@ public class IndexedSourceAdapter extends IndexedSourceType {
         if (selectAll == null) {
             throw new ProgramCompileException(location, "Source '%s' does not enable SCAN (all @Query methods have @Key or @CompoundKey arguments)", this.name);
         }
-        return selectAll.scan(location, createSource(location, planner, args), planner, state);
+        return selectAll.scan(location, createSource(location, planner, args), planner, state, bulkhead(planner));
     }
 
     @Override
@@ -86,6 +86,10 @@ public class IndexedSourceAdapter extends IndexedSourceType {
         return insert.insert(location, createSource(location, planner, args), planner, state, records);
     }
 
+    private String bulkhead(ContextPlanner planner) {
+        return planner.hasBulkhead(name) ? name : null;
+    }
+
     private OperatorNode<PhysicalExprOperator> createSource(Location location, ContextPlanner planner, List<OperatorNode<PhysicalExprOperator>> arguments) {
         return planner.computeExpr(
                 OperatorNode.create(location, PhysicalExprOperator.INJECT_MEMBERS,
@@ -104,7 +108,7 @@ public class IndexedSourceAdapter extends IndexedSourceType {
         }
         for (IndexKey idx : split.keySet()) {
             Collection<IndexQuery> todo = split.get(idx);
-            selectMap.get(idx).index(out, location, sourceAdapter, planner, Lists.newArrayList(todo));
+            selectMap.get(idx).index(out, location, sourceAdapter, planner, Lists.newArrayList(todo), bulkhead(planner));
         }
     }
 
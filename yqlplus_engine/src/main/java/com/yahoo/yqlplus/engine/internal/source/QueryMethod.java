@@ -26,21 +26,53 @@ import com.yahoo.yqlplus.language.parser.ProgramCompileException;
 import java.util.List;
 
 class QueryMethod extends IndexedMethod {
+    private final List<String> orderedBy;
+    private final int batchSize;
+    private final long estimatedRows;
+
     public QueryMethod(TypeWidget rowType, TypeWidget adapterType, GambitCreator.Invocable invoker, boolean singleton, boolean async, long minimumBudget, long maximumBudget) {
         this(null, QueryType.SCAN, rowType, adapterType, invoker, singleton, async, minimumBudget, maximumBudget);
     }
 
     public QueryMethod(IndexDescriptor descriptor, QueryType indexType, TypeWidget rowType, TypeWidget adapterType, GambitCreator.Invocable invoker, boolean singleton, boolean async, long minimumBudget, long maximumBudget) {
+        this(descriptor, indexType, rowType, adapterType, invoker, singleton, async, minimumBudget, maximumBudget, ImmutableList.<String>of());
+    }
+
+    public QueryMethod(IndexDescriptor descriptor, QueryType indexType, TypeWidget rowType, TypeWidget adapterType, GambitCreator.Invocable invoker, boolean singleton, boolean async, long minimumBudget, long maximumBudget, List<String> orderedBy) {
+        this(descriptor, indexType, rowType, adapterType, invoker, singleton, async, minimumBudget, maximumBudget, orderedBy, 0);
+    }
+
+    /**
+     * @param batchSize for a BATCH method, the most keys to pass in one call (or 0 for no limit)
+     */
+    public QueryMethod(IndexDescriptor descriptor, QueryType indexType, TypeWidget rowType, TypeWidget adapterType, GambitCreator.Invocable invoker, boolean singleton, boolean async, long minimumBudget, long maximumBudget, List<String> orderedBy, int batchSize) {
+        this(descriptor, indexType, rowType, adapterType, invoker, singleton, async, minimumBudget, maximumBudget, orderedBy, batchSize, -1L);
+    }
+
+    /**
+     * @param estimatedRows the declared number of rows a call returns (or -1 if unknown)
+     */
+    public QueryMethod(IndexDescriptor descriptor, QueryType indexType, TypeWidget rowType, TypeWidget adapterType, GambitCreator.Invocable invoker, boolean singleton, boolean async, long minimumBudget, long maximumBudget, List<String> orderedBy, int batchSize, long estimatedRows) {
         super(minimumBudget, rowType, maximumBudget, invoker, indexType, singleton, async, descriptor);
+        this.orderedBy = orderedBy;
+        this.batchSize = batchSize;
+        this.estimatedRows = estimatedRows;
     }
 
     public void index(List<StreamValue> out, Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, List<IndexedSourceType.IndexQuery> todo) {
+        index(out, location, source, planner, todo, null);
+    }
+
+    /**
+     * @param bulkhead if not null, the name of the source whose bulkhead calls are forked through
+     */
+    public void index(List<StreamValue> out, Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, List<IndexedSourceType.IndexQuery> todo, String bulkhead) {
         StreamValue cursor = createKeyCursor(planner, location, todo);
         switch (type) {
             case BATCH: {
                 // we're a batch API, so we need to get ALL of the queries (and we're not going to handle any followup filters)
                 // we only support a single @Key argument and we need a list of keys
-                StreamValue result = executeCall(location, source, planner, cursor.materializeValue());
+                StreamValue result = batchSize > 0 ? executeChunks(location, source, planner, cursor, bulkhead) : executeCall(location, source, planner, cursor.materializeValue(), bulkhead);
                 if (todo.size() == 1) {
                     IndexedSourceType.IndexQuery q = todo.get(0);
                     if (!q.handledFilter) {
@@ -57,7 +89,11 @@ class QueryMethod extends IndexedMethod {
                 // except we need to be sure we only emit a given key tuple once... and intersect any filters
                 ExprScope functionScope = new ExprScope();
                 functionScope.addArgument("$key");
-                OperatorNode<FunctionOperator> function = functionScope.createFunction(createInvocation(location, source, planner, OperatorNode.create(PhysicalExprOperator.LOCAL, "$key")));
+                OperatorNode<FunctionOperator> function = functionScope.createFunction(createInvocation(location, source, planner, OperatorNode.create(PhysicalExprOperator.LOCAL, "$key"), (String) null));
+                if (bulkhead != null) {
+                    // SCATTER already forks each call; fork them through the bulkhead instead of the shared pool
+                    function.putAnnotation(PhysicalExprOperator.BULKHEAD, bulkhead);
+                }
                 cursor.add(source.getLocation(), StreamOperator.SCATTER, function);
                 if (!singleton) {
                     cursor.add(source.getLocation(), StreamOperator.FLATTEN);
@@ -80,21 +116,52 @@ class QueryMethod extends IndexedMethod {
         }
     }
 
-    private OperatorNode<PhysicalExprOperator> createInvocation(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> key) {
-        return super.createInvocation(location, source, planner, key, ImmutableList.<OperatorNode<PhysicalExprOperator>>of());
+    private OperatorNode<PhysicalExprOperator> createInvocation(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> key, String bulkhead) {
+        return super.createInvocation(location, source, planner, key, ImmutableList.<OperatorNode<PhysicalExprOperator>>of(), bulkhead);
     }
 
     public StreamValue scan(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, PlanChain.LocalChainState state) {
+        return scan(location, source, planner, state, null);
+    }
+
+    public StreamValue scan(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, PlanChain.LocalChainState state, String bulkhead) {
         Preconditions.checkArgument(type == QueryType.SCAN);
-        return executeCall(location, source, planner, null);
+        return executeCall(location, source, planner, null, bulkhead);
+    }
+
+    /**
+     * Split the keys into chunks of at most batchSize and call once per chunk, in parallel (as SINGLE methods are
+     * called once per key). The results are concatenated in chunk order, so rows still come back in key order -- but
+     * the declared ordering of each call's rows no longer holds for the whole result.
+     */
+    private StreamValue executeChunks(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, StreamValue cursor, String bulkhead) {
+        cursor.add(location, StreamOperator.CHUNK, planner.constant(batchSize));
+        ExprScope functionScope = new ExprScope();
+        functionScope.addArgument("$keys");
+        OperatorNode<FunctionOperator> function = functionScope.createFunction(createInvocation(location, source, planner, OperatorNode.create(PhysicalExprOperator.LOCAL, "$keys"), (String) null));
+        if (bulkhead != null) {
+            function.putAnnotation(PhysicalExprOperator.BULKHEAD, bulkhead);
+        }
+        cursor.add(location, StreamOperator.SCATTER, function);
+        if (singleton) {
+            OperatorNode<FunctionOperator> isNotNull = OperatorNode.create(FunctionOperator.FUNCTION, ImmutableList.of("$$"),
+                    OperatorNode.create(PhysicalExprOperator.NOT, OperatorNode.create(PhysicalExprOperator.IS_NULL, OperatorNode.create(PhysicalExprOperator.LOCAL, "$$"))));
+            cursor.add(location, StreamOperator.FILTER, isNotNull);
+        } else {
+            cursor.add(location, StreamOperator.FLATTEN);
+        }
+        return cursor;
     }
 
-    private StreamValue executeCall(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> cursor) {
-        OperatorNode<PhysicalExprOperator> result = createInvocation(location, source, planner, cursor);
+    private StreamValue executeCall(Location location, OperatorNode<PhysicalExprOperator> source, ContextPlanner planner, OperatorNode<PhysicalExprOperator> cursor, String bulkhead) {
+        OperatorNode<PhysicalExprOperator> result = createInvocation(location, source, planner, cursor, bulkhead);
         if (singleton) {
             return StreamValue.singleton(planner, result);
         }
-        return StreamValue.iterate(planner, result);
+        StreamValue rows = StreamValue.iterate(planner, result);
+        rows.setOrderedBy(orderedBy);
+        rows.setEstimatedRows(estimatedRows);
+        return rows;
     }
 
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.source;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.yahoo.yqlplus.api.Exports;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.engine.internal.bytecode.ASMClassSource;
+import com.yahoo.yqlplus.engine.internal.bytecode.GeneratedClassCache;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitSource;
+import com.yahoo.yqlplus.engine.internal.plan.ContextPlanner;
+import com.yahoo.yqlplus.engine.internal.plan.ModuleType;
+import com.yahoo.yqlplus.engine.internal.plan.SourceType;
+import com.yahoo.yqlplus.language.parser.ProgramCompileException;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Engine-wide registry of the classes generated to adapt Source and Exports classes.
+ *
+ * An adapter is generated (into an ASMClassSource of its own) the first time a program uses its source or module, and
+ * every later program links against the adapter's class loader instead of generating the adapter again. Adapters are
+ * keyed by path and provider, so the registry is only for providers which stay the same for the life of the engine and
+ * always provide the same class (such as the Guice bindings of MultibinderPlannerNamespace); the key is built without
+ * invoking the provider. Other namespaces generate their adapters into each program. The registry is bounded; an
+ * evicted adapter stays loaded until the programs linked against it are collected.
+ *
+ * When a {@link GeneratedClassCache} is bound the adapters are generated into each program as before, so the cached
+ * classes of a program do not refer to classes generated outside of it.
+ */
+@Singleton
+public class SourceAdapterRegistry {
+    static final int MAXIMUM_SIZE = 1024;
+
+    private final Provider<ASMClassSource> classSources;
+    private final boolean shared;
+    private final Cache<Key, Adapter<SourceType>> sources = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+    private final Cache<Key, Adapter<ExportModuleAdapter>> modules = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    @Inject
+    SourceAdapterRegistry(Provider<ASMClassSource> classSources, GeneratedClassCache classCache) {
+        this.classSources = classSources;
+        this.shared = classCache == GeneratedClassCache.NONE;
+    }
+
+    public SourceType findSource(ContextPlanner planner, final List<String> path, final Provider<? extends Source> provider) {
+        if (!shared) {
+            return new SourceUnitGenerator(planner.getGambitScope()).apply(path, provider);
+        }
+        Adapter<SourceType> adapter = get(sources, new Key(path, provider), new Callable<Adapter<SourceType>>() {
+            @Override
+            public Adapter<SourceType> call() throws Exception {
+                ASMClassSource classSource = classSources.get();
+                SourceType type = new SourceUnitGenerator(new GambitSource(classSource)).apply(path, provider);
+                classSource.build();
+                return new Adapter<>(classSource.getClassLoader(), type);
+            }
+        });
+        planner.getGambitScope().addClassLoader(adapter.classLoader);
+        return adapter.type;
+    }
+
+    public ModuleType findModule(ContextPlanner planner, final List<String> path, final Provider<? extends Exports> provider) {
+        if (!shared) {
+            return new ExportUnitGenerator(planner.getGambitScope()).apply(path, provider);
+        }
+        Adapter<ExportModuleAdapter> adapter = get(modules, new Key(path, provider), new Callable<Adapter<ExportModuleAdapter>>() {
+            @Override
+            public Adapter<ExportModuleAdapter> call() throws Exception {
+                ASMClassSource classSource = classSources.get();
+                ExportModuleAdapter type = new ExportUnitGenerator(new GambitSource(classSource)).createAdapter(path, provider);
+                classSource.build();
+                return new Adapter<>(classSource.getClassLoader(), type);
+            }
+        });
+        planner.getGambitScope().addClassLoader(adapter.classLoader);
+        // the module adapter holds the module instance of the program using it
+        return adapter.type.copy();
+    }
+
+    /**
+     * @return the number of adapters currently registered
+     */
+    public long size() {
+        return sources.size() + modules.size();
+    }
+
+    private static <T> Adapter<T> get(Cache<Key, Adapter<T>> cache, Key key, Callable<Adapter<T>> generator) {
+        try {
+            return cache.get(key, generator);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        } catch (ExecutionException e) {
+            throw new ProgramCompileException(e.getCause());
+        }
+    }
+
+    private static final class Adapter<T> {
+        final ClassLoader classLoader;
+        final T type;
+
+        Adapter(ClassLoader classLoader, T type) {
+            this.classLoader = classLoader;
+            this.type = type;
+        }
+    }
+
+    /**
+     * The generated adapter embeds its name and provider; the provider's binding fixes the class it is generated for.
+     */
+    private static final class Key {
+        final String name;
+        final Provider<?> provider;
+
+        Key(List<String> path, Provider<?> provider) {
+            this.name = Joiner.on('.').join(path);
+            this.provider = provider;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return provider == that.provider && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + System.identityHashCode(provider);
+        }
+    }
+}
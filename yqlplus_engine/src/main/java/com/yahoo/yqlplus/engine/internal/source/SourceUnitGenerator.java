@@ -8,6 +8,7 @@ package com.yahoo.yqlplus.engine.internal.source;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -16,14 +17,22 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.name.Named;
 import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Cached;
 import com.yahoo.yqlplus.api.annotations.CompoundKey;
 import com.yahoo.yqlplus.api.annotations.DefaultValue;
 import com.yahoo.yqlplus.api.annotations.Delete;
+import com.yahoo.yqlplus.api.annotations.Emitter;
+import com.yahoo.yqlplus.api.annotations.EstimatedRows;
+import com.yahoo.yqlplus.api.annotations.Injected;
 import com.yahoo.yqlplus.api.annotations.Insert;
 import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.NotIdempotent;
+import com.yahoo.yqlplus.api.annotations.OrderedBy;
 import com.yahoo.yqlplus.api.annotations.Query;
 import com.yahoo.yqlplus.api.annotations.Set;
 import com.yahoo.yqlplus.api.annotations.TimeoutBudget;
+import com.yahoo.yqlplus.api.annotations.TimeoutMilliseconds;
+import com.yahoo.yqlplus.api.annotations.Trace;
 import com.yahoo.yqlplus.api.annotations.Update;
 import com.yahoo.yqlplus.api.index.IndexDescriptor;
 import com.yahoo.yqlplus.api.trace.Tracer;
@@ -34,12 +43,16 @@ import com.yahoo.yqlplus.api.types.YQLTypeException;
 import com.yahoo.yqlplus.engine.TaskContext;
 import com.yahoo.yqlplus.engine.api.PropertyNotFoundException;
 import com.yahoo.yqlplus.engine.api.Record;
+import com.yahoo.yqlplus.engine.internal.bytecode.exprs.NullExpr;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitCreator;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.GambitScope;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.ObjectBuilder;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.PhysicalExprOperatorCompiler;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.ScopedBuilder;
 import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.StructBuilder;
+import com.yahoo.yqlplus.engine.internal.java.runtime.InvocationMemo;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SharedInvocation;
+import com.yahoo.yqlplus.engine.internal.java.runtime.SourceResultCache;
 import com.yahoo.yqlplus.engine.internal.plan.DispatchSourceTypeAdapter;
 import com.yahoo.yqlplus.engine.internal.plan.SourceType;
 import com.yahoo.yqlplus.engine.internal.plan.types.AssignableValue;
@@ -97,6 +110,12 @@ public class SourceUnitGenerator extends SourceApiGenerator {
         programName.annotate(Inject.class);
         programName.annotate(Named.class).put("value", "programName");
         adapter.addParameterField(programName);
+        ObjectBuilder.FieldBuilder memo = adapter.field("$memo", gambitScope.adapt(InvocationMemo.class, false));
+        memo.annotate(Inject.class);
+        adapter.addParameterField(memo);
+        ObjectBuilder.FieldBuilder resultCache = adapter.field("$resultCache", gambitScope.adapt(SourceResultCache.class, false));
+        resultCache.annotate(Inject.class);
+        adapter.addParameterField(resultCache);
 
         BytecodeExpression metric = gambitScope.constant(PhysicalExprOperatorCompiler.EMPTY_DIMENSION);
         metric = metricWith(cb, metric, "source", sourceName);
@@ -282,7 +301,33 @@ public class SourceUnitGenerator extends SourceApiGenerator {
 
             BytecodeExpression invocation = catchBody.invoke(Location.NONE, targetMethod, invocationArguments);
 
-            catchBody.set(Location.NONE, resultValue, invocation);
+            List<BytecodeExpression> shared = Lists.newArrayList();
+            if ("SELECT".equals(operation)) {
+                TypeWidget sharedType = gambitScope.adapt(SharedInvocation.class, false);
+                String invocationName = sourceName + ":" + method;
+                if (!method.isAnnotationPresent(NotIdempotent.class) && !clazz.isAnnotationPresent(NotIdempotent.class)) {
+                    // identical invocations within one execution share the first one's result
+                    shared.add(catchBody.invokeExact(Location.NONE, "begin", InvocationMemo.class, sharedType,
+                            catchBody.local("$memo"),
+                            catchBody.constant(invocationName),
+                            catchBody.array(Location.NONE, AnyTypeWidget.getInstance(), memoArguments(method, invocationArguments, catchBody))));
+                }
+                Cached cached = method.isAnnotationPresent(Cached.class) ? method.getAnnotation(Cached.class) : clazz.getAnnotation(Cached.class);
+                if (cached != null) {
+                    if (cached.ttlMilliseconds() <= 0 || cached.staleMilliseconds() < 0 || cached.maximumWeight() <= 0) {
+                        reportMethodException(method, "@Cached ttlMilliseconds and maximumWeight must be positive and staleMilliseconds must not be negative");
+                    }
+                    shared.add(catchBody.invokeExact(Location.NONE, "begin", SourceResultCache.class, sharedType,
+                            catchBody.local("$resultCache"),
+                            contextVar,
+                            catchBody.constant(invocationName),
+                            catchBody.constant(cached.ttlMilliseconds()),
+                            catchBody.constant(cached.staleMilliseconds()),
+                            catchBody.constant(cached.maximumWeight()),
+                            catchBody.array(Location.NONE, AnyTypeWidget.getInstance(), memoArguments(method, invocationArguments, catchBody))));
+                }
+            }
+            invokeShared(block, catchBody, resultValue, shared, invocation);
 
             block.exec(catchBlock.build());
             block.exec(finallyBody.invokeExact(Location.NONE, "end", TaskContext.class, BaseTypeAdapter.VOID, contextVar));
@@ -296,6 +341,59 @@ public class SourceUnitGenerator extends SourceApiGenerator {
         }
 
 
+        /**
+         * Assign resultValue the result of invocation, unless one of the SharedInvocations produced by shared (in
+         * order) supplies it.
+         */
+        private void invokeShared(GambitCreator.ScopeBuilder block, ScopedBuilder body, AssignableValue resultValue, List<BytecodeExpression> shared, BytecodeExpression invocation) {
+            if (shared.isEmpty()) {
+                body.set(Location.NONE, resultValue, invocation);
+                return;
+            }
+            TypeWidget sharedType = gambitScope.adapt(SharedInvocation.class, false);
+            AssignableValue sharedInvocation = block.allocate(sharedType);
+            block.set(Location.NONE, sharedInvocation, new NullExpr(sharedType));
+            GambitCreator.CatchBuilder catchBlock = body.tryCatchFinally();
+            ScopedBuilder tryBody = catchBlock.body();
+            tryBody.set(Location.NONE, sharedInvocation, shared.get(0));
+            GambitCreator.IfBuilder isShared = tryBody.createIf();
+            ScopedBuilder hit = isShared.when(tryBody.invokeExact(Location.NONE, "isShared", SharedInvocation.class, BaseTypeAdapter.BOOLEAN, sharedInvocation));
+            hit.set(Location.NONE, resultValue, hit.cast(resultValue.getType(), hit.invokeExact(Location.NONE, "await", SharedInvocation.class, AnyTypeWidget.getInstance(), sharedInvocation)));
+            tryBody.exec(isShared.build());
+            // await may hand the invocation over to us (if the one we waited for was abandoned), so ask again
+            GambitCreator.IfBuilder isOwned = tryBody.createIf();
+            ScopedBuilder miss = isOwned.when(tryBody.not(Location.NONE, tryBody.invokeExact(Location.NONE, "isShared", SharedInvocation.class, BaseTypeAdapter.BOOLEAN, sharedInvocation)));
+            invokeShared(block, miss, resultValue, shared.subList(1, shared.size()), invocation);
+            miss.exec(miss.invokeExact(Location.NONE, "complete", SharedInvocation.class, AnyTypeWidget.getInstance(), sharedInvocation, miss.cast(AnyTypeWidget.getInstance(), resultValue)));
+            tryBody.exec(isOwned.build());
+            ScopedBuilder failure = catchBlock.on("$e", Throwable.class);
+            failure.set(Location.NONE, resultValue, failure.cast(resultValue.getType(),
+                    failure.invokeStatic(Location.NONE, "fail", SharedInvocation.class, AnyTypeWidget.getInstance(), sharedInvocation, failure.local("$e"))));
+            body.exec(catchBlock.build());
+        }
+
+        /**
+         * The arguments identifying an invocation: its keys, @Set values and free arguments, but not the per-call
+         * context (timeout, tracer, emitter or injected values).
+         */
+        private List<BytecodeExpression> memoArguments(Method method, List<BytecodeExpression> invocationArguments, ScopedBuilder body) {
+            List<BytecodeExpression> result = Lists.newArrayList();
+            Annotation[][] annotations = method.getParameterAnnotations();
+            for (int i = 0; i < annotations.length; ++i) {
+                boolean context = false;
+                for (Annotation annotate : annotations[i]) {
+                    if (annotate instanceof TimeoutMilliseconds || annotate instanceof Injected || annotate instanceof Trace || annotate instanceof Emitter) {
+                        context = true;
+                    }
+                }
+                if (!context) {
+                    // the first invocation argument is the source itself
+                    result.add(body.cast(AnyTypeWidget.getInstance(), invocationArguments.get(i + 1)));
+                }
+            }
+            return result;
+        }
+
         public void addSelectMethod(final Method method) {
             TimeoutBudget budget = method.getAnnotation(TimeoutBudget.class);
             long minimumBudget = this.minimumBudget;
@@ -314,14 +412,28 @@ public class SourceUnitGenerator extends SourceApiGenerator {
             //    a single Record instance of the keys to do a lookup for if it's a SINGLE
             //    a list of Record instances of the keys to do a lookup for if it's a BATCH
 
+            List<String> orderedBy = readOrderedBy(method, builder.rowType);
+            int batchSize = method.getAnnotation(Query.class).batchSize();
+            if (batchSize < 0) {
+                reportMethodException(method, "@Query batchSize must not be negative (%d)", batchSize);
+            } else if (batchSize > 0 && !builder.batch) {
+                reportMethodException(method, "@Query batchSize only applies to batch methods (taking a List of keys)");
+            }
+            EstimatedRows estimatedRows = method.getAnnotation(EstimatedRows.class);
+            if (estimatedRows != null && estimatedRows.value() < 0) {
+                reportMethodException(method, "@EstimatedRows must not be negative (%d)", estimatedRows.value());
+            } else if (estimatedRows != null && !builder.isScan()) {
+                reportMethodException(method, "@EstimatedRows only applies to SCAN methods (no @Key/@CompoundKey arguments)");
+            }
             if (builder.isScan()) {
                 if (scanner != null) {
                     reportMethodException(method, "There can be only one @Query method for SCAN (no @Key/@CompoundKey arguments) (and one is already set)");
                 }
-                scanner = new QueryMethod(builder.rowType, target.type(), methodBuilder.invoker(), builder.singleton, builder.async, minimumBudget, maximumBudget);
+                scanner = new QueryMethod(null, QueryMethod.QueryType.SCAN, builder.rowType, target.type(), methodBuilder.invoker(), builder.singleton, builder.async, minimumBudget, maximumBudget, orderedBy, 0,
+                        estimatedRows != null ? estimatedRows.value() : -1L);
             } else if (builder.batch) {
                 IndexDescriptor descriptor = builder.indexBuilder.build();
-                final QueryMethod qm = new QueryMethod(descriptor, QueryMethod.QueryType.BATCH, builder.rowType, target.type(), methodBuilder.invoker(), builder.singleton, builder.async, minimumBudget, maximumBudget);
+                final QueryMethod qm = new QueryMethod(descriptor, QueryMethod.QueryType.BATCH, builder.rowType, target.type(), methodBuilder.invoker(), builder.singleton, builder.async, minimumBudget, maximumBudget, orderedBy, batchSize);
                 selectMap.put(descriptor, qm);
             } else {
                 // a single key at a time
@@ -331,6 +443,26 @@ public class SourceUnitGenerator extends SourceApiGenerator {
             }
         }
 
+        /**
+         * Each invocation of a SINGLE (one key at a time) method is ordered, but their concatenation is not; the
+         * declared ordering is only used for SCAN and BATCH methods.
+         */
+        private List<String> readOrderedBy(Method method, TypeWidget rowType) {
+            OrderedBy orderedBy = method.getAnnotation(OrderedBy.class);
+            if (orderedBy == null) {
+                return ImmutableList.of();
+            }
+            PropertyAdapter rowProperties = rowType.getPropertyAdapter();
+            for (String field : orderedBy.value()) {
+                try {
+                    rowProperties.getPropertyType(field);
+                } catch (PropertyNotFoundException e) {
+                    reportMethodException(method, "@OrderedBy('%s') property does not exist on return type %s", field, rowType.getTypeName());
+                }
+            }
+            return ImmutableList.copyOf(orderedBy.value());
+        }
+
         public void addInsertMethod(Method method) {
             if (insert != null) {
                 reportMethodException(method, "There can be only one @Insert method (and one is already set)");
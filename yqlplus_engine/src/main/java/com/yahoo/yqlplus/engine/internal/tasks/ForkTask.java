@@ -13,7 +13,7 @@ import java.util.Set;
 public class ForkTask extends Task {
     @Override
     public Set<Value> getInputs() {
-        Set<Value> values = Sets.newIdentityHashSet();
+        Set<Value> values = Sets.newLinkedHashSet();
         for (Task next : getNext()) {
             values.addAll(next.getInputs());
         }
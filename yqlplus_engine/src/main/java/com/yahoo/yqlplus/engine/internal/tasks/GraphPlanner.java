@@ -31,10 +31,10 @@ import java.util.Set;
  */
 public final class GraphPlanner {
     static class Node {
-        Set<Value> available = Sets.newIdentityHashSet();
-        Set<Step> inputs = Sets.newIdentityHashSet();
+        Set<Value> available = Sets.newLinkedHashSet();
+        Set<Step> inputs = Sets.newLinkedHashSet();
         List<Step> todo = Lists.newArrayList();
-        Set<Step> deps = Sets.newIdentityHashSet();
+        Set<Step> deps = Sets.newLinkedHashSet();
 
         RunTask run;
         Task next;
@@ -63,7 +63,7 @@ public final class GraphPlanner {
         }
         node.available.addAll(available);
         for (Step dst : node.deps) {
-            Set<Value> copy = Sets.newIdentityHashSet();
+            Set<Value> copy = Sets.newLinkedHashSet();
             copy.addAll(available);
             populateAvailable(nodes.get(dst), copy, nodes);
         }
@@ -81,7 +81,7 @@ public final class GraphPlanner {
 
         final boolean keepMergeSequential = planProgramCompileOptions != null && planProgramCompileOptions.isKeepMergeSequential();
 
-        Map<Step, Node> nodes = Maps.newIdentityHashMap();
+        Map<Step, Node> nodes = Maps.newLinkedHashMap();
 
         discover(root, nodes);
 
@@ -93,7 +93,7 @@ public final class GraphPlanner {
 
         for (Map.Entry<Step, Node> e : nodes.entrySet()) {
             if (e.getValue().inputs.isEmpty()) {
-                populateAvailable(e.getValue(), Sets.<Value>newIdentityHashSet(), nodes);
+                populateAvailable(e.getValue(), Sets.<Value>newLinkedHashSet(), nodes);
             }
         }
 
@@ -112,9 +112,12 @@ public final class GraphPlanner {
                 if (node.deps.size() == 1) {
                     // if we are the only input to that dep...
                     Step dep = Iterables.get(node.deps, 0);
-                    if (dep.getInputs().size() == 1) {
+                    Node target = nodes.get(dep);
+                    // keepMergeSequential checks the step's own inputs, which lets independent branches fold into one
+                    // sequential task once earlier merges have widened the target; otherwise check the target node
+                    int targetInputs = keepMergeSequential ? dep.getInputs().size() : target.inputs.size();
+                    if (targetInputs == 1) {
                         // then merge into that
-                        Node target = nodes.get(dep);
                         node.todo.addAll(target.todo);
                         target.todo = node.todo;
                         target.inputs.remove(key);
@@ -166,7 +169,7 @@ public final class GraphPlanner {
                 if (join == null) {
                     join = new JoinTask();
                     joinTasks.put(key, join);
-                    join.setAvailable(Sets.<Value>newIdentityHashSet());
+                    join.setAvailable(Sets.<Value>newLinkedHashSet());
                 }
                 join.addNext(n.run);
                 join.getAvailable().addAll(n.available);
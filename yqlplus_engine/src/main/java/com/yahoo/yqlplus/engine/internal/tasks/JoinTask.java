@@ -14,7 +14,7 @@ import java.util.Set;
  * Wait for the prior tasks to complete and then start the next tasks. A JoinTask with no further tasks is used to make a 'done' node.
  */
 public class JoinTask extends Task {
-    private Set<Task> priors = Sets.newIdentityHashSet();
+    private Set<Task> priors = Sets.newLinkedHashSet();
 
     public JoinTask() {
     }
@@ -25,7 +25,7 @@ public class JoinTask extends Task {
 
     @Override
     public Set<Value> getInputs() {
-        Set<Value> values = Sets.newIdentityHashSet();
+        Set<Value> values = Sets.newLinkedHashSet();
         for (Task next : getNext()) {
             values.addAll(next.getInputs());
         }
@@ -28,7 +28,7 @@ public final class RunTask extends Task {
     @Override
     public Set<Value> getInputs() {
         // we need a list of the values that we need, but do not compute ourselves
-        Set<Value> values = Sets.newIdentityHashSet();
+        Set<Value> values = Sets.newLinkedHashSet();
         for (Task next : getNext()) {
             values.addAll(next.getInputs());
         }
@@ -15,7 +15,7 @@ import java.util.Set;
  * A task is something to do or something to wait for followed by zero or more tasks.
  */
 public abstract class Task {
-    private Set<Task> start = Sets.newIdentityHashSet();
+    private Set<Task> start = Sets.newLinkedHashSet();
     private String name;
     private Set<Value> available = ImmutableSet.of();
 
@@ -6,18 +6,24 @@
 
 package com.yahoo.yqlplus.flow.internal.dynalink;
 
+import com.google.common.collect.ImmutableList;
 import org.dynalang.dynalink.DynamicLinker;
 import org.dynalang.dynalink.DynamicLinkerFactory;
-import org.dynalang.dynalink.MonomorphicCallSite;
 import org.dynalang.dynalink.linker.GuardingDynamicLinker;
 import org.dynalang.dynalink.support.CallSiteDescriptorFactory;
 
 import java.lang.invoke.CallSite;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public class FlowBootstrapper {
     private static final DynamicLinker dynamicLinker;
+    // call sites go away with the generated classes using them
+    private static final Set<PolymorphicCallSite> callSites = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<PolymorphicCallSite, Boolean>()));
 
     static {
         final DynamicLinkerFactory factory = new DynamicLinkerFactory();
@@ -26,13 +32,25 @@ public class FlowBootstrapper {
         dynamicLinker = factory.createLinker();
     }
 
+    private static CallSite link(PolymorphicCallSite callSite) {
+        callSites.add(callSite);
+        return dynamicLinker.link(callSite);
+    }
+
     public static CallSite publicBootstrap(@SuppressWarnings("unused") MethodHandles.Lookup caller, String name, MethodType type) {
-        return dynamicLinker.link(
-                new MonomorphicCallSite(CallSiteDescriptorFactory.create(MethodHandles.publicLookup(), name, type)));
+        return link(new PolymorphicCallSite(CallSiteDescriptorFactory.create(MethodHandles.publicLookup(), name, type)));
     }
 
     public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type) {
-        return dynamicLinker.link(
-                new MonomorphicCallSite(CallSiteDescriptorFactory.create(caller, name, type)));
+        return link(new PolymorphicCallSite(CallSiteDescriptorFactory.create(caller, name, type)));
+    }
+
+    /**
+     * @return the live dynamic call sites, with their relink counters (to spot sites which never stabilize)
+     */
+    public static List<PolymorphicCallSite> getCallSites() {
+        synchronized (callSites) {
+            return ImmutableList.copyOf(callSites);
+        }
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.flow.internal.dynalink;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.dynalang.dynalink.CallSiteDescriptor;
+import org.dynalang.dynalink.linker.GuardedInvocation;
+import org.dynalang.dynalink.support.AbstractRelinkableCallSite;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A call site chaining the guarded invocations it has been linked to, so a site which sees a few different receiver
+ * types (a MERGE of two sources, say) settles down once it has seen each of them instead of relinking on every switch.
+ *
+ * Once the chain is full the site goes megamorphic: it stops chaining and links each call afresh (through the linker's
+ * relink-and-invoke fallback) without changing its target again.
+ */
+public final class PolymorphicCallSite extends AbstractRelinkableCallSite {
+    public static final int DEFAULT_MAX_CHAIN_LENGTH = 8;
+
+    private final int maxChainLength;
+    private final AtomicLong relinks = new AtomicLong();
+    private List<GuardedInvocation> chain = ImmutableList.of();
+    private volatile boolean megamorphic;
+
+    public PolymorphicCallSite(CallSiteDescriptor descriptor, int maxChainLength) {
+        super(descriptor);
+        this.maxChainLength = maxChainLength;
+    }
+
+    public PolymorphicCallSite(CallSiteDescriptor descriptor) {
+        this(descriptor, DEFAULT_MAX_CHAIN_LENGTH);
+    }
+
+    @Override
+    public void relink(GuardedInvocation invocation, MethodHandle fallback) {
+        relinks.incrementAndGet();
+        if (megamorphic) {
+            // the fallback links (and then invokes) each call; leave it in place without contending for the lock
+            return;
+        }
+        synchronized (this) {
+            if (megamorphic) {
+                return;
+            }
+            List<GuardedInvocation> next = Lists.newArrayListWithCapacity(chain.size() + 1);
+            for (GuardedInvocation linked : chain) {
+                if (!linked.hasBeenInvalidated()) {
+                    next.add(linked);
+                }
+            }
+            if (next.size() >= maxChainLength) {
+                chain = ImmutableList.of();
+                setTarget(fallback);
+                megamorphic = true;
+                return;
+            }
+            next.add(invocation);
+            link(next, fallback);
+        }
+    }
+
+    @Override
+    public synchronized void resetAndRelink(GuardedInvocation invocation, MethodHandle fallback) {
+        relinks.incrementAndGet();
+        megamorphic = false;
+        link(ImmutableList.of(invocation), fallback);
+    }
+
+    private void link(List<GuardedInvocation> invocations, MethodHandle fallback) {
+        // the most recently linked invocation is tested last
+        MethodHandle target = fallback;
+        for (GuardedInvocation linked : Lists.reverse(invocations)) {
+            target = linked.compose(target);
+        }
+        chain = invocations;
+        setTarget(target);
+    }
+
+    public String getName() {
+        return getDescriptor().getName();
+    }
+
+    /**
+     * @return the number of times this site has been relinked (including each call while it is megamorphic)
+     */
+    public long getRelinkCount() {
+        return relinks.get();
+    }
+
+    public synchronized int getChainLength() {
+        return chain.size();
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "[relinks=" + getRelinkCount() + ", chain=" + getChainLength() + (megamorphic ? ", megamorphic]" : "]");
+    }
+}
@@ -173,6 +173,11 @@ public class CompilingTestBase implements ViewRegistry, SourceNamespace, ModuleN
 
                 }
 
+                @Override
+                public void bindArguments(Object[] arguments) {
+
+                }
+
                 @Override
                 public void run() {
 
@@ -225,6 +230,11 @@ public class CompilingTestBase implements ViewRegistry, SourceNamespace, ModuleN
             public OperatorNode<PhysicalExprOperator> constant(Object value) {
                 return CompilingTestBase.this.constant(value);
             }
+
+            @Override
+            public OperatorNode<PhysicalExprOperator> evaluateOnce(OperatorNode<PhysicalExprOperator> expr) {
+                return expr;
+            }
         };
         DynamicExpressionEvaluator eval = new DynamicExpressionEvaluator(env);
         return eval.apply(op);
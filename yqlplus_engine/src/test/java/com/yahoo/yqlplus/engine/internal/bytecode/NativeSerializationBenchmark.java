@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.bytecode;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.yahoo.yqlplus.engine.internal.plan.types.base.Dynamic;
+import org.testng.Assert;
+import org.testng.Reporter;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the generated serializers linked for "yql:serialize:json" with Jackson's reflective serialization of the
+ * same values.
+ *
+ * The timing is opt-in: it is skipped unless -Dyqlplus.benchmark.iterations=N is set, and reports to the TestNG
+ * report rather than the console.
+ */
+public class NativeSerializationBenchmark extends CompilingTestBase {
+    private static final MappingJsonFactory JSON_FACTORY = new MappingJsonFactory();
+    private static final Integer ITERATIONS = Integer.getInteger("yqlplus.benchmark.iterations");
+
+    public static class Item {
+        private final int id;
+        private final String name;
+        private final double price;
+        private final boolean available;
+        private final List<String> tags;
+        private final Map<String, String> attributes;
+
+        public Item(int id, String name, double price, boolean available, List<String> tags, Map<String, String> attributes) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.available = available;
+            this.tags = tags;
+            this.attributes = attributes;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public boolean getAvailable() {
+            return available;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+    }
+
+    private MethodHandle serializeJson;
+    private Item item;
+
+    @BeforeMethod
+    public void setUpSerializer() {
+        serializeJson = Dynamic.link(MethodHandles.lookup(), "yql:serialize:json",
+                MethodType.methodType(void.class, Object.class, JsonGenerator.class),
+                Dynamic.createDynamicLinker(source)).dynamicInvoker();
+        item = new Item(1, "hat", 12.5, true, ImmutableList.of("red", "wool"), ImmutableMap.of("size", "m"));
+    }
+
+    private void writeGenerated(ByteArrayOutputStream out, Object value) throws Throwable {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        serializeJson.invokeExact(value, generator);
+        generator.close();
+    }
+
+    private void writeReflective(ByteArrayOutputStream out, Object value) throws Throwable {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.writeObject(value);
+        generator.close();
+    }
+
+    private JsonNode parse(ByteArrayOutputStream out) throws Exception {
+        return JSON_FACTORY.createParser(out.toByteArray()).readValueAsTree();
+    }
+
+    @Test
+    public void requireGeneratedMatchesReflective() throws Throwable {
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        writeGenerated(generated, item);
+        ByteArrayOutputStream reflective = new ByteArrayOutputStream();
+        writeReflective(reflective, item);
+        // field order may differ, so compare the trees as JSON objects rather than as iterables
+        JsonNode expected = parse(reflective);
+        JsonNode actual = parse(generated);
+        Assert.assertTrue(actual.equals(expected), actual + " != " + expected);
+    }
+
+    @Test
+    public void benchmarkGeneratedAgainstReflective() throws Throwable {
+        if (ITERATIONS == null) {
+            throw new SkipException("set -Dyqlplus.benchmark.iterations to run the benchmark");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // warm up both paths before timing them
+        for (int i = 0; i < ITERATIONS; ++i) {
+            out.reset();
+            writeGenerated(out, item);
+            out.reset();
+            writeReflective(out, item);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            out.reset();
+            writeGenerated(out, item);
+        }
+        long generated = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            out.reset();
+            writeReflective(out, item);
+        }
+        long reflective = System.nanoTime() - start;
+        Reporter.log(String.format("serialize json: generated %d ns/op, reflective %d ns/op",
+                generated / ITERATIONS, reflective / ITERATIONS));
+    }
+}
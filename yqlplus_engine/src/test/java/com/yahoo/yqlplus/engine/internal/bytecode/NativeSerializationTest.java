@@ -21,13 +21,11 @@ import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
 
-// Disable the tests in this test class for now
-// These tests are used for gateway implementation
 public class NativeSerializationTest extends CompilingTestBase {
 
     public static final MappingJsonFactory MAPPING_JSON_FACTORY = new MappingJsonFactory();
 
-    @Test(enabled = false)
+    @Test
     public void requireJsonNativeEncoding() throws Exception {
         defineView("s1", "EVALUATE [{'id' : 1, 'name' : 'title', 'category' : 'hats'}, {'id' : 2, 'name' : 'pants', 'category' : 'hats'}]");
         ByteArrayOutputStream outputStream = runQueryProgramSerialized(NativeEncoding.JSON, "SELECT * FROM s1 WHERE id = 1");
@@ -35,7 +33,7 @@ public class NativeSerializationTest extends CompilingTestBase {
                 (JsonNode)MAPPING_JSON_FACTORY.createParser("[{\"id\" : 1, \"name\" : \"title\", \"category\" : \"hats\"}]").readValueAsTree());
     }
 
-    @Test(enabled = false)
+    @Test
     public void requireJsonNativePrimitives() throws Exception {
         ByteArrayOutputStream outputStream = runQueryProgramSerialized(NativeEncoding.JSON, "SELECT * FROM psource",
                 new SourceBindingModule("psource", new PrimitiveSource(ImmutableList.of(new PrimitiveRecord('a', (byte)1, (short)2, 3, 4, true, 1.0f, 1.0))))
@@ -74,7 +72,7 @@ public class NativeSerializationTest extends CompilingTestBase {
     /**
      * This one verifies that the "view" seen by the native serializer is the struct-view (same as one can evaluate expressions from) and not being sent directly to Jackson.
      */
-    @Test(enabled = false)
+    @Test
     public void requireNativeIsNotJackson() throws Exception {
         ByteArrayOutputStream outputStream = runQueryProgramSerialized(NativeEncoding.JSON, "SELECT * FROM somesource",
                 new SourceBindingModule("somesource",new SomeRecordSource(new SomeRecord("joe")))
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public class InSetTest {
+    @Test
+    public void requireSmallAndSetsUnchanged() {
+        List<Integer> small = ImmutableList.of(1, 2, 3);
+        Set<Integer> set = ImmutableSet.of(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        Assert.assertSame(InSet.of(small), small);
+        Assert.assertSame(InSet.of(set), set);
+        Assert.assertNull(InSet.of(null));
+    }
+
+    @Test
+    public void requireLongSet() {
+        List<Long> values = Lists.newArrayList();
+        for (long i = 0; i < 1000; ++i) {
+            values.add(i * 1024L);
+            values.add(i * 1024L);
+        }
+        values.add(Long.MIN_VALUE);
+        Collection<?> set = InSet.of(values);
+        Assert.assertEquals(set.size(), 1001);
+        Assert.assertEquals(Sets.newHashSet(set), Sets.newHashSet(values));
+        for (long i = 0; i < 1000; ++i) {
+            Assert.assertTrue(set.contains(i * 1024L));
+            Assert.assertFalse(set.contains(i * 1024L + 1));
+        }
+        Assert.assertTrue(set.contains(Long.MIN_VALUE));
+        // membership keeps equals() semantics
+        Assert.assertFalse(set.contains(1024));
+        Assert.assertFalse(set.contains(null));
+    }
+
+    @Test
+    public void requireIntegerSet() {
+        Collection<?> set = InSet.of(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, -8));
+        Assert.assertTrue(set.contains(-8));
+        Assert.assertTrue(set.contains(0));
+        Assert.assertFalse(set.contains(8));
+        Assert.assertFalse(set.contains(0L));
+    }
+
+    @Test
+    public void requireStringSet() {
+        List<String> values = Lists.newArrayList();
+        for (int i = 0; i < 1000; ++i) {
+            values.add("k" + i);
+        }
+        Collection<?> set = InSet.of(values);
+        Assert.assertEquals(set.size(), 1000);
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertTrue(set.contains("k" + i));
+        }
+        Assert.assertFalse(set.contains("k1000"));
+        Assert.assertFalse(set.contains(1));
+        Assert.assertFalse(set.contains(null));
+    }
+
+    @Test
+    public void requireMixedSet() {
+        Collection<?> set = InSet.of(Arrays.<Object>asList(1, 2L, "3", null, 5, 6, 7, 8));
+        Assert.assertTrue(set.contains(1));
+        Assert.assertTrue(set.contains(2L));
+        Assert.assertTrue(set.contains("3"));
+        Assert.assertTrue(set.contains(null));
+        Assert.assertFalse(set.contains(2));
+    }
+}
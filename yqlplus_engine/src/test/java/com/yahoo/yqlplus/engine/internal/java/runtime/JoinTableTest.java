@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class JoinTableTest {
+    private static final List<Object> MISSING = ImmutableList.of();
+
+    @Test
+    public void requireLongJoinTable() {
+        LongJoinTable table = new LongJoinTable();
+        for (long i = 0; i < 1000; ++i) {
+            table.add(i * 1024L, "a" + i);
+            table.add(i * 1024L, "b" + i);
+        }
+        table.add(-1L, "negative");
+        table.add(Long.MIN_VALUE, "min");
+        for (long i = 0; i < 1000; ++i) {
+            Assert.assertEquals(table.get(i * 1024L, MISSING), ImmutableList.of("a" + i, "b" + i));
+        }
+        Assert.assertEquals(table.get(-1L, MISSING), ImmutableList.of("negative"));
+        Assert.assertEquals(table.get(Long.MIN_VALUE, MISSING), ImmutableList.of("min"));
+        Assert.assertSame(table.get(1L, MISSING), MISSING);
+    }
+
+    @Test
+    public void requireStringJoinTable() {
+        StringJoinTable table = new StringJoinTable();
+        for (int i = 0; i < 1000; ++i) {
+            table.add("k" + i, i);
+        }
+        // "Aa" and "BB" have the same hashCode
+        table.add("Aa", "Aa");
+        table.add("BB", "BB");
+        table.add(null, "null");
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(table.get("k" + i, MISSING), ImmutableList.of(i));
+        }
+        Assert.assertEquals(table.get("Aa", MISSING), ImmutableList.of("Aa"));
+        Assert.assertEquals(table.get("BB", MISSING), ImmutableList.of("BB"));
+        Assert.assertEquals(table.get(null, MISSING), ImmutableList.of("null"));
+        Assert.assertSame(table.get("missing", MISSING), MISSING);
+        Assert.assertSame(new StringJoinTable().get(null, MISSING), MISSING);
+    }
+
+    private List<List<Object>> join(SmallerSideJoin.Objects join, List<Object> left, List<Object> right) {
+        for (Object key : left) {
+            join.left(key);
+        }
+        for (Object row : right) {
+            join.right(row, row);
+        }
+        join.finish();
+        List<List<Object>> output = Lists.newArrayList();
+        for (Object ignored : left) {
+            output.add(join.next(MISSING));
+        }
+        return output;
+    }
+
+    @Test
+    public void requireSmallerSideJoin() {
+        List<Object> small = ImmutableList.<Object>of("a", "b", "a");
+        List<Object> big = ImmutableList.<Object>of("a", "c", "a", "b", "d");
+        // hash the left side
+        SmallerSideJoin.Objects buildLeft = new SmallerSideJoin.Objects(small, big);
+        Assert.assertTrue(buildLeft.isBuildLeft());
+        Assert.assertEquals(join(buildLeft, small, big), ImmutableList.of(ImmutableList.of("a", "a"), ImmutableList.of("b"), ImmutableList.of("a", "a")));
+        // hash the right side
+        SmallerSideJoin.Objects buildRight = new SmallerSideJoin.Objects(big, small);
+        Assert.assertFalse(buildRight.isBuildLeft());
+        Assert.assertEquals(join(buildRight, big, small),
+                ImmutableList.of(ImmutableList.of("a", "a"), MISSING, ImmutableList.of("a", "a"), ImmutableList.of("b"), MISSING));
+    }
+
+    @Test
+    public void requireSmallerSideJoinLongs() {
+        SmallerSideJoin.Longs join = new SmallerSideJoin.Longs(ImmutableList.<Object>of("x", "y"), ImmutableList.of(1, 2, 3));
+        Assert.assertTrue(join.isBuildLeft());
+        join.left(2L);
+        join.left(4L);
+        join.right(1L, "one");
+        join.right(2L, "two");
+        join.right(2L, "deux");
+        join.finish();
+        Assert.assertEquals(join.next(MISSING), ImmutableList.of("two", "deux"));
+        Assert.assertSame(join.next(MISSING), MISSING);
+    }
+}
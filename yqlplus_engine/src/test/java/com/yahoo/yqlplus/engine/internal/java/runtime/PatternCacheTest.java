@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.yahoo.yqlplus.engine.internal.operations.Like;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.regex.PatternSyntaxException;
+
+public class PatternCacheTest {
+    @Test
+    public void requireShared() {
+        Assert.assertSame(PatternCache.like("a%"), PatternCache.like("a%"));
+        Assert.assertSame(PatternCache.regex("a.*"), PatternCache.regex("a.*"));
+        Assert.assertEquals(PatternCache.like("a%").getShape(), Like.Shape.PREFIX);
+        Assert.assertTrue(PatternCache.regex("a.*").matcher("abc").matches());
+    }
+
+    @Test
+    public void requireNullPattern() {
+        Assert.assertNull(PatternCache.like(null));
+        Assert.assertNull(PatternCache.regex(null));
+    }
+
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void requireInvalidRegex() {
+        PatternCache.regex("[");
+    }
+}
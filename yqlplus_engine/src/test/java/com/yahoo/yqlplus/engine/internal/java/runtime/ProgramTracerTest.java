@@ -206,4 +206,44 @@ public class ProgramTracerTest {
 
     }
 
+    @Test
+    public void testUnsampledProgramTracer() throws IOException {
+        DummyTicker ticker = new DummyTicker();
+        ProgramTracer tracer = new ProgramTracer(ticker, false, false, "program", "program");
+        Assert.assertFalse(tracer.isSampled());
+
+        Tracer t1 = tracer.start("group", "name01");
+        Tracer t2 = t1.start("group2", "name%02d", 2);
+        Assert.assertSame(t1, t2);
+        Assert.assertFalse(ProgramTracer.isRecording(t1));
+        Assert.assertTrue(ProgramTracer.isRecording(new ProgramTracer(ticker, false, true, "program", "program").start("group", "name01")));
+        t2.fine("message");
+        ticker.setValue(MILLISECONDS.toNanos(10L));
+        t2.error("failure");
+        t2.end();
+        ticker.setValue(MILLISECONDS.toNanos(20L));
+
+        TraceRequest req = tracer.createTrace();
+        Assert.assertEquals(req.getEntries().size(), 1);
+        TraceEntry root = req.getEntries().get(0);
+        Assert.assertEquals(root.getName(), "program");
+        Assert.assertEquals(root.getEndTicks(), MILLISECONDS.toNanos(20L));
+        Assert.assertEquals(req.getLog().size(), 1);
+        Assert.assertEquals(req.getLog().get(0).getTraceId(), root.getId());
+        Assert.assertEquals(req.getLog().get(0).get(), "failure");
+    }
+
+    @Test
+    public void testTracingPolicy() {
+        Assert.assertTrue(TracingPolicy.FULL.sample(false));
+        Assert.assertFalse(TracingPolicy.OFF.sample(false));
+        Assert.assertTrue(TracingPolicy.OFF.sample(true));
+        Assert.assertFalse(TracingPolicy.sampled(0.0).sample(false));
+        Assert.assertTrue(TracingPolicy.sampled(1.0).sample(false));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTracingPolicyRate() {
+        TracingPolicy.sampled(1.5);
+    }
 }
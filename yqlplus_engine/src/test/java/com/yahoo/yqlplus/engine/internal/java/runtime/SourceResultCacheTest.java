@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import com.yahoo.cloud.metrics.api.DummyStandardRequestEmitter;
+import com.yahoo.cloud.metrics.api.MetricDimension;
+import com.yahoo.cloud.metrics.api.RequestEvent;
+import com.yahoo.cloud.metrics.api.RequestMetricSink;
+import com.yahoo.yqlplus.engine.DummyTracer;
+import com.yahoo.yqlplus.engine.TaskContext;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class SourceResultCacheTest {
+    private ProgramTracerTest.DummyTicker ticker;
+    private SourceResultCache cache;
+    private TaskContext context;
+
+    @BeforeMethod
+    public void setUp() {
+        ticker = new ProgramTracerTest.DummyTicker();
+        cache = new SourceResultCache(ticker);
+        context = new TaskContext(new DummyStandardRequestEmitter(new MetricDimension(), new RequestMetricSink() {
+            @Override
+            public void emitRequest(RequestEvent requestEvent) {
+
+            }
+        }), new DummyTracer(), new TimeoutTracker(30L, TimeUnit.SECONDS, new RelativeTicker(Ticker.systemTicker())));
+    }
+
+    private SharedInvocation begin(String key) {
+        return cache.begin(context, "method", 100L, 1000L, 10L, new Object[]{key});
+    }
+
+    @Test
+    public void requireHit() {
+        SharedInvocation load = begin("a");
+        Assert.assertFalse(load.isShared());
+        load.complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(99L));
+        SharedInvocation hit = begin("a");
+        Assert.assertTrue(hit.isShared());
+        Assert.assertEquals(hit.await(), "first");
+        Assert.assertFalse(begin("b").isShared());
+    }
+
+    @Test
+    public void requireSingleFlight() {
+        SharedInvocation load = begin("a");
+        SharedInvocation waiter = begin("a");
+        Assert.assertFalse(load.isShared());
+        Assert.assertTrue(waiter.isShared());
+        load.complete("first");
+        Assert.assertEquals(waiter.await(), "first");
+    }
+
+    @Test
+    public void requireFailureNotCached() {
+        SharedInvocation load = begin("a");
+        SharedInvocation waiter = begin("a");
+        IllegalStateException failure = new IllegalStateException("failed");
+        try {
+            SharedInvocation.fail(load, failure);
+            Assert.fail("Expected the failure to be rethrown");
+        } catch (IllegalStateException e) {
+            Assert.assertSame(e, failure);
+        }
+        try {
+            waiter.await();
+            Assert.fail("Expected the failure to be shared");
+        } catch (IllegalStateException e) {
+            Assert.assertSame(e, failure);
+        }
+        Assert.assertFalse(begin("a").isShared());
+    }
+
+    @Test
+    public void requireTimedOutLoadTakenOver() throws Exception {
+        final SharedInvocation load = begin("a");
+        SharedInvocation waiter = begin("a");
+        Assert.assertTrue(waiter.isShared());
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SharedInvocation.fail(load, new TimeoutException());
+                } catch (Exception expected) {
+                }
+            }
+        });
+        loader.start();
+        // the loader's timeout is not the waiter's: it retries the load instead
+        Assert.assertNull(waiter.await());
+        loader.join();
+        Assert.assertFalse(waiter.isShared());
+        SharedInvocation second = begin("a");
+        Assert.assertTrue(second.isShared());
+        waiter.complete("first");
+        Assert.assertEquals(second.await(), "first");
+        Assert.assertEquals(begin("a").await(), "first");
+    }
+
+    @Test
+    public void requireWaitBoundedByTimeout() {
+        begin("a");
+        context = new TaskContext(context.metricEmitter, context.tracer, new TimeoutTracker(10L, MILLISECONDS, new RelativeTicker(Ticker.systemTicker())));
+        SharedInvocation waiter = begin("a");
+        try {
+            waiter.await();
+            Assert.fail("Expected the wait to time out");
+        } catch (Exception e) {
+            Assert.assertTrue(e instanceof TimeoutException, e.toString());
+        }
+    }
+
+    @Test
+    public void requireStaleWhileRevalidate() {
+        begin("a").complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(150L));
+        SharedInvocation reload = begin("a");
+        Assert.assertFalse(reload.isShared());
+        SharedInvocation stale = begin("a");
+        Assert.assertTrue(stale.isShared());
+        Assert.assertEquals(stale.await(), "first");
+        reload.complete("second");
+        SharedInvocation fresh = begin("a");
+        Assert.assertTrue(fresh.isShared());
+        Assert.assertEquals(fresh.await(), "second");
+    }
+
+    @Test
+    public void requireFailedReloadRetried() {
+        begin("a").complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(150L));
+        SharedInvocation reload = begin("a");
+        try {
+            SharedInvocation.fail(reload, new IllegalStateException());
+            Assert.fail("Expected the failure to be rethrown");
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertFalse(begin("a").isShared());
+    }
+
+    @Test
+    public void requireExpiry() {
+        begin("a").complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(1101L));
+        Assert.assertFalse(begin("a").isShared());
+    }
+
+    @Test
+    public void requireWeightBound() {
+        begin("a").complete(ImmutableList.of(1, 2, 3, 4, 5, 6));
+        begin("b").complete(ImmutableList.of(1, 2, 3, 4, 5, 6));
+        Assert.assertFalse(begin("a").isShared());
+    }
+
+    @Test
+    public void requireAsyncReloadServesStaleUntilResolved() {
+        begin("a").complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(150L));
+        SettableFuture<Object> second = SettableFuture.create();
+        begin("a").complete(second);
+        Assert.assertEquals(begin("a").await(), "first");
+        second.set("second");
+        Assert.assertSame(begin("a").await(), second);
+    }
+
+    @Test
+    public void requireFailedAsyncReloadKeepsStale() {
+        begin("a").complete("first");
+        ticker.setValue(MILLISECONDS.toNanos(150L));
+        SettableFuture<Object> second = SettableFuture.create();
+        begin("a").complete(second);
+        second.setException(new IllegalStateException());
+        // the stale result is still there for the next invocation to retry the reload
+        SharedInvocation retry = begin("a");
+        Assert.assertFalse(retry.isShared());
+        Assert.assertEquals(begin("a").await(), "first");
+    }
+
+    @Test
+    public void requireAsyncLoadShared() {
+        SettableFuture<Object> first = SettableFuture.create();
+        begin("a").complete(first);
+        SharedInvocation waiter = begin("a");
+        Assert.assertTrue(waiter.isShared());
+        Assert.assertSame(waiter.await(), first);
+        first.set("first");
+        Assert.assertSame(begin("a").await(), first);
+    }
+
+    @Test
+    public void requireAsyncWeighedByResult() {
+        SettableFuture<Object> first = SettableFuture.create();
+        begin("a").complete(first);
+        first.set(ImmutableList.of(1, 2, 3, 4, 5, 6));
+        SettableFuture<Object> second = SettableFuture.create();
+        begin("b").complete(second);
+        second.set(ImmutableList.of(1, 2, 3, 4, 5, 6));
+        Assert.assertFalse(begin("a").isShared());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.guice.TimerWheelModule;
+import com.yahoo.yqlplus.engine.guice.VirtualThreadPoolModule;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLRuntimeException;
+import com.yahoo.yqlplus.engine.java.JavaTestModule;
+import com.yahoo.yqlplus.engine.java.Person;
+import com.yahoo.yqlplus.engine.java.SourceBindingModule;
+import com.yahoo.yqlplus.engine.sources.TimeoutSource;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimerWheelExecutorTest {
+    private TimerWheelExecutor wheel;
+
+    @BeforeMethod
+    public void setUp() {
+        // a small wheel so longer delays wrap around it
+        wheel = new TimerWheelExecutor(5L, TimeUnit.MILLISECONDS, 4);
+    }
+
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        wheel.shutdown();
+        Assert.assertTrue(wheel.awaitTermination(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void requireSchedule() throws Exception {
+        long start = System.nanoTime();
+        ScheduledFuture<String> future = wheel.schedule(() -> "done", 50L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(future.get(5L, TimeUnit.SECONDS), "done");
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50L));
+        Assert.assertEquals(wheel.getBacklog(), 0);
+    }
+
+    @Test
+    public void requireOrdering() throws Exception {
+        final List<Integer> fired = Lists.newCopyOnWriteArrayList();
+        final CountDownLatch latch = new CountDownLatch(3);
+        for (final int delay : new int[]{60, 20, 40}) {
+            wheel.schedule(() -> {
+                fired.add(delay);
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        Assert.assertEquals(fired, ImmutableList.of(20, 40, 60));
+    }
+
+    @Test
+    public void requireCancel() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        List<ScheduledFuture<?>> futures = Lists.newArrayList();
+        for (int i = 0; i < 1000; ++i) {
+            futures.add(wheel.schedule(count::incrementAndGet, 30L + i % 10, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(wheel.getBacklog(), 1000);
+        for (ScheduledFuture<?> future : futures) {
+            Assert.assertTrue(future.cancel(false));
+        }
+        ScheduledFuture<?> marker = wheel.schedule(() -> null, 60L, TimeUnit.MILLISECONDS);
+        marker.get(5L, TimeUnit.SECONDS);
+        Assert.assertEquals(count.get(), 0);
+        Assert.assertEquals(wheel.getBacklog(), 0);
+    }
+
+    @Test
+    public void requirePeriodic() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        ScheduledFuture<?> future = wheel.scheduleAtFixedRate(latch::countDown, 0L, 10L, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        future.cancel(false);
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    private Injector createInjector() {
+        return Guice.createInjector(new JavaTestModule(), new SourceBindingModule("timers", TimeoutSource.class), new TimerWheelModule());
+    }
+
+    @Test
+    public void requireTimerWheelModule() throws Exception {
+        Injector injector = createInjector();
+        Assert.assertTrue(injector.getInstance(Key.get(ScheduledExecutorService.class, Names.named("timeout"))) instanceof TimerWheelExecutor);
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM timers(10) TIMEOUT 5000 OUTPUT as f1;");
+        Assert.assertEquals(program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult(), ImmutableList.of(new Person("1", "1", 1)));
+    }
+
+    @Test
+    public void requireCombinesWithWorkPool() throws Exception {
+        // the wheel only replaces the timeout executor, so it goes along with another work pool
+        Injector injector = Guice.createInjector(Modules.override(new JavaTestModule(), new SourceBindingModule("timers", TimeoutSource.class))
+                .with(new VirtualThreadPoolModule()), new TimerWheelModule());
+        Assert.assertTrue(injector.getInstance(Key.get(ScheduledExecutorService.class, Names.named("timeout"))) instanceof TimerWheelExecutor);
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM timers(10) TIMEOUT 5000 OUTPUT as f1;");
+        Assert.assertEquals(program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult(), ImmutableList.of(new Person("1", "1", 1)));
+    }
+
+    @Test
+    public void requireTimeoutFires() throws Exception {
+        YQLPlusCompiler compiler = createInjector().getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM timers(2000) TIMEOUT 50 OUTPUT as f1;");
+        try {
+            program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+            Assert.fail("should fail with a timeout");
+        } catch (YQLRuntimeException | ExecutionException e) {
+            Assert.assertTrue(e.getMessage().contains("Timeout"), e.getMessage());
+        }
+    }
+}
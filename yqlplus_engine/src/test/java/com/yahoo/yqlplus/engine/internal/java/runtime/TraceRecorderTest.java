@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.java.runtime;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.yahoo.yqlplus.api.trace.TraceEntry;
+import com.yahoo.yqlplus.api.trace.TraceLogEntry;
+import com.yahoo.yqlplus.api.trace.TraceRequest;
+import com.yahoo.yqlplus.api.trace.Tracer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TraceRecorderTest {
+    private static final int THREADS = 8;
+    private static final int TASKS = 200;
+
+    @Test
+    public void requireConcurrentRecordsMerged() throws Exception {
+        final ProgramTracer tracer = new ProgramTracer(new ProgramTracerTest.DummyTicker(), true, "program", "program");
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (int t = 0; t < THREADS; ++t) {
+                futures.add(pool.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        for (int i = 0; i < TASKS; ++i) {
+                            Tracer child = tracer.start("group", "task");
+                            child.fine("message");
+                            child.end();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        TraceRequest trace = tracer.createTrace();
+        Assert.assertEquals(trace.getEntries().size(), THREADS * TASKS + 1);
+        Assert.assertEquals(trace.getLog().size(), THREADS * TASKS);
+        Set<Integer> ids = Sets.newHashSet();
+        for (TraceEntry entry : trace.getEntries()) {
+            Assert.assertTrue(ids.add(entry.getId()), "duplicate id " + entry.getId());
+        }
+        for (TraceLogEntry log : trace.getLog()) {
+            Assert.assertTrue(ids.contains(log.getTraceId()));
+        }
+    }
+
+    @Test
+    public void requireOrderedByStart() {
+        ProgramTracerTest.DummyTicker ticker = new ProgramTracerTest.DummyTicker();
+        ProgramTracer tracer = new ProgramTracer(ticker, true, "program", "program");
+        for (int i = 0; i < 40; ++i) {
+            ticker.setValue(i);
+            tracer.start("group", "task" + i).end();
+        }
+        List<? extends TraceEntry> entries = tracer.createTrace().getEntries();
+        Assert.assertEquals(entries.size(), 41);
+        Assert.assertEquals(entries.get(0).getName(), "program");
+        for (int i = 0; i < 40; ++i) {
+            Assert.assertEquals(entries.get(i + 1).getName(), "task" + i);
+        }
+    }
+
+    @Test
+    public void requireIdBlockKeptPerThread() throws Exception {
+        // more threads than slots, so some share a slot; each keeps its own buffer (and id block) as they interleave
+        final TraceRecorder recorder = new TraceRecorder();
+        final int threads = 4 * Runtime.getRuntime().availableProcessors() + 1;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Integer>>> futures = Lists.newArrayList();
+            for (int t = 0; t < threads; ++t) {
+                futures.add(pool.submit(new Callable<List<Integer>>() {
+                    @Override
+                    public List<Integer> call() throws Exception {
+                        List<Integer> ids = Lists.newArrayList();
+                        for (int i = 0; i < 8; ++i) {
+                            barrier.await();
+                            ids.add(recorder.nextId());
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            for (Future<List<Integer>> future : futures) {
+                List<Integer> ids = future.get();
+                for (int i = 1; i < ids.size(); ++i) {
+                    Assert.assertEquals((int) ids.get(i), ids.get(0) + i, ids.toString());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
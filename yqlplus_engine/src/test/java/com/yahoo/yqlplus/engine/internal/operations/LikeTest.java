@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.operations;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class LikeTest {
+    @DataProvider(name = "shapes")
+    public Object[][] shapes() {
+        return new Object[][]{
+                {"abc", Like.Shape.EXACT, "abc"},
+                {"", Like.Shape.EXACT, ""},
+                {"abc%", Like.Shape.PREFIX, "abc"},
+                {"%abc", Like.Shape.SUFFIX, "abc"},
+                {"%abc%", Like.Shape.CONTAINS, "abc"},
+                {"%", Like.Shape.CONTAINS, ""},
+                {"%%", Like.Shape.CONTAINS, ""},
+                {"a%c", Like.Shape.PATTERN, null},
+                {"a_c", Like.Shape.PATTERN, null},
+                {"abc%%", Like.Shape.PATTERN, null},
+        };
+    }
+
+    @Test(dataProvider = "shapes")
+    public void requireShape(String pattern, Like.Shape shape, String literal) {
+        Like like = Like.compile(pattern);
+        Assert.assertEquals(like.getShape(), shape);
+        Assert.assertEquals(like.getLiteral(), literal);
+    }
+
+    @DataProvider(name = "matches")
+    public Object[][] matches() {
+        return new Object[][]{
+                {"abc", "abc", true},
+                {"abc", "abcd", false},
+                {"abc%", "abcd", true},
+                {"abc%", "xabc", false},
+                {"%abc", "xabc", true},
+                {"%abc", "abcx", false},
+                {"%abc%", "xabcx", true},
+                {"%abc%", "xabx", false},
+                {"%", "", true},
+                {"a%c", "abbbc", true},
+                {"a%c", "abbb", false},
+                {"a_c", "abc", true},
+                {"a_c", "abbc", false},
+                // line terminators are ordinary characters
+                {"a%", "a\nb", true},
+                {"a%c", "a\nc", true},
+                // regex metacharacters in the pattern match themselves
+                {"a.c", "abc", false},
+                {"a.c", "a.c", true},
+                {"a.%_", "a.bc", true},
+                {"(a)%", "(a)b", true},
+        };
+    }
+
+    @Test(dataProvider = "matches")
+    public void requireMatches(String pattern, String input, boolean expected) {
+        Assert.assertEquals(Like.compile(pattern).matches(input), expected);
+        Assert.assertEquals(Like.compileLike(pattern).matcher(input).matches(), expected);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.scope;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.annotations.TimeoutBudget;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.java.JavaTestModule;
+import com.yahoo.yqlplus.engine.java.Person;
+import com.yahoo.yqlplus.engine.java.SourceBindingModule;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProgramDeadlineTest {
+    public static class PersonSource implements Source {
+        @Query
+        public List<Person> lookup(@Key("id") String id) throws InterruptedException {
+            if (id.startsWith("slow")) {
+                Thread.sleep(2000L);
+            }
+            return ImmutableList.of(new Person(id, "joe", 0));
+        }
+    }
+
+    @TimeoutBudget(minimumMilliseconds = 1, maximumMilliseconds = 50)
+    public static class BudgetSource implements Source {
+        @Query
+        public List<Person> lookup(@Key("id") String id) throws InterruptedException {
+            Thread.sleep(2000L);
+            return ImmutableList.of(new Person(id, "joe", 0));
+        }
+    }
+
+    private static class CountingTimers extends ScheduledThreadPoolExecutor {
+        final AtomicInteger scheduled = new AtomicInteger();
+
+        CountingTimers() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            scheduled.incrementAndGet();
+            return super.schedule(command, delay, unit);
+        }
+    }
+
+    private CompiledProgram compile(final CountingTimers timers, final TimeoutMode mode, String query) throws Exception {
+        return Guice.createInjector(Modules.override(new JavaTestModule(),
+                new SourceBindingModule("folks", PersonSource.class, "budget", BudgetSource.class))
+                .with(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        OptionalBinder.newOptionalBinder(binder(), com.google.inject.Key.get(ScheduledExecutorService.class, Names.named("timeout")))
+                                .setBinding().toInstance(timers);
+                    }
+                }, new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        OptionalBinder.newOptionalBinder(binder(), com.google.inject.Key.get(TimeoutMode.class))
+                                .setBinding().toInstance(mode);
+                    }
+                }))
+                .getInstance(YQLPlusCompiler.class)
+                .compile(query);
+    }
+
+    @Test
+    public void requireSingleTimer() throws Exception {
+        String query = "SELECT * FROM folks WHERE id IN ('1', '2', '3', '4', '5', '6', '7', '8') OUTPUT AS f1;";
+        CountingTimers perTask = new CountingTimers();
+        List<Person> people = compile(perTask, TimeoutMode.PER_TASK, query).run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 8);
+        CountingTimers deadline = new CountingTimers();
+        people = compile(deadline, TimeoutMode.PROGRAM_DEADLINE, query).run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 8);
+        Assert.assertEquals(deadline.scheduled.get(), 1);
+        Assert.assertTrue(perTask.scheduled.get() >= 8, "per-task timers: " + perTask.scheduled.get());
+        perTask.shutdown();
+        deadline.shutdown();
+    }
+
+    @Test
+    public void requireDeadlineFires() throws Exception {
+        CountingTimers timers = new CountingTimers();
+        CompiledProgram program = compile(timers, TimeoutMode.PROGRAM_DEADLINE, "SELECT * FROM folks WHERE id IN ('1', 'slow') OUTPUT AS f1;");
+        try {
+            program.run(ImmutableMap.<String, Object>of(), true, 100L, TimeUnit.MILLISECONDS).getResult("f1").get().getResult();
+            Assert.fail("should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getMessage().contains("Timeout"), e.getMessage());
+        }
+        timers.shutdown();
+    }
+
+    @Test
+    public void requireTighterBudgetTimer() throws Exception {
+        CountingTimers timers = new CountingTimers();
+        CompiledProgram program = compile(timers, TimeoutMode.PROGRAM_DEADLINE, "SELECT * FROM budget WHERE id = '1' OUTPUT AS f1;");
+        long start = System.nanoTime();
+        try {
+            program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+            Assert.fail("should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getMessage().contains("Timeout"), e.getMessage());
+        }
+        // the 50ms budget fires well before the program's own deadline
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1L));
+        Assert.assertTrue(timers.scheduled.get() >= 1);
+        timers.shutdown();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.internal.tasks;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.yahoo.yqlplus.engine.internal.compiler.streams.PlanProgramCompileOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class GraphPlannerTest {
+    static class TestStep implements Step, Value {
+        private final String name;
+        private final Set<Value> inputs;
+
+        TestStep(String name, Value... inputs) {
+            this.name = name;
+            this.inputs = ImmutableSet.copyOf(inputs);
+        }
+
+        @Override
+        public Set<? extends Value> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        public Value getOutput() {
+            return this;
+        }
+
+        @Override
+        public boolean isAsync() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Step getSource() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static List<String> steps(Task task) {
+        List<String> names = Lists.newArrayList();
+        for (Step step : ((RunTask) task).getSteps()) {
+            names.add(step.toString());
+        }
+        return names;
+    }
+
+    @Test
+    public void requireChainFoldsIntoOneTask() {
+        TestStep a = new TestStep("a");
+        TestStep b = new TestStep("b", a);
+        TestStep c = new TestStep("c", b);
+        ForkTask start = new GraphPlanner().plan(c);
+        Assert.assertEquals(start.size(), 1);
+        Task run = Iterables.getOnlyElement(start.getNext());
+        Assert.assertEquals(steps(run), Lists.newArrayList("a", "b", "c"));
+        Assert.assertEquals(run.size(), 0);
+    }
+
+    @Test
+    public void requireIndependentInputsStayParallel() {
+        // a and b are independent; merge joins them and end consumes merge
+        TestStep a = new TestStep("a");
+        TestStep b = new TestStep("b");
+        TestStep merge = new TestStep("merge", a, b);
+        TestStep end = new TestStep("end", merge);
+        ForkTask start = new GraphPlanner().plan(end);
+        Assert.assertEquals(start.size(), 2);
+        List<Task> branches = Lists.newArrayList(start.getNext());
+        Assert.assertEquals(steps(branches.get(0)), Lists.newArrayList("a"));
+        Assert.assertEquals(steps(branches.get(1)), Lists.newArrayList("b"));
+        JoinTask join = (JoinTask) Iterables.getOnlyElement(branches.get(0).getNext());
+        Assert.assertSame(Iterables.getOnlyElement(branches.get(1).getNext()), join);
+        Assert.assertEquals(join.getPriors().size(), 2);
+        Assert.assertEquals(steps(Iterables.getOnlyElement(join.getNext())), Lists.newArrayList("merge", "end"));
+    }
+
+    @Test
+    public void requireDiamondForksAfterSharedInput() {
+        TestStep a = new TestStep("a");
+        TestStep b = new TestStep("b", a);
+        TestStep c = new TestStep("c", a);
+        TestStep d = new TestStep("d", b, c);
+        ForkTask start = new GraphPlanner().plan(d);
+        Task first = Iterables.getOnlyElement(start.getNext());
+        Assert.assertEquals(steps(first), Lists.newArrayList("a"));
+        Assert.assertEquals(first.size(), 2);
+    }
+
+    @Test
+    public void requireKeepMergeSequentialFoldsIndependentInputs() {
+        TestStep a = new TestStep("a");
+        TestStep b = new TestStep("b");
+        TestStep merge = new TestStep("merge", a, b);
+        TestStep end = new TestStep("end", merge);
+        PlanProgramCompileOptions options = new PlanProgramCompileOptions.PlanProgramOptionsBuilder()
+                .keepMergeSequential(true)
+                .build();
+        ForkTask start = new GraphPlanner().plan(end, options);
+        Task run = Iterables.getOnlyElement(start.getNext());
+        Assert.assertEquals(steps(run), Lists.newArrayList("b", "a", "merge", "end"));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.types.YQLTypeException;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.Record;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+public class BatchSizeTest {
+    private static final List<Integer> BATCHES = Lists.newCopyOnWriteArrayList();
+
+    public static class ChunkedSource implements Source {
+        @Query(batchSize = 2)
+        public List<Person> lookup(@Key("id") List<String> ids) {
+            BATCHES.add(ids.size());
+            List<Person> result = Lists.newArrayList();
+            for (String id : ids) {
+                result.add(new Person(id, "v" + id, Integer.parseInt(id)));
+            }
+            return result;
+        }
+    }
+
+    public static class UnchunkedSource implements Source {
+        @Query
+        public List<Person> lookup(@Key("id") List<String> ids) {
+            BATCHES.add(ids.size());
+            return ImmutableList.of();
+        }
+    }
+
+    public static class KeysSource implements Source {
+        @Query
+        public List<Person> scan() {
+            return ImmutableList.of(new Person("5", "e", 5), new Person("1", "a", 1), new Person("3", "c", 3), new Person("2", "b", 2), new Person("4", "d", 4));
+        }
+    }
+
+    public static class BadBatchSizeSource implements Source {
+        @Query(batchSize = 10)
+        public Person lookup(@Key("id") String id) {
+            return null;
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        BATCHES.clear();
+    }
+
+    private CompiledProgram compile(String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule(
+                "chunked", ChunkedSource.class, "unchunked", UnchunkedSource.class, "keys", KeysSource.class, "bad", BadBatchSizeSource.class));
+        return injector.getInstance(YQLPlusCompiler.class).compile(query);
+    }
+
+    private List<Record> run(String query) throws Exception {
+        return compile(query).run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+    }
+
+    private List<Object> ids(List<Record> rows, String field) {
+        List<Object> result = Lists.newArrayList();
+        for (Record row : rows) {
+            result.add(row.get(field));
+        }
+        return result;
+    }
+
+    @Test
+    public void requireChunkedKeys() throws Exception {
+        List<Record> rows = run("SELECT id FROM chunked WHERE id IN ('1', '2', '3', '4', '5') OUTPUT AS f1;");
+        Assert.assertEquals(ids(rows, "id"), ImmutableList.<Object>of("1", "2", "3", "4", "5"));
+        // the chunks are requested in parallel
+        Assert.assertEquals(Ordering.natural().sortedCopy(BATCHES), ImmutableList.of(1, 2, 2));
+    }
+
+    @Test
+    public void requireChunkedJoinKeys() throws Exception {
+        List<Record> rows = run("SELECT k.value kv, c.value cv FROM keys k JOIN chunked c ON k.id = c.id OUTPUT AS f1;");
+        Assert.assertEquals(ids(rows, "cv"), ImmutableList.<Object>of("v5", "v1", "v3", "v2", "v4"));
+        // the chunks are requested in parallel
+        Assert.assertEquals(Ordering.natural().sortedCopy(BATCHES), ImmutableList.of(1, 2, 2));
+    }
+
+    @Test
+    public void requireUnchunkedKeys() throws Exception {
+        run("SELECT id FROM unchunked WHERE id IN ('1', '2', '3', '4', '5') OUTPUT AS f1;");
+        Assert.assertEquals(Lists.newArrayList(BATCHES), ImmutableList.of(5));
+    }
+
+    @Test
+    public void requireChunkDump() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compile("SELECT * FROM chunked WHERE id IN ('1', '2', '3') OUTPUT AS f1;").dump(out);
+        Assert.assertTrue(out.toString().contains("CHUNK"));
+    }
+
+    @Test(expectedExceptions = YQLTypeException.class, expectedExceptionsMessageRegExp = ".*batchSize only applies to batch methods.*")
+    public void requireBatchMethod() throws Exception {
+        compile("SELECT * FROM bad WHERE id = '1' OUTPUT AS f1;");
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.OptionalBinder;
+import com.yahoo.cloud.metrics.api.MetricDimension;
+import com.yahoo.cloud.metrics.api.RequestEvent;
+import com.yahoo.cloud.metrics.api.RequestMetric;
+import com.yahoo.cloud.metrics.api.RequestMetricSink;
+import com.yahoo.cloud.metrics.api.StandardRequestEmitter;
+import com.yahoo.cloud.metrics.api.TaskMetricEmitter;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.trace.Timeout;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.internal.bytecode.types.gambit.YQLRuntimeException;
+import com.yahoo.yqlplus.engine.internal.java.runtime.RelativeTicker;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TimeoutTracker;
+import com.yahoo.yqlplus.engine.internal.scope.Bulkhead;
+import com.yahoo.yqlplus.engine.internal.scope.SourceBulkheads;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BulkheadTest {
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+
+    public static class SlowSource implements Source {
+        @Query
+        public Person lookup(@Key("id") String id) throws InterruptedException {
+            int running = RUNNING.incrementAndGet();
+            MAX_RUNNING.accumulateAndGet(running, Math::max);
+            try {
+                Thread.sleep(20);
+                return new Person(id, "joe", 0);
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        }
+
+        @Query
+        public List<Person> scan() throws InterruptedException {
+            return ImmutableList.of(lookup("1"));
+        }
+    }
+
+    public static class AsyncSource implements Source {
+        private static final ScheduledExecutorService BACKEND = Executors.newSingleThreadScheduledExecutor();
+
+        private static <T> ListenableFuture<T> later(final T value) {
+            final SettableFuture<T> result = SettableFuture.create();
+            BACKEND.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    result.set(value);
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+            return result;
+        }
+
+        @Query
+        public ListenableFuture<Person> lookup(@Key("id") String id) {
+            return later(new Person(id, "joe", 0));
+        }
+
+        @Query
+        public ListenableFuture<List<Person>> scan() {
+            return later((List<Person>) ImmutableList.of(new Person("1", "joe", 0)));
+        }
+    }
+
+    private CompiledProgram compile(final SourceBulkheads bulkheads, String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("slow", SlowSource.class, "async", AsyncSource.class), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), com.google.inject.Key.get(SourceBulkheads.class))
+                        .setBinding().toInstance(bulkheads);
+            }
+        });
+        return injector.getInstance(YQLPlusCompiler.class).compile(query);
+    }
+
+    private String dump(CompiledProgram program) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        program.dump(out);
+        return out.toString();
+    }
+
+    @Test
+    public void requireConcurrencyLimit() throws Exception {
+        MAX_RUNNING.set(0);
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("slow", 1, 10).build(),
+                "SELECT * FROM slow WHERE id IN ('1', '2', '3', '4') OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("bulkhead"));
+        List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 4);
+        Assert.assertEquals(MAX_RUNNING.get(), 1);
+    }
+
+    @Test
+    public void requireScanLimit() throws Exception {
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("slow", 1, 0).build(), "SELECT * FROM slow OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("bulkhead"));
+        List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 1);
+    }
+
+    @Test
+    public void requireUnlimitedSource() throws Exception {
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("other", 1, 0).build(), "SELECT * FROM slow WHERE id IN ('1', '2') OUTPUT AS f1;");
+        Assert.assertFalse(dump(program).contains("bulkhead"));
+        List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 2);
+    }
+
+    @Test
+    public void requireShedding() throws Exception {
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("slow", 1, 0).build(),
+                "SELECT * FROM slow WHERE id IN ('1', '2', '3') OUTPUT AS f1;");
+        try {
+            program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+            Assert.fail("Expected the bulkhead to reject the request");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof YQLRuntimeException, e.getCause().toString());
+            YQLRuntimeException failure = (YQLRuntimeException) e.getCause();
+            Assert.assertEquals(failure.getError().getType(), Bulkhead.REJECTED_TYPE);
+            Assert.assertTrue(failure.getMessage().contains("'slow' is overloaded"), failure.getMessage());
+        }
+    }
+
+    @Test
+    public void requireQueueAndMetrics() throws Exception {
+        final AtomicReference<RequestEvent> event = new AtomicReference<>();
+        StandardRequestEmitter requestEmitter = new StandardRequestEmitter(new MetricDimension(), new RequestMetricSink() {
+            @Override
+            public void emitRequest(RequestEvent requestEvent) {
+                event.set(requestEvent);
+            }
+        });
+        TaskMetricEmitter emitter = requestEmitter.start("program", "test");
+        ExecutorService work = Executors.newCachedThreadPool();
+        try {
+            Bulkhead bulkhead = new Bulkhead("slow", 1, 1);
+            ExecutorService executor = bulkhead.wrap(work, emitter);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(2);
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                    done.countDown();
+                }
+            };
+            executor.execute(task);
+            executor.execute(task);
+            Assert.assertEquals(bulkhead.getRunning(), 1);
+            Assert.assertEquals(bulkhead.getQueued(), 1);
+            try {
+                executor.execute(task);
+                Assert.fail("Expected rejection");
+            } catch (YQLRuntimeException expected) {
+            }
+            release.countDown();
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            MoreExecutors.shutdownAndAwaitTermination(work, 10, TimeUnit.SECONDS);
+            Assert.assertEquals(bulkhead.getRunning(), 0);
+            Assert.assertEquals(bulkhead.getQueued(), 0);
+        } finally {
+            work.shutdownNow();
+        }
+        emitter.end();
+        requestEmitter.complete();
+        boolean foundDepth = false;
+        boolean foundRejected = false;
+        for (RequestMetric metric : event.get().getMetrics()) {
+            if ("bulkheadQueueDepth".equals(metric.getMetric().getName()) && metric.getMetric().getValue() == 1) {
+                foundDepth = true;
+            } else if ("bulkheadRejected".equals(metric.getMetric().getName())) {
+                foundRejected = true;
+            }
+        }
+        Assert.assertTrue(foundDepth, "found queue depth metric");
+        Assert.assertTrue(foundRejected, "found rejected metric");
+    }
+
+    @Test
+    public void requireFutureHoldsPermit() throws Exception {
+        TaskMetricEmitter emitter = new StandardRequestEmitter(new MetricDimension(), new RequestMetricSink() {
+            @Override
+            public void emitRequest(RequestEvent requestEvent) {
+            }
+        }).start("program", "test");
+        ExecutorService work = Executors.newCachedThreadPool();
+        try {
+            final Bulkhead bulkhead = new Bulkhead("async", 1, 1);
+            ExecutorService executor = bulkhead.wrap(work, emitter);
+            final SettableFuture<Object> backend = SettableFuture.create();
+            final CountDownLatch second = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    bulkhead.holdUntil(backend);
+                }
+            });
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    second.countDown();
+                }
+            });
+            Assert.assertFalse(second.await(50, TimeUnit.MILLISECONDS));
+            Assert.assertEquals(bulkhead.getRunning(), 1);
+            Assert.assertEquals(bulkhead.getQueued(), 1);
+            backend.set("done");
+            Assert.assertTrue(second.await(10, TimeUnit.SECONDS));
+            MoreExecutors.shutdownAndAwaitTermination(work, 10, TimeUnit.SECONDS);
+            Assert.assertEquals(bulkhead.getRunning(), 0);
+        } finally {
+            work.shutdownNow();
+        }
+    }
+
+    @Test
+    public void requireExpiredQueuedTaskDropped() throws Exception {
+        TaskMetricEmitter emitter = new StandardRequestEmitter(new MetricDimension(), new RequestMetricSink() {
+            @Override
+            public void emitRequest(RequestEvent requestEvent) {
+            }
+        }).start("program", "test");
+        ExecutorService work = Executors.newCachedThreadPool();
+        try {
+            Bulkhead bulkhead = new Bulkhead("slow", 1, 1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger ran = new AtomicInteger();
+            bulkhead.wrap(work, emitter).execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            });
+            Timeout timeout = new TimeoutTracker(10L, TimeUnit.MILLISECONDS, new RelativeTicker(Ticker.systemTicker()));
+            bulkhead.wrap(work, emitter, timeout).execute(new Runnable() {
+                @Override
+                public void run() {
+                    ran.incrementAndGet();
+                }
+            });
+            Assert.assertEquals(bulkhead.getQueued(), 1);
+            Thread.sleep(50);
+            release.countDown();
+            MoreExecutors.shutdownAndAwaitTermination(work, 10, TimeUnit.SECONDS);
+            Assert.assertEquals(ran.get(), 0);
+            Assert.assertEquals(bulkhead.getRunning(), 0);
+            Assert.assertEquals(bulkhead.getQueued(), 0);
+        } finally {
+            work.shutdownNow();
+        }
+    }
+
+    @Test
+    public void requireAsyncCompletesWithoutQueue() throws Exception {
+        // completing a call must not need a bulkhead permit of its own, even with none to spare (a hang fails the get)
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("async", 1, 0).build(), "SELECT * FROM async OUTPUT AS f1;");
+        List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get(5L, TimeUnit.SECONDS).getResult();
+        Assert.assertEquals(people.size(), 1);
+    }
+
+    @Test
+    public void requireAsyncScatterCompletesOrRejects() throws Exception {
+        CompiledProgram program = compile(SourceBulkheads.builder().limit("async", 1, 0).build(),
+                "SELECT * FROM async WHERE id IN ('1', '2', '3') OUTPUT AS f1;");
+        try {
+            List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get(5L, TimeUnit.SECONDS).getResult();
+            Assert.assertEquals(people.size(), 3);
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof YQLRuntimeException, e.getCause().toString());
+            Assert.assertEquals(((YQLRuntimeException) e.getCause()).getError().getType(), Bulkhead.REJECTED_TYPE);
+        }
+    }
+}
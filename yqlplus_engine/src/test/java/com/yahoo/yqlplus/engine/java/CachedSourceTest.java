@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.cloud.metrics.api.MetricDimension;
+import com.yahoo.cloud.metrics.api.RequestEvent;
+import com.yahoo.cloud.metrics.api.RequestMetric;
+import com.yahoo.cloud.metrics.api.TaskMetricEmitter;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Cached;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.trace.TraceLogEntry;
+import com.yahoo.yqlplus.api.trace.TraceRequest;
+import com.yahoo.yqlplus.api.types.YQLTypeException;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.scope.MapExecutionScope;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class CachedSourceTest {
+    private static final List<String> CALLS = Lists.newCopyOnWriteArrayList();
+
+    @Cached(ttlMilliseconds = 60000L)
+    public static class CachedPersonSource implements Source {
+        @Query
+        public Person lookup(@Key("id") String id) {
+            CALLS.add(id);
+            return new Person(id, "v" + CALLS.size(), 1);
+        }
+
+        @Query
+        @Cached(ttlMilliseconds = 1L)
+        public List<Person> lookupValues(@Key("value") List<String> values) {
+            CALLS.add(values.toString());
+            return ImmutableList.of();
+        }
+    }
+
+    public static class BadCacheSource implements Source {
+        @Query
+        @Cached(ttlMilliseconds = 0L)
+        public Person lookup(@Key("id") String id) {
+            return null;
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        CALLS.clear();
+    }
+
+    private Injector injector(JavaTestModule module) {
+        return Guice.createInjector(module, new SourceBindingModule("cached", CachedPersonSource.class, "bad", BadCacheSource.class));
+    }
+
+    private List<Person> run(CompiledProgram program) throws Exception {
+        return program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+    }
+
+    @Test
+    public void requireCachedAcrossExecutions() throws Exception {
+        YQLPlusCompiler compiler = injector(new JavaTestModule()).getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM cached WHERE id = '1' OUTPUT AS f1;");
+        Assert.assertEquals(run(program).get(0).getValue(), "v1");
+        Assert.assertEquals(run(program).get(0).getValue(), "v1");
+        // another program compiled by the same engine shares the cache
+        Assert.assertEquals(run(compiler.compile("SELECT * FROM cached WHERE id = '1' OUTPUT AS f1;")).get(0).getValue(), "v1");
+        Assert.assertEquals(run(compiler.compile("SELECT * FROM cached WHERE id = '2' OUTPUT AS f1;")).get(0).getValue(), "v2");
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("1", "2"));
+    }
+
+    @Test
+    public void requireMethodTtl() throws Exception {
+        CompiledProgram program = injector(new JavaTestModule()).getInstance(YQLPlusCompiler.class).compile("SELECT * FROM cached WHERE value IN ('a', 'b') OUTPUT AS f1;");
+        run(program);
+        Thread.sleep(10L);
+        run(program);
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("[a, b]", "[a, b]"));
+    }
+
+    @Test
+    public void requireHitTraced() throws Exception {
+        CompiledProgram program = injector(new JavaTestModule()).getInstance(YQLPlusCompiler.class).compile("SELECT * FROM cached WHERE id = '1' OUTPUT AS f1;");
+        run(program);
+        TraceRequest trace = program.run(ImmutableMap.<String, Object>of(), true).getEnd().get();
+        List<String> log = Lists.newArrayList();
+        for (TraceLogEntry entry : trace.getLog()) {
+            log.add(String.valueOf(entry.get()));
+        }
+        Assert.assertTrue(log.contains("cache hit"), log.toString());
+    }
+
+    @Test
+    public void requireHitMetrics() throws Exception {
+        JavaTestModule.MetricModule metricModule = new JavaTestModule.MetricModule(new MetricDimension(), true);
+        CompiledProgram program = injector(new JavaTestModule(metricModule)).getInstance(YQLPlusCompiler.class).compile("SELECT * FROM cached WHERE id = '1' OUTPUT AS f1;");
+        for (int i = 0; i < 2; ++i) {
+            MapExecutionScope scope = new MapExecutionScope()
+                    .bind(TaskMetricEmitter.class, metricModule.getStandardRequestEmitter().start("program", "cached"));
+            program.run(ImmutableMap.<String, Object>of(), true, scope).getEnd().get();
+        }
+        RequestEvent event = metricModule.getRequestEvent();
+        int hits = 0;
+        int misses = 0;
+        for (RequestMetric metric : event.getMetrics()) {
+            if ("cacheHit".equals(metric.getMetric().getName())) {
+                ++hits;
+            } else if ("cacheMiss".equals(metric.getMetric().getName())) {
+                ++misses;
+            }
+        }
+        Assert.assertEquals(hits, 1);
+        Assert.assertEquals(misses, 1);
+    }
+
+    @Test(expectedExceptions = YQLTypeException.class, expectedExceptionsMessageRegExp = ".*@Cached ttlMilliseconds.*")
+    public void requirePositiveTtl() throws Exception {
+        injector(new JavaTestModule()).getInstance(YQLPlusCompiler.class).compile("SELECT * FROM bad WHERE id = '1' OUTPUT AS f1;");
+    }
+}
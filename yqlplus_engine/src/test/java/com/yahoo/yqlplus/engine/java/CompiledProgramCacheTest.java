@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.CompiledProgramCache;
+import com.yahoo.yqlplus.engine.ProgramResult;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.YQLResultSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class CompiledProgramCacheTest {
+    private YQLPlusCompiler createCompiler(final CompiledProgramCache cache) {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(CompiledProgramCache.class).toInstance(cache);
+            }
+        });
+        return injector.getInstance(YQLPlusCompiler.class);
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        CompiledProgramCache cache = new CompiledProgramCache.Builder().maximumSize(10).build();
+        YQLPlusCompiler compiler = createCompiler(cache);
+        CompiledProgram first = compiler.compile("PROGRAM (@a string);\nSELECT * FROM innersource WHERE id = @a OUTPUT AS b1;");
+        CompiledProgram second = compiler.compile("PROGRAM (@a string);  SELECT *   FROM innersource\n WHERE id = @a OUTPUT AS b1; // same");
+        Assert.assertSame(second, first);
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(stats.hitCount(), 1L);
+        Assert.assertEquals(stats.missCount(), 1L);
+
+        ProgramResult result = second.run(ImmutableMap.<String, Object>of("a", "1"), true);
+        YQLResultSet b1 = result.getResult("b1").get();
+        List<Person> rows = b1.getResult();
+        Assert.assertEquals(rows.size(), 1);
+        Assert.assertEquals(rows.get(0).getId(), "1");
+    }
+
+    @Test
+    public void testDistinctPrograms() throws Exception {
+        CompiledProgramCache cache = new CompiledProgramCache.Builder().maximumSize(10).build();
+        YQLPlusCompiler compiler = createCompiler(cache);
+        CompiledProgram first = compiler.compile("SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        CompiledProgram second = compiler.compile("SELECT * FROM innersource WHERE id = '2' OUTPUT AS b1;");
+        CompiledProgram named = compiler.compile("named", "SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        Assert.assertNotSame(second, first);
+        Assert.assertNotSame(named, first);
+        Assert.assertEquals(cache.getStats().missCount(), 3L);
+        Assert.assertEquals(cache.size(), 3L);
+    }
+
+    @Test
+    public void testNamespaceIdentity() throws Exception {
+        CompiledProgramCache cache = new CompiledProgramCache.Builder().maximumSize(10).build();
+        CompiledProgram first = createCompiler(cache).compile("SELECT * FROM innersource OUTPUT AS b1;");
+        CompiledProgram second = createCompiler(cache).compile("SELECT * FROM innersource OUTPUT AS b1;");
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(cache.getStats().hitCount(), 0L);
+    }
+
+    @Test
+    public void testCachedProgramNotClosed() throws Exception {
+        CompiledProgramCache cache = new CompiledProgramCache.Builder().maximumSize(10).build();
+        YQLPlusCompiler compiler = createCompiler(cache);
+        CompiledProgram first = compiler.compile("SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        first.close();
+        Assert.assertFalse(first.isClosed());
+        CompiledProgram second = compiler.compile("SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        Assert.assertSame(second, first);
+        Assert.assertEquals(cache.size(), 1L);
+        List<Person> rows = second.run(ImmutableMap.<String, Object>of(), true).getResult("b1").get().getResult();
+        Assert.assertEquals(rows.size(), 1);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        CompiledProgramCache cache = new CompiledProgramCache.Builder().maximumSize(1).build();
+        YQLPlusCompiler compiler = createCompiler(cache);
+        compiler.compile("SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        compiler.compile("SELECT * FROM innersource WHERE id = '2' OUTPUT AS b1;");
+        Assert.assertEquals(cache.size(), 1L);
+        Assert.assertEquals(cache.getStats().evictionCount(), 1L);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.OptionalBinder;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.internal.bytecode.DiskGeneratedClassCache;
+import com.yahoo.yqlplus.engine.internal.bytecode.GeneratedClassCache;
+import com.yahoo.yqlplus.engine.internal.compiler.streams.PlanProgramCompileOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class GeneratedClassCacheTest {
+    private static final String PROGRAM = "PROGRAM (@a string);" +
+            "SELECT * FROM innersource WHERE id = @a ORDER BY id LIMIT 2 OUTPUT AS b1;";
+
+    private static class CountingCache implements GeneratedClassCache {
+        final Map<String, byte[]> entries = Maps.newConcurrentMap();
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicInteger misses = new AtomicInteger();
+
+        @Override
+        public byte[] get(String key) {
+            byte[] entry = entries.get(key);
+            (entry != null ? hits : misses).incrementAndGet();
+            return entry;
+        }
+
+        @Override
+        public void put(String key, byte[] entry) {
+            entries.put(key, entry);
+        }
+    }
+
+    private YQLPlusCompiler createCompiler(final GeneratedClassCache cache) {
+        return createCompiler(cache, PlanProgramCompileOptions.DEFAULT_OPTIONS);
+    }
+
+    private YQLPlusCompiler createCompiler(final GeneratedClassCache cache, final PlanProgramCompileOptions options) {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), GeneratedClassCache.class)
+                        .setBinding().toInstance(cache);
+                OptionalBinder.newOptionalBinder(binder(), PlanProgramCompileOptions.class)
+                        .setBinding().toInstance(options);
+            }
+        });
+        return injector.getInstance(YQLPlusCompiler.class);
+    }
+
+    private void assertRuns(CompiledProgram program, String id) throws Exception {
+        List<Person> rows = program.run(ImmutableMap.<String, Object>of("a", id), true).getResult("b1").get().getResult();
+        Assert.assertEquals(rows.size(), 1);
+        Assert.assertEquals(rows.get(0).getId(), id);
+    }
+
+    @Test
+    public void testReuseAcrossCompilers() throws Exception {
+        CountingCache cache = new CountingCache();
+        assertRuns(createCompiler(cache).compile(PROGRAM), "1");
+        Assert.assertEquals(cache.hits.get(), 0);
+        Assert.assertEquals(cache.entries.size(), 1);
+
+        // a fresh injector generates into a different package; the cached classes must be relocated into it
+        assertRuns(createCompiler(cache).compile(PROGRAM), "3");
+        assertRuns(createCompiler(cache).compile(PROGRAM), "3");
+        Assert.assertEquals(cache.hits.get(), 2);
+        Assert.assertEquals(cache.entries.size(), 1);
+    }
+
+    @Test
+    public void testDistinctPlans() throws Exception {
+        CountingCache cache = new CountingCache();
+        YQLPlusCompiler compiler = createCompiler(cache);
+        compiler.compile(PROGRAM);
+        compiler.compile("SELECT * FROM innersource WHERE id = '1' OUTPUT AS b1;");
+        Assert.assertEquals(cache.hits.get(), 0);
+        Assert.assertEquals(cache.entries.size(), 2);
+    }
+
+    @Test
+    public void testDistinctCompileOptions() throws Exception {
+        CountingCache cache = new CountingCache();
+        assertRuns(createCompiler(cache).compile(PROGRAM), "1");
+        PlanProgramCompileOptions sequential = new PlanProgramCompileOptions.PlanProgramOptionsBuilder()
+                .keepMergeSequential(true)
+                .build();
+        assertRuns(createCompiler(cache, sequential).compile(PROGRAM), "1");
+        Assert.assertEquals(cache.hits.get(), 0);
+        Assert.assertEquals(cache.entries.size(), 2);
+    }
+
+    @Test
+    public void testCorruptEntry() throws Exception {
+        CountingCache cache = new CountingCache();
+        createCompiler(cache).compile(PROGRAM);
+        String key = cache.entries.keySet().iterator().next();
+        cache.entries.put(key, new byte[]{1, 2, 3});
+        assertRuns(createCompiler(cache).compile(PROGRAM), "1");
+        Assert.assertEquals(cache.entries.get(key).length > 3, true);
+    }
+
+    @Test
+    public void testDiskCache() throws Exception {
+        Path directory = Files.createTempDirectory("yqlplus-classes");
+        try {
+            assertRuns(createCompiler(new DiskGeneratedClassCache(directory)).compile(PROGRAM), "1");
+            CountingCache counter = new CountingCache();
+            final DiskGeneratedClassCache disk = new DiskGeneratedClassCache(directory);
+            GeneratedClassCache reader = new GeneratedClassCache() {
+                @Override
+                public byte[] get(String key) {
+                    byte[] entry = disk.get(key);
+                    if (entry != null) {
+                        counter.entries.put(key, entry);
+                    }
+                    return entry;
+                }
+
+                @Override
+                public void put(String key, byte[] entry) {
+                    Assert.fail("unexpected cache write");
+                }
+            };
+            assertRuns(createCompiler(reader).compile(PROGRAM), "3");
+            Assert.assertEquals(counter.entries.size(), 1);
+        } finally {
+            // children before their parent directories
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.EstimatedRows;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.Record;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+public class HashJoinTableTest {
+    public static class LeftSource implements Source {
+        @Query
+        @EstimatedRows(3)
+        public List<Person> scan() {
+            return ImmutableList.of(new Person("1", "a", 10), new Person("2", "b", 20), new Person("3", "c", 30));
+        }
+    }
+
+    public static class RightSource implements Source {
+        @Query
+        public List<Person> scan() {
+            return ImmutableList.of(new Person("1", "x", 10), new Person("1", "y", 20), new Person("2", "z", 10));
+        }
+    }
+
+    public static class ManySource implements Source {
+        @Query
+        @EstimatedRows(100)
+        public List<Person> scan() {
+            List<Person> people = Lists.newArrayList();
+            for (int i = 0; i < 100; ++i) {
+                people.add(new Person(String.valueOf(i % 3), "m" + i, i));
+            }
+            return people;
+        }
+    }
+
+    private CompiledProgram compile(String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("lefts", LeftSource.class, "rights", RightSource.class, "many", ManySource.class));
+        return injector.getInstance(YQLPlusCompiler.class).compile(query);
+    }
+
+    private List<Record> run(String query) throws Exception {
+        return compile(query).run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+    }
+
+    private void assertJoined(List<Record> rows, String... expected) {
+        Assert.assertEquals(rows.size(), expected.length / 2);
+        for (int i = 0; i < rows.size(); ++i) {
+            Assert.assertEquals(rows.get(i).get("lv"), expected[i * 2]);
+            Assert.assertEquals(rows.get(i).get("rv"), expected[i * 2 + 1]);
+        }
+    }
+
+    @Test
+    public void requireIntegerKeys() throws Exception {
+        assertJoined(run("SELECT l.value lv, r.value rv FROM lefts l JOIN rights r ON l.score = r.score OUTPUT AS f1;"),
+                "a", "x", "a", "z", "b", "y");
+    }
+
+    @Test
+    public void requireStringKeys() throws Exception {
+        assertJoined(run("SELECT l.value lv, r.value rv FROM lefts l JOIN rights r ON l.id = r.id OUTPUT AS f1;"),
+                "a", "x", "a", "y", "b", "z");
+    }
+
+    @Test
+    public void requireBoxedKeys() throws Exception {
+        assertJoined(run("SELECT l.value lv, r.value rv FROM lefts l JOIN rights r ON l.iid = r.iid OUTPUT AS f1;"),
+                "a", "x", "a", "y", "b", "z");
+    }
+
+    @Test
+    public void requireOuterJoin() throws Exception {
+        List<Record> rows = run("SELECT l.value lv, r.value rv FROM lefts l LEFT JOIN rights r ON l.score = r.score OUTPUT AS f1;");
+        Assert.assertEquals(rows.size(), 4);
+        Assert.assertEquals(rows.get(3).get("lv"), "c");
+        Assert.assertNull(rows.get(3).get("rv"));
+    }
+
+    private String dump(String query) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compile(query).dump(out);
+        return out.toString();
+    }
+
+    @Test
+    public void requireSmallerSideDump() throws Exception {
+        // lefts is declared smaller than many, so its rows are kept to be hashed if they are
+        String plan = dump("SELECT l.value lv, r.value rv FROM lefts l JOIN many r ON l.id = r.id OUTPUT AS f1;");
+        Assert.assertTrue(plan.contains("build=smaller"), plan);
+    }
+
+    @Test
+    public void requireBuildRightWithoutEstimates() throws Exception {
+        // rights has no estimate, and many is declared larger than lefts; both stream the left side
+        String plan = dump("SELECT l.value lv, r.value rv FROM lefts l JOIN rights r ON l.id = r.id OUTPUT AS f1;");
+        Assert.assertFalse(plan.contains("build="), plan);
+        plan = dump("SELECT l.value lv, r.value rv FROM many l JOIN lefts r ON l.id = r.id OUTPUT AS f1;");
+        Assert.assertFalse(plan.contains("build="), plan);
+    }
+
+    @Test
+    public void requireBuildEitherSide() throws Exception {
+        // 3 left rows against 100 right rows hashes the left; 100 against 3 streams the left as before
+        List<Record> rows = run("SELECT l.value lv, r.value rv FROM lefts l JOIN many r ON l.id = r.id OUTPUT AS f1;");
+        Assert.assertEquals(rows.size(), 66);
+        Assert.assertEquals(rows.get(0).get("lv"), "a");
+        Assert.assertEquals(rows.get(0).get("rv"), "m1");
+        Assert.assertEquals(rows.get(32).get("lv"), "a");
+        Assert.assertEquals(rows.get(33).get("lv"), "b");
+        rows = run("SELECT l.value lv, r.value rv FROM many l JOIN lefts r ON l.id = r.id OUTPUT AS f1;");
+        Assert.assertEquals(rows.size(), 66);
+        Assert.assertEquals(rows.get(0).get("lv"), "m1");
+        Assert.assertEquals(rows.get(0).get("rv"), "a");
+        rows = run("SELECT l.value lv, r.value rv FROM lefts l LEFT JOIN many r ON l.score = r.score OUTPUT AS f1;");
+        Assert.assertEquals(rows.size(), 3);
+        Assert.assertEquals(rows.get(0).get("rv"), "m10");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.ProgramResult;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * IN predicates whose right side is a subquery, argument or constant list (hashed once per execution).
+ */
+public class InPredicateTest {
+    private static final int ROWS = 200;
+
+    public static class ScanSource implements Source {
+        @Query
+        public List<Person> scan() {
+            List<Person> people = Lists.newArrayList();
+            for (int i = 0; i < ROWS; ++i) {
+                people.add(new Person(String.valueOf(i), "name" + i, i));
+            }
+            return people;
+        }
+    }
+
+    private CompiledProgram compile(String program) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("left", ScanSource.class, "right", ScanSource.class));
+        return injector.getInstance(YQLPlusCompiler.class).compile(program);
+    }
+
+    private List<Integer> scores(ProgramResult result, String name) throws Exception {
+        List<Person> people = result.getResult(name).get().getResult();
+        List<Integer> scores = Lists.newArrayList();
+        for (Person person : people) {
+            scores.add(person.getScore());
+        }
+        return scores;
+    }
+
+    private static List<Integer> range(int start, int end, int step) {
+        List<Integer> result = Lists.newArrayList();
+        for (int i = start; i < end; i += step) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @Test
+    public void requireInSubquery() throws Exception {
+        CompiledProgram program = compile(
+                "SELECT * FROM left WHERE id IN (SELECT id FROM right WHERE score >= 150) OUTPUT AS f1;" +
+                "SELECT * FROM left WHERE id NOT IN (SELECT id FROM right WHERE score >= 10) OUTPUT AS f2;");
+        ProgramResult result = program.run(ImmutableMap.<String, Object>of(), true);
+        Assert.assertEquals(scores(result, "f1"), range(150, ROWS, 1));
+        Assert.assertEquals(scores(result, "f2"), range(0, 10, 1));
+    }
+
+    @Test
+    public void requireInArgument() throws Exception {
+        CompiledProgram program = compile("PROGRAM (@scores array<int32>, @ids array<string>);" +
+                "SELECT * FROM left WHERE score IN (@scores) OUTPUT AS f1;" +
+                "SELECT * FROM left WHERE id IN (@ids) AND score IN (@scores) OUTPUT AS f2;");
+        List<Integer> evens = range(0, 100, 2);
+        List<String> ids = Lists.newArrayList();
+        for (int i = 0; i < 50; ++i) {
+            ids.add(String.valueOf(i));
+        }
+        ProgramResult result = program.run(ImmutableMap.<String, Object>of("scores", evens, "ids", ids), true);
+        Assert.assertEquals(scores(result, "f1"), evens);
+        Assert.assertEquals(scores(result, "f2"), range(0, 50, 2));
+    }
+
+    @Test
+    public void requireInConstantList() throws Exception {
+        CompiledProgram program = compile(
+                "SELECT * FROM left WHERE score IN (1, 3, 5, 7, 9, 11, 13, 15, 17, 19, 1000) OUTPUT AS f1;");
+        ProgramResult result = program.run(ImmutableMap.<String, Object>of(), true);
+        Assert.assertEquals(scores(result, "f1"), ImmutableList.of(1, 3, 5, 7, 9, 11, 13, 15, 17, 19));
+    }
+}
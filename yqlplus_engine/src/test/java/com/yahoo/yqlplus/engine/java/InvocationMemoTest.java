@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.NotIdempotent;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class InvocationMemoTest {
+    private static final List<String> CALLS = Lists.newCopyOnWriteArrayList();
+
+    public static class CountedSource implements Source {
+        @Query
+        public Person lookup(@Key("id") String id) {
+            CALLS.add(id);
+            return new Person(id, "v" + id, 1);
+        }
+
+        @Query
+        public List<Person> batch(@Key("value") List<String> values) {
+            CALLS.add(values.toString());
+            return ImmutableList.of();
+        }
+    }
+
+    public static class AsyncSource implements Source {
+        @Query
+        public ListenableFuture<Person> lookup(@Key("id") String id) {
+            CALLS.add(id);
+            return Futures.immediateFuture(new Person(id, "v" + id, 1));
+        }
+    }
+
+    @NotIdempotent
+    public static class UncachedSource implements Source {
+        @Query
+        public Person lookup(@Key("id") String id) {
+            CALLS.add(id);
+            return new Person(id, "v" + id, 1);
+        }
+    }
+
+    public static class FailingSource implements Source {
+        @Query
+        public Person lookup(@Key("id") String id) {
+            CALLS.add(id);
+            throw new IllegalArgumentException("no " + id);
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        CALLS.clear();
+    }
+
+    private CompiledProgram compile(String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule(
+                "counted", CountedSource.class, "async", AsyncSource.class, "uncached", UncachedSource.class, "failing", FailingSource.class));
+        return injector.getInstance(YQLPlusCompiler.class).compile(query);
+    }
+
+    private int run(CompiledProgram program) throws Exception {
+        List<Person> rows = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        return rows.size();
+    }
+
+    @Test
+    public void requireIdenticalCallsShared() throws Exception {
+        Assert.assertEquals(run(compile("SELECT * FROM counted WHERE id = '1' MERGE SELECT * FROM counted WHERE id = '1' MERGE SELECT * FROM counted WHERE id = '2' OUTPUT AS f1;")), 3);
+        Assert.assertEquals(Ordering.natural().sortedCopy(CALLS), ImmutableList.of("1", "2"));
+    }
+
+    @Test
+    public void requireIdenticalBatchesShared() throws Exception {
+        run(compile("SELECT * FROM counted WHERE value IN ('a', 'b') MERGE SELECT * FROM counted WHERE value IN ('a', 'b') OUTPUT AS f1;"));
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("[a, b]"));
+    }
+
+    @Test
+    public void requireAsyncCallsShared() throws Exception {
+        Assert.assertEquals(run(compile("SELECT * FROM async WHERE id = '1' MERGE SELECT * FROM async WHERE id = '1' OUTPUT AS f1;")), 2);
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("1"));
+    }
+
+    @Test
+    public void requireNotIdempotent() throws Exception {
+        Assert.assertEquals(run(compile("SELECT * FROM uncached WHERE id = '1' MERGE SELECT * FROM uncached WHERE id = '1' OUTPUT AS f1;")), 2);
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("1", "1"));
+    }
+
+    @Test
+    public void requireSeparateExecutions() throws Exception {
+        CompiledProgram program = compile("SELECT * FROM counted WHERE id = '1' OUTPUT AS f1;");
+        run(program);
+        run(program);
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("1", "1"));
+    }
+
+    @Test
+    public void requireFailureShared() throws Exception {
+        CompiledProgram program = compile("SELECT * FROM failing WHERE id = '1' OUTPUT AS f1; SELECT * FROM failing WHERE id = '1' OUTPUT AS f2;");
+        try {
+            program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get();
+            Assert.fail("Expected failure");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            Assert.assertEquals(cause.getMessage(), "no 1");
+        }
+        Assert.assertEquals(Lists.newArrayList(CALLS), ImmutableList.of("1"));
+    }
+}
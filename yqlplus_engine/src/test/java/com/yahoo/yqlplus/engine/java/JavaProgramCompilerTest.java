@@ -111,6 +111,7 @@ import com.yahoo.yqlplus.language.parser.ProgramCompileException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -526,6 +527,31 @@ public class JavaProgramCompilerTest {
         Assert.assertEquals(rez.getResult("f3").get().getResult(), ImmutableList.of(new Person("2", "2", 2)));
     }
 
+    @Test
+    public void requireOrderedLimit() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("source", BatchKeySource.class));
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("PROGRAM (@lmt int32, @off int32);" +
+                "CREATE VIEW foo AS SELECT * FROM source WHERE id IN ('1', '2', '3');" +
+                "SELECT * FROM foo ORDER BY id DESC LIMIT 2                OUTPUT AS f1;" +
+                "SELECT * FROM foo ORDER BY id DESC LIMIT @lmt OFFSET @off OUTPUT AS f2;" +
+                "SELECT * FROM foo ORDER BY id LIMIT 5 OFFSET 2            OUTPUT AS f3;" +
+                "SELECT * FROM foo ORDER BY id LIMIT 0                     OUTPUT AS f4;" +
+                "SELECT * FROM foo ORDER BY id LIMIT 2 OFFSET 3            OUTPUT AS f5;" +
+                "SELECT * FROM source(10) WHERE id IN ('1', '2', '3') ORDER BY score LIMIT 2 OUTPUT AS f6;");
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        program.dump(dump);
+        Assert.assertTrue(dump.toString().contains("TOP_N"));
+        ProgramResult rez = program.run(ImmutableMap.<String, Object>of("lmt", 1, "off", 1), true);
+        Assert.assertEquals(rez.getResult("f1").get().getResult(), ImmutableList.of(new Person("3", "3", 3), new Person("2", "2", 2)));
+        Assert.assertEquals(rez.getResult("f2").get().getResult(), ImmutableList.of(new Person("2", "2", 2)));
+        Assert.assertEquals(rez.getResult("f3").get().getResult(), ImmutableList.of(new Person("3", "3", 3)));
+        Assert.assertEquals(rez.getResult("f4").get().getResult(), ImmutableList.of());
+        Assert.assertEquals(rez.getResult("f5").get().getResult(), ImmutableList.of());
+        // ties keep their input order
+        Assert.assertEquals(rez.getResult("f6").get().getResult(), ImmutableList.of(new Person("1", "1", 10), new Person("2", "2", 10)));
+    }
+
     @Test
     public void requireArgumentLimit() throws Exception {
         Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("source", BatchKeySource.class));
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import org.testng.Assert;
+import org.testng.Reporter;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Compares the per-row cost of filtering with LIKE (compiled to String.startsWith and friends) against the equivalent
+ * MATCHES regex.
+ *
+ * The timing is opt-in: it is skipped unless -Dyqlplus.benchmark.iterations=N is set, and reports to the TestNG
+ * report rather than the console. That LIKE and MATCHES select the same rows is always checked.
+ */
+public class LikeFilterBenchmark {
+    private static final Integer ITERATIONS = Integer.getInteger("yqlplus.benchmark.iterations");
+    private static final List<Person> ROWS = Lists.newArrayList();
+
+    static {
+        for (int i = 0; i < 10000; ++i) {
+            ROWS.add(new Person(String.valueOf(i), "user-" + i + "-name", i));
+        }
+    }
+
+    public static class RowSource implements Source {
+        @Query
+        public List<Person> scan() {
+            return ROWS;
+        }
+    }
+
+    private YQLPlusCompiler compiler;
+
+    @BeforeClass
+    public void setUp() {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("rows", RowSource.class));
+        compiler = injector.getInstance(YQLPlusCompiler.class);
+    }
+
+    @DataProvider(name = "patterns")
+    public Object[][] patterns() {
+        return new Object[][]{
+                {"user-12%", "user-12.*"},
+                {"%7-name", ".*7-name"},
+                {"%-99%", ".*-99.*"},
+                {"user-5-name", "user-5-name"},
+                {"user-1_-%", "user-1.-.*"},
+        };
+    }
+
+    private List<Person> run(CompiledProgram program) throws Exception {
+        return program.run(ImmutableMap.<String, Object>of(), false).getResult("f1").get().getResult();
+    }
+
+    private long time(CompiledProgram program) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            run(program);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private CompiledProgram compileLike(String like) throws Exception {
+        return compiler.compile("SELECT * FROM rows WHERE value LIKE '" + like + "' OUTPUT AS f1;");
+    }
+
+    private CompiledProgram compileRegex(String regex) throws Exception {
+        return compiler.compile("SELECT * FROM rows WHERE value MATCHES '" + regex + "' OUTPUT AS f1;");
+    }
+
+    @Test(dataProvider = "patterns")
+    public void requireLikeMatchesRegex(String like, String regex) throws Exception {
+        List<Person> expected = run(compileRegex(regex));
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(run(compileLike(like)), expected);
+    }
+
+    @Test(dataProvider = "patterns")
+    public void benchmarkLikeAgainstRegex(String like, String regex) throws Exception {
+        if (ITERATIONS == null) {
+            throw new SkipException("set -Dyqlplus.benchmark.iterations to run the benchmark");
+        }
+        CompiledProgram likeProgram = compileLike(like);
+        CompiledProgram regexProgram = compileRegex(regex);
+        // warm up both programs before timing them
+        run(likeProgram);
+        run(regexProgram);
+        long likeTime = time(likeProgram);
+        long regexTime = time(regexProgram);
+        Reporter.log(String.format("LIKE '%s': %d ns/row, MATCHES '%s': %d ns/row", like,
+                likeTime / ((long) ITERATIONS * ROWS.size()), regex, regexTime / ((long) ITERATIONS * ROWS.size())));
+    }
+}
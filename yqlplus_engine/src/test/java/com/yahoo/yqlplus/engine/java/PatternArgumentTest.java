@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * LIKE and MATCHES with patterns given as program arguments (compiled once per execution).
+ */
+public class PatternArgumentTest {
+    private YQLPlusCompiler compiler;
+
+    @BeforeMethod
+    public void setUp() {
+        Injector injector = Guice.createInjector(new JavaTestModule());
+        compiler = injector.getInstance(YQLPlusCompiler.class);
+    }
+
+    private List<String> values(CompiledProgram program, String name, Object pattern) throws Exception {
+        List<Person> people = program.run(ImmutableMap.of(name, pattern), true).getResult("f1").get().getResult();
+        List<String> values = Lists.newArrayList();
+        for (Person person : people) {
+            values.add(person.getValue());
+        }
+        return values;
+    }
+
+    @Test
+    public void requireLikeArgument() throws Exception {
+        CompiledProgram program = compiler.compile("PROGRAM (@pattern string);" +
+                "SELECT * FROM people WHERE value LIKE @pattern OUTPUT AS f1;");
+        // one compiled program serves every pattern
+        Assert.assertEquals(values(program, "pattern", "%o%"), ImmutableList.of("bob", "joe"));
+        Assert.assertEquals(values(program, "pattern", "s%"), ImmutableList.of("smith"));
+        Assert.assertEquals(values(program, "pattern", "%b"), ImmutableList.of("bob"));
+        Assert.assertEquals(values(program, "pattern", "j_e"), ImmutableList.of("joe"));
+        Assert.assertEquals(values(program, "pattern", "nobody"), ImmutableList.of());
+    }
+
+    @Test
+    public void requireNotLikeArgument() throws Exception {
+        CompiledProgram program = compiler.compile("PROGRAM (@pattern string);" +
+                "SELECT * FROM people WHERE value NOT LIKE @pattern OUTPUT AS f1;");
+        Assert.assertEquals(values(program, "pattern", "%o%"), ImmutableList.of("smith"));
+    }
+
+    @Test
+    public void requireMatchesArgument() throws Exception {
+        CompiledProgram program = compiler.compile("PROGRAM (@pattern string);" +
+                "SELECT * FROM people WHERE value MATCHES @pattern OUTPUT AS f1;");
+        Assert.assertEquals(values(program, "pattern", "[bj].*"), ImmutableList.of("bob", "joe"));
+        Assert.assertEquals(values(program, "pattern", ".*th"), ImmutableList.of("smith"));
+    }
+
+    @Test
+    public void requireRowPattern() throws Exception {
+        // a pattern depending on the row is compiled (through the cache) per row
+        CompiledProgram program = compiler.compile("PROGRAM (@input string);" +
+                "SELECT * FROM people WHERE @input LIKE value OUTPUT AS f1;");
+        Assert.assertEquals(values(program, "input", "joe"), ImmutableList.of("joe"));
+    }
+
+    @Test
+    public void requireInvalidRegexReported() throws Exception {
+        CompiledProgram program = compiler.compile("PROGRAM (@pattern string);" +
+                "SELECT * FROM people WHERE value MATCHES @pattern OUTPUT AS f1;");
+        try {
+            values(program, "pattern", "[");
+            Assert.fail("expected a PatternSyntaxException");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof PatternSyntaxException)) {
+                cause = cause.getCause();
+            }
+            Assert.assertNotNull(cause, e.toString());
+        }
+    }
+}
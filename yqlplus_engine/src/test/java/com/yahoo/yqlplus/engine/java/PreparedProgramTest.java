@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.PreparedProgram;
+import com.yahoo.yqlplus.engine.ProgramResult;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.Record;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class PreparedProgramTest {
+    private PreparedProgram prepare(String program) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule());
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        CompiledProgram compiled = compiler.compile(program);
+        return compiled.prepare();
+    }
+
+    @Test
+    public void testBindMany() throws Exception {
+        PreparedProgram prepared = prepare("PROGRAM (@a string);" +
+                "SELECT * FROM innersource WHERE id = @a OUTPUT AS b1;");
+        List<Person> first = prepared.bind("1").execute().getResult("b1").get().getResult();
+        Assert.assertEquals(first.size(), 1);
+        Assert.assertEquals(first.get(0).getId(), "1");
+        PreparedProgram.Binding binding = prepared.bind("3");
+        for (int i = 0; i < 3; i++) {
+            List<Person> rows = binding.execute(true).getResult("b1").get().getResult();
+            Assert.assertEquals(rows.size(), 1);
+            Assert.assertEquals(rows.get(0).getId(), "3");
+        }
+    }
+
+    @Test
+    public void testCoercion() throws Exception {
+        PreparedProgram prepared = prepare("PROGRAM (@a int32, @b int64 = 2, @c array<int32> = [1]);" +
+                "SELECT @a, @b, @c OUTPUT AS out;");
+        // positional order follows CompiledProgram.getArguments()
+        Map<String, Object> values = ImmutableMap.<String, Object>of("a", 7L, "b", 3, "c", new Object[]{4, 5});
+        List<CompiledProgram.ArgumentInfo> arguments = prepared.getProgram().getArguments();
+        Object[] positional = new Object[arguments.size()];
+        for (int i = 0; i < positional.length; i++) {
+            positional[i] = values.get(arguments.get(i).getName());
+        }
+        ProgramResult result = prepared.bind(positional).execute();
+        Record record = ((List<Record>) result.getResult("out").get().getResult()).get(0);
+        Assert.assertEquals(record.get("a"), 7);
+        Assert.assertEquals(record.get("b"), 3L);
+        Assert.assertEquals(record.get("c"), ImmutableList.of(4, 5));
+
+        result = prepared.bind(ImmutableMap.<String, Object>of("a", (short) 1)).execute();
+        record = ((List<Record>) result.getResult("out").get().getResult()).get(0);
+        Assert.assertEquals(record.get("a"), 1);
+        Assert.assertEquals(record.get("b"), 2L);
+        Assert.assertEquals(record.get("c"), ImmutableList.of(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Missing required program argument 'a'.*")
+    public void testMissingRequired() throws Exception {
+        prepare("PROGRAM (@a string); SELECT @a OUTPUT AS out;").bind();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Program argument 'a' .* cannot accept .*")
+    public void testOutOfRange() throws Exception {
+        prepare("PROGRAM (@a int32); SELECT @a OUTPUT AS out;").bind(Long.MAX_VALUE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Program argument 'a' .* cannot accept .*")
+    public void testWrongType() throws Exception {
+        prepare("PROGRAM (@a string); SELECT @a OUTPUT AS out;").bind(1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Unknown program argument.*")
+    public void testUnknownName() throws Exception {
+        prepare("PROGRAM (@a string); SELECT @a OUTPUT AS out;").bind(ImmutableMap.<String, Object>of("a", "x", "z", "y"));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.internal.compiler.PlanCompiledProgram;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+public class ProgramCloseTest {
+    private static final String PROGRAM = "PROGRAM (@a string);" +
+            "SELECT * FROM innersource WHERE id = @a OUTPUT AS b1;";
+
+    private void assertRuns(CompiledProgram program) throws Exception {
+        List<Person> rows = program.run(ImmutableMap.<String, Object>of("a", "1"), true).getResult("b1").get().getResult();
+        Assert.assertEquals(rows.size(), 1);
+        Assert.assertEquals(rows.get(0).getId(), "1");
+    }
+
+    @Test
+    public void requireClosedProgramRejected() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule());
+        CompiledProgram program = injector.getInstance(YQLPlusCompiler.class).compile(PROGRAM);
+        assertRuns(program);
+        Assert.assertFalse(program.isClosed());
+        Assert.assertTrue(((PlanCompiledProgram) program).getGeneratedClassBytes() > 0);
+        program.close();
+        program.close();
+        Assert.assertTrue(program.isClosed());
+        try {
+            program.run(ImmutableMap.<String, Object>of("a", "1"), true);
+            Assert.fail("closed program should not run");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            program.prepare().bind("1").execute(true);
+            Assert.fail("closed program should not run");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void requireClassesCollectable() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule());
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile(PROGRAM);
+        assertRuns(program);
+        WeakReference<ClassLoader> loader = new WeakReference<>(((PlanCompiledProgram) program).getCompiledProgram().getClassLoader());
+        program.close();
+        // the engine keeps working; only the closed program is released
+        assertRuns(compiler.compile(PROGRAM));
+        for (int i = 0; i < 50 && loader.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull(loader.get(), "generated class loader still reachable");
+        Assert.assertTrue(program.isClosed());
+    }
+}
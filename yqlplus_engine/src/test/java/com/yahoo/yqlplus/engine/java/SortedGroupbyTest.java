@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.OrderedBy;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.types.YQLTypeException;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.Record;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+public class SortedGroupbyTest {
+    private static final List<Person> PEOPLE = ImmutableList.of(
+            new Person("1", "a", 1),
+            new Person("2", "a", 2),
+            new Person("3", "b", 3),
+            new Person("4", "c", 4),
+            new Person("5", "c", 5));
+
+    public static class OrderedSource implements Source {
+        @Query
+        @OrderedBy("value")
+        public List<Person> scan() {
+            return PEOPLE;
+        }
+
+        @Query
+        @OrderedBy({"value", "id"})
+        public List<Person> lookup(@Key("id") List<String> ids) {
+            return PEOPLE;
+        }
+    }
+
+    public static class UnorderedSource implements Source {
+        @Query
+        public List<Person> scan() {
+            return PEOPLE;
+        }
+    }
+
+    public static class BadOrderSource implements Source {
+        @Query
+        @OrderedBy("missing")
+        public List<Person> scan() {
+            return PEOPLE;
+        }
+    }
+
+    private CompiledProgram compile(Class<? extends Source> sourceClass, String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("source", sourceClass));
+        return injector.getInstance(YQLPlusCompiler.class).compile("FROM yql.sequences IMPORT groupby;" + query);
+    }
+
+    private String dump(CompiledProgram program) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        program.dump(out);
+        return out.toString();
+    }
+
+    private void assertGroups(CompiledProgram program, String... expected) throws Exception {
+        List<Record> groups = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(groups.size(), expected.length / 2);
+        for (int i = 0; i < groups.size(); ++i) {
+            Assert.assertEquals(groups.get(i).get("value"), expected[i * 2]);
+            Assert.assertEquals(((List<?>) groups.get(i).get("items")).size(), Integer.parseInt(expected[i * 2 + 1]));
+        }
+    }
+
+    @Test
+    public void requireSortedGroupby() throws Exception {
+        CompiledProgram program = compile(OrderedSource.class, "SELECT * FROM source | groupby('value', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("SORTED_GROUPBY"));
+        assertGroups(program, "a", "2", "b", "1", "c", "2");
+    }
+
+    @Test
+    public void requireSortedGroupbyFiltered() throws Exception {
+        CompiledProgram program = compile(OrderedSource.class, "SELECT * FROM source WHERE score > 1 | groupby('value', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("SORTED_GROUPBY"));
+        assertGroups(program, "a", "1", "b", "1", "c", "2");
+    }
+
+    @Test
+    public void requireSortedGroupbyLimit() throws Exception {
+        // a LIMIT over the pipe takes the first groups in source order
+        CompiledProgram program = compile(OrderedSource.class, "SELECT * FROM (SELECT * FROM source | groupby('value', 'value', 'items')) LIMIT 2 OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("SORTED_GROUPBY"));
+        assertGroups(program, "a", "2", "b", "1");
+    }
+
+    @Test
+    public void requireBatchOrdering() throws Exception {
+        CompiledProgram program = compile(OrderedSource.class, "SELECT * FROM source WHERE id IN ('1', '2') | groupby('value', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertTrue(dump(program).contains("SORTED_GROUPBY"));
+    }
+
+    @Test
+    public void requireUnorderedGroupby() throws Exception {
+        CompiledProgram program = compile(UnorderedSource.class, "SELECT * FROM source | groupby('value', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertFalse(dump(program).contains("SORTED_GROUPBY"));
+        assertGroups(program, "a", "2", "b", "1", "c", "2");
+        program = compile(OrderedSource.class, "SELECT * FROM source | groupby('id', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertFalse(dump(program).contains("SORTED_GROUPBY"));
+        program = compile(OrderedSource.class, "SELECT * FROM source ORDER BY id DESC | groupby('value', 'value', 'items') OUTPUT AS f1;");
+        Assert.assertFalse(dump(program).contains("SORTED_GROUPBY"));
+    }
+
+    @Test(expectedExceptions = YQLTypeException.class, expectedExceptionsMessageRegExp = ".*@OrderedBy\\('missing'\\) property does not exist.*")
+    public void requireOrderedByProperty() throws Exception {
+        compile(BadOrderSource.class, "SELECT * FROM source OUTPUT AS f1;");
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.OptionalBinder;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.internal.bytecode.GeneratedClassCache;
+import com.yahoo.yqlplus.engine.internal.source.SourceAdapterRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SourceAdapterRegistryTest {
+    private static String program(int limit) {
+        return "PROGRAM (@a string);" +
+                "SELECT * FROM innersource WHERE id = @a LIMIT cool.incr(" + limit + ") OUTPUT AS b1;";
+    }
+
+    private void assertRuns(CompiledProgram program, String id) throws Exception {
+        List<Person> rows = program.run(ImmutableMap.<String, Object>of("a", id), true).getResult("b1").get().getResult();
+        Assert.assertEquals(rows.size(), 1);
+        Assert.assertEquals(rows.get(0).getId(), id);
+    }
+
+    @Test
+    public void requireAdaptersShared() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("cool", UDFsTest.CoolModule.class));
+        YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        SourceAdapterRegistry registry = injector.getInstance(SourceAdapterRegistry.class);
+        CompiledProgram first = compiler.compile(program(0));
+        Assert.assertEquals(registry.size(), 2);
+        CompiledProgram second = compiler.compile(program(1));
+        Assert.assertEquals(registry.size(), 2);
+        assertRuns(first, "1");
+        assertRuns(second, "3");
+        assertRuns(first, "3");
+    }
+
+    @Test
+    public void requireConcurrentCompiles() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("cool", UDFsTest.CoolModule.class));
+        final YQLPlusCompiler compiler = injector.getInstance(YQLPlusCompiler.class);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompiledProgram>> programs = Lists.newArrayList();
+            for (int i = 0; i < 16; ++i) {
+                final int limit = i;
+                programs.add(pool.submit(new Callable<CompiledProgram>() {
+                    @Override
+                    public CompiledProgram call() throws Exception {
+                        return compiler.compile(program(limit));
+                    }
+                }));
+            }
+            for (Future<CompiledProgram> program : programs) {
+                assertRuns(program.get(), "3");
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(injector.getInstance(SourceAdapterRegistry.class).size(), 2);
+    }
+
+    @Test
+    public void requireNotSharedWithClassCache() throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("cool", UDFsTest.CoolModule.class), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), GeneratedClassCache.class)
+                        .setBinding().toInstance(new GeneratedClassCache() {
+                            @Override
+                            public byte[] get(String key) {
+                                return null;
+                            }
+
+                            @Override
+                            public void put(String key, byte[] entry) {
+                            }
+                        });
+            }
+        });
+        assertRuns(injector.getInstance(YQLPlusCompiler.class).compile(program(0)), "1");
+        Assert.assertEquals(injector.getInstance(SourceAdapterRegistry.class).size(), 0);
+    }
+}
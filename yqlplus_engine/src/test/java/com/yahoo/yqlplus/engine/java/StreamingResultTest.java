@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.yahoo.cloud.metrics.api.DummyStandardRequestEmitter;
+import com.yahoo.cloud.metrics.api.MetricDimension;
+import com.yahoo.cloud.metrics.api.RequestEvent;
+import com.yahoo.cloud.metrics.api.RequestMetricSink;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.DummyTracer;
+import com.yahoo.yqlplus.engine.TaskContext;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.StreamingInvocationResultHandler;
+import com.yahoo.yqlplus.engine.internal.java.runtime.RelativeTicker;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TimeoutTracker;
+import com.yahoo.yqlplus.engine.scope.EmptyExecutionScope;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class StreamingResultTest {
+    public static class PersonSource implements Source {
+        @Query
+        public List<Person> lookup(@Key("id") String id) {
+            return ImmutableList.of(new Person(id, "a", 1), new Person(id, "b", 2));
+        }
+
+        @Query
+        public List<Person> scan() {
+            return ImmutableList.of(new Person("1", "a", 1));
+        }
+    }
+
+    private static class Handler implements StreamingInvocationResultHandler {
+        final Map<String, List<List<Object>>> chunks = Maps.newConcurrentMap();
+        final Map<String, Object> values = Maps.newConcurrentMap();
+        final List<String> completed = Lists.newCopyOnWriteArrayList();
+        final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        @Override
+        public void onRows(String name, List<Object> rows) {
+            chunks.computeIfAbsent(name, k -> Lists.newCopyOnWriteArrayList()).add(ImmutableList.copyOf(rows));
+        }
+
+        @Override
+        public void onComplete(String name) {
+            completed.add(name);
+        }
+
+        @Override
+        public void fail(Throwable t) {
+            done.completeExceptionally(t);
+        }
+
+        @Override
+        public void succeed(String name, Object value) {
+            values.put(name, value);
+        }
+
+        @Override
+        public void fail(String name, Throwable t) {
+            done.completeExceptionally(t);
+        }
+
+        @Override
+        public void end() {
+            done.complete(true);
+        }
+    }
+
+    private Handler invoke(String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("source", PersonSource.class));
+        CompiledProgram program = injector.getInstance(YQLPlusCompiler.class).compile(query);
+        Handler handler = new Handler();
+        program.invoke(handler, ImmutableMap.<String, Object>of(), new EmptyExecutionScope(),
+                new TaskContext(new DummyStandardRequestEmitter(new MetricDimension(), new RequestMetricSink() {
+                    @Override
+                    public void emitRequest(RequestEvent requestEvent) {
+
+                    }
+                }), new DummyTracer(), new TimeoutTracker(30L, TimeUnit.SECONDS, new RelativeTicker(Ticker.systemTicker()))));
+        handler.done.get(30L, TimeUnit.SECONDS);
+        return handler;
+    }
+
+    @Test
+    public void requireMergeStreamsPerInput() throws Exception {
+        Handler handler = invoke("SELECT * FROM source WHERE id = '1' MERGE SELECT * FROM source WHERE id = '2' OUTPUT AS f1;");
+        Assert.assertEquals(handler.completed, ImmutableList.of("f1"));
+        Assert.assertFalse(handler.values.containsKey("f1"));
+        List<List<Object>> chunks = handler.chunks.get("f1");
+        Assert.assertEquals(chunks.size(), 2);
+        for (List<Object> chunk : chunks) {
+            Assert.assertEquals(chunk.size(), 2);
+        }
+    }
+
+    @Test
+    public void requireAccumulatedResult() throws Exception {
+        Handler handler = invoke("SELECT * FROM source ORDER BY id OUTPUT AS f1;");
+        Assert.assertEquals(handler.completed, ImmutableList.of("f1"));
+        Assert.assertEquals(handler.chunks.get("f1").size(), 1);
+        Assert.assertEquals(handler.chunks.get("f1").get(0).size(), 1);
+    }
+
+    @Test
+    public void requireCountSucceeds() throws Exception {
+        Handler handler = invoke("SELECT * FROM source WHERE id = '1' MERGE SELECT * FROM source WHERE id = '2' OUTPUT COUNT AS f1;");
+        Assert.assertEquals(handler.values.get("f1"), 4);
+        Assert.assertFalse(handler.chunks.containsKey("f1"));
+        Assert.assertTrue(handler.completed.isEmpty());
+    }
+
+    @Test
+    public void requireSharedResult() throws Exception {
+        // the result is consumed by both OUTPUT and OUTPUT COUNT, so it is accumulated once
+        Handler handler = invoke("CREATE TEMP TABLE people AS (SELECT * FROM source WHERE id = '1' MERGE SELECT * FROM source WHERE id = '2'); " +
+                "SELECT * FROM people OUTPUT AS f1; SELECT * FROM people OUTPUT COUNT AS f2;");
+        Assert.assertEquals(handler.chunks.get("f1").size(), 1);
+        Assert.assertEquals(handler.chunks.get("f1").get(0).size(), 4);
+        Assert.assertEquals(handler.values.get("f2"), 4);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.OptionalBinder;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.api.Record;
+import com.yahoo.yqlplus.engine.internal.compiler.streams.PlanProgramCompileOptions;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SymmetricJoinTest {
+    private static final AtomicBoolean SLOW_DONE = new AtomicBoolean();
+    private static final List<Boolean> KEYED_AFTER_SLOW = Lists.newCopyOnWriteArrayList();
+
+    public static class Item {
+        private final String id;
+        private final String value;
+
+        public Item(String id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        public String getId() {
+            KEYED_AFTER_SLOW.add(SLOW_DONE.get());
+            return id;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static class FastSource implements Source {
+        @Query
+        public List<Item> scan() {
+            return ImmutableList.of(new Item("1", "a"), new Item("2", "b"), new Item("3", "c"), new Item("1", "d"));
+        }
+    }
+
+    public static class SlowSource implements Source {
+        @Query
+        public List<Person> scan() throws InterruptedException {
+            Thread.sleep(250L);
+            SLOW_DONE.set(true);
+            return ImmutableList.of(new Person("1", "x", 1), new Person("2", "y", 2), new Person("1", "z", 3), new Person("4", "w", 4));
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        SLOW_DONE.set(false);
+        KEYED_AFTER_SLOW.clear();
+    }
+
+    private CompiledProgram compile(final boolean symmetric, String query) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new SourceBindingModule("fast", FastSource.class, "slow", SlowSource.class), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), com.google.inject.Key.get(PlanProgramCompileOptions.class))
+                        .setBinding().toInstance(new PlanProgramCompileOptions.PlanProgramOptionsBuilder().symmetricJoin(symmetric).build());
+            }
+        });
+        return injector.getInstance(YQLPlusCompiler.class).compile(query);
+    }
+
+    private List<String> run(boolean symmetric, String query) throws Exception {
+        List<Record> rows = compile(symmetric, query).run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        List<String> result = Lists.newArrayList();
+        for (Record row : rows) {
+            result.add(row.get("lv") + "/" + row.get("rv"));
+        }
+        return result;
+    }
+
+    @Test
+    public void requireSameResults() throws Exception {
+        String[] queries = {
+                "SELECT l.value lv, r.value rv FROM fast l JOIN slow r ON l.id = r.id OUTPUT AS f1;",
+                "SELECT l.value lv, r.value rv FROM slow l JOIN fast r ON l.id = r.id OUTPUT AS f1;",
+                "SELECT l.value lv, r.value rv FROM fast l LEFT JOIN slow r ON l.id = r.id OUTPUT AS f1;",
+                "SELECT l.value lv, r.value rv FROM slow l LEFT JOIN fast r ON l.id = r.id OUTPUT AS f1;",
+                "SELECT l.value lv, r.value rv FROM fast l JOIN slow r ON l.id = r.id AND l.value = r.value OUTPUT AS f1;",
+                "SELECT l.value lv, r.value rv FROM slow l JOIN slow r ON l.score = r.score OUTPUT AS f1;",
+        };
+        for (String query : queries) {
+            Assert.assertEquals(run(true, query), run(false, query), query);
+        }
+        Assert.assertEquals(run(true, queries[0]), ImmutableList.of("a/x", "a/z", "b/y", "d/x", "d/z"));
+        Assert.assertEquals(run(true, queries[2]), ImmutableList.of("a/x", "a/z", "b/y", "c/null", "d/x", "d/z"));
+    }
+
+    @Test
+    public void requireFastSideHashedFirst() throws Exception {
+        String query = "SELECT l.value lv, r.value rv FROM fast l JOIN slow r ON l.id = r.id OUTPUT AS f1;";
+        run(false, query);
+        Assert.assertFalse(KEYED_AFTER_SLOW.isEmpty());
+        Assert.assertFalse(KEYED_AFTER_SLOW.contains(false));
+        setUp();
+        run(true, query);
+        Assert.assertFalse(KEYED_AFTER_SLOW.isEmpty());
+        Assert.assertFalse(KEYED_AFTER_SLOW.contains(true));
+    }
+
+    @Test
+    public void requireSymmetricDump() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compile(true, "SELECT l.value lv, r.value rv FROM fast l JOIN slow r ON l.id = r.id OUTPUT AS f1;").dump(out);
+        Assert.assertTrue(out.toString().contains("SYMMETRIC_INSERT_LEFT"));
+        Assert.assertTrue(out.toString().contains("SYMMETRIC_JOIN"));
+        Assert.assertFalse(out.toString().contains("HASH_JOIN"));
+    }
+}
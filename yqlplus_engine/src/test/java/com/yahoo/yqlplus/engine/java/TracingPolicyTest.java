@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.OptionalBinder;
+import com.yahoo.yqlplus.api.trace.TraceRequest;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.ProgramResult;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.internal.java.runtime.TracingPolicy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class TracingPolicyTest {
+    private CompiledProgram compile(final TracingPolicy policy) throws Exception {
+        Injector injector = Guice.createInjector(new JavaTestModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), com.google.inject.Key.get(TracingPolicy.class))
+                        .setBinding().toInstance(policy);
+            }
+        });
+        return injector.getInstance(YQLPlusCompiler.class).compile("SELECT * FROM people WHERE id IN ('1', '2') OUTPUT AS f1;");
+    }
+
+    private TraceRequest run(CompiledProgram program, boolean debug) throws Exception {
+        ProgramResult result = program.run(ImmutableMap.<String, Object>of(), debug);
+        List<Person> rows = result.getResult("f1").get().getResult();
+        Assert.assertEquals(rows.size(), 2);
+        return result.getEnd().get();
+    }
+
+    @Test
+    public void requireUnsampledNotTraced() throws Exception {
+        CompiledProgram program = compile(TracingPolicy.OFF);
+        Assert.assertEquals(run(program, false).getEntries().size(), 1);
+    }
+
+    @Test
+    public void requireDebugTraced() throws Exception {
+        CompiledProgram program = compile(TracingPolicy.OFF);
+        Assert.assertTrue(run(program, true).getEntries().size() > 1);
+        Assert.assertTrue(run(compile(TracingPolicy.FULL), false).getEntries().size() > 1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.engine.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import com.yahoo.yqlplus.api.Source;
+import com.yahoo.yqlplus.api.annotations.Key;
+import com.yahoo.yqlplus.api.annotations.Query;
+import com.yahoo.yqlplus.api.trace.TraceEntry;
+import com.yahoo.yqlplus.api.trace.TraceRequest;
+import com.yahoo.yqlplus.engine.CompiledProgram;
+import com.yahoo.yqlplus.engine.YQLPlusCompiler;
+import com.yahoo.yqlplus.engine.guice.VirtualThreadPoolModule;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+public class VirtualThreadPoolModuleTest {
+    private static final Map<String, Boolean> THREADS = new ConcurrentHashMap<>();
+    private static final Method IS_VIRTUAL = isVirtualMethod();
+
+    private static Method isVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class BlockingSource implements Source {
+        @Query
+        public List<Person> lookup(@Key("id") String id) throws InterruptedException {
+            Thread thread = Thread.currentThread();
+            THREADS.put(thread.getName(), isVirtual(thread));
+            Thread.sleep(5);
+            return ImmutableList.of(new Person(id, "joe", 0));
+        }
+    }
+
+    private static class PlatformThreadPoolModule extends VirtualThreadPoolModule {
+        @Override
+        protected ThreadFactory createVirtualThreadFactory() {
+            return null;
+        }
+    }
+
+    private Injector createInjector(Module threadPool) {
+        return Guice.createInjector(Modules.override(new JavaTestModule(), new SourceBindingModule("blocking", BlockingSource.class))
+                .with(threadPool));
+    }
+
+    private void runScatter(Module threadPool) throws Exception {
+        THREADS.clear();
+        YQLPlusCompiler compiler = createInjector(threadPool).getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM blocking WHERE id IN ('1', '2', '3') OUTPUT AS f1;");
+        List<Person> people = program.run(ImmutableMap.<String, Object>of(), true).getResult("f1").get().getResult();
+        Assert.assertEquals(people.size(), 3);
+        Assert.assertFalse(THREADS.isEmpty());
+        for (String name : THREADS.keySet()) {
+            Assert.assertTrue(name.startsWith("work-"), name);
+        }
+    }
+
+    private void requireVirtualThreads() {
+        if (!VirtualThreadPoolModule.isSupported()) {
+            throw new SkipException("virtual threads are not supported by this JDK");
+        }
+    }
+
+    @Test
+    public void requireScatterOnVirtualThreads() throws Exception {
+        requireVirtualThreads();
+        runScatter(new VirtualThreadPoolModule());
+        for (Map.Entry<String, Boolean> thread : THREADS.entrySet()) {
+            Assert.assertTrue(thread.getValue(), thread.getKey());
+        }
+    }
+
+    @Test
+    public void requireTrace() throws Exception {
+        requireVirtualThreads();
+        YQLPlusCompiler compiler = createInjector(new VirtualThreadPoolModule()).getInstance(YQLPlusCompiler.class);
+        CompiledProgram program = compiler.compile("SELECT * FROM trace OUTPUT AS b1;");
+        TraceRequest trace = program.run(ImmutableMap.<String, Object>of(), true).getEnd().get();
+        for (TraceEntry entry : trace.getEntries()) {
+            if ("MINE".equals(entry.getName())) {
+                return;
+            }
+        }
+        Assert.fail("Did not find our trace entry");
+    }
+
+    @Test
+    public void requireFallbackToPlatformThreads() throws Exception {
+        runScatter(new PlatformThreadPoolModule());
+        for (Map.Entry<String, Boolean> thread : THREADS.entrySet()) {
+            Assert.assertFalse(thread.getValue(), thread.getKey());
+        }
+    }
+}
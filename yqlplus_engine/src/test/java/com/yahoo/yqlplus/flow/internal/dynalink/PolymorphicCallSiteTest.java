@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.flow.internal.dynalink;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.List;
+
+public class PolymorphicCallSiteTest {
+    public static class Named {
+        private final String name;
+
+        public Named(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class A extends Named {
+        public A() {
+            super("a");
+        }
+    }
+
+    public static class B extends Named {
+        public B() {
+            super("b");
+        }
+    }
+
+    public static class C extends Named {
+        public C() {
+            super("c");
+        }
+    }
+
+    public static class D extends Named {
+        public D() {
+            super("d");
+        }
+    }
+
+    public static class E extends Named {
+        public E() {
+            super("e");
+        }
+    }
+
+    public static class F extends Named {
+        public F() {
+            super("f");
+        }
+    }
+
+    public static class G extends Named {
+        public G() {
+            super("g");
+        }
+    }
+
+    public static class H extends Named {
+        public H() {
+            super("h");
+        }
+    }
+
+    public static class I extends Named {
+        public I() {
+            super("i");
+        }
+    }
+
+    public static class J extends Named {
+        public J() {
+            super("j");
+        }
+    }
+
+    private static PolymorphicCallSite site(CallSite callSite) {
+        for (PolymorphicCallSite site : FlowBootstrapper.getCallSites()) {
+            if (site == callSite) {
+                return site;
+            }
+        }
+        throw new AssertionError("call site not registered");
+    }
+
+    @Test
+    public void requireStablePolymorphicSite() throws Throwable {
+        CallSite callSite = FlowBootstrapper.publicBootstrap(null, "dyn:getProp:name", MethodType.methodType(Object.class, Object.class));
+        MethodHandle getName = callSite.dynamicInvoker();
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertEquals(getName.invoke(new A()), "a");
+            Assert.assertEquals(getName.invoke(new B()), "b");
+        }
+        PolymorphicCallSite site = site(callSite);
+        Assert.assertEquals(site.getRelinkCount(), 2L);
+        Assert.assertEquals(site.getChainLength(), 2);
+        Assert.assertFalse(site.isMegamorphic());
+    }
+
+    @Test
+    public void requireMegamorphicFallback() throws Throwable {
+        CallSite callSite = FlowBootstrapper.publicBootstrap(null, "dyn:getProp:name", MethodType.methodType(Object.class, Object.class));
+        MethodHandle getName = callSite.dynamicInvoker();
+        List<Named> receivers = Arrays.asList(new A(), new B(), new C(), new D(), new E(), new F(), new G(), new H(), new I(), new J());
+        for (int i = 0; i < 3; ++i) {
+            for (Named receiver : receivers) {
+                Assert.assertEquals(getName.invoke(receiver), receiver.getName());
+            }
+        }
+        PolymorphicCallSite site = site(callSite);
+        Assert.assertTrue(site.isMegamorphic(), site.toString());
+        Assert.assertEquals(getName.invoke(new A()), "a");
+        Assert.assertEquals(getName.invoke(new B()), "b");
+    }
+
+    @Test
+    public void requireLookupBootstrap() throws Throwable {
+        CallSite callSite = FlowBootstrapper.bootstrap(MethodHandles.lookup(), "dyn:getProp:name", MethodType.methodType(Object.class, Object.class));
+        Assert.assertEquals(callSite.dynamicInvoker().invoke(new A()), "a");
+        Assert.assertEquals(site(callSite).getName(), "dyn:getProp:name");
+    }
+}
@@ -145,7 +145,7 @@ public final class ProgramParser {
     }
 
 
-    private yqlplusParser prepareParser(final String programName, CharStream input) {
+    private yqlplusLexer prepareLexer(final String programName, CharStream input) {
         yqlplusLexer lex = new yqlplusLexer(input);
         lex.addErrorListener(new BaseErrorListener() {
             @Override
@@ -159,7 +159,11 @@ public final class ProgramParser {
             }
 
         });
-        TokenStream tokens = new CommonTokenStream(lex);
+        return lex;
+    }
+
+    private yqlplusParser prepareParser(final String programName, CharStream input) {
+        TokenStream tokens = new CommonTokenStream(prepareLexer(programName, input));
         yqlplusParser parser = new yqlplusParser(tokens);
         parser.addErrorListener(new BaseErrorListener() {
             @Override
@@ -188,6 +192,26 @@ public final class ProgramParser {
         }
     }
 
+    /**
+     * Produce a canonical text for a program: whitespace and comments are dropped and the remaining tokens are
+     * joined with a single space. Two programs with the same normalized text parse to the same logical program
+     * (modulo source locations).
+     */
+    public String normalize(String programName, String program) throws IOException {
+        yqlplusLexer lex = prepareLexer(programName, new CaseInsensitiveInputStream(program));
+        StringBuilder out = new StringBuilder(program.length());
+        for (Token token = lex.nextToken(); token.getType() != Token.EOF; token = lex.nextToken()) {
+            if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(token.getText());
+        }
+        return out.toString();
+    }
+
     public OperatorNode<StatementOperator> parse(String programName, InputStream program) throws IOException, RecognitionException {
         yqlplusParser parser = prepareParser(programName, program);
         return convertProgram(parseProgram(parser), parser, programName);
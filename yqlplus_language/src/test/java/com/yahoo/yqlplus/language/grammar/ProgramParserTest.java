@@ -224,5 +224,12 @@ public class ProgramParserTest {
         assertEquals("(PROGRAM L0:0 [(EXECUTE L12:2 (PROJECT (SCAN L64:2 {alias=protos} [protos], [(LITERAL L71:2 1)]), [(FIELD (READ_FIELD L41:2 protos, allMergedClusters), allMergedClusters)]), allMergedClusters), (EXECUTE L1:3 (EVALUATE L15:3 {alias=allMergedClusters} (VARREF L15:3 allMergedClusters)), protos), (OUTPUT L1:3 protos)])",
                 parser.parse("query", programStr).toString());
     }
-}
 
+    @Test
+    public void testNormalize() throws IOException {
+        ProgramParser parser = new ProgramParser();
+        String normalized = parser.normalize("query", "SELECT *\n  FROM people // trailing comment\n WHERE id = 'a  b' /* block */ OUTPUT AS f1;");
+        assertEquals("SELECT * FROM people WHERE id = 'a  b' OUTPUT AS f1 ;", normalized);
+        assertEquals(normalized, parser.normalize("query", "SELECT * FROM people WHERE id = 'a  b' OUTPUT AS f1;"));
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.api.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Cache the results of a @Query method (or of every @Query method of a source type) across program executions.
+ *
+ * Results are cached by the method's keys and arguments, and are fresh for ttlMilliseconds after they are loaded.
+ * For a further staleMilliseconds a result may still be used while one invocation reloads it. Concurrent invocations
+ * missing the cache share a single load.
+ *
+ * The size of each method's cache is bounded by maximumWeight, where each result weighs the number of rows it holds
+ * (at least one).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface Cached {
+    long ttlMilliseconds();
+
+    long staleMilliseconds() default 0L;
+
+    long maximumWeight() default 10000L;
+}
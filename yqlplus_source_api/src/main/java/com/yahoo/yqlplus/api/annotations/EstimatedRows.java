@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.api.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declare the typical number of rows returned by a @Query method which takes no keys (a SCAN). When both inputs of a
+ * join carry an estimate the engine can hash the smaller one instead of always hashing the right side.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+@Documented
+public @interface EstimatedRows {
+    long value();
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.api.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a @Query method (or every @Query method of a source type) which must be called for every invocation.
+ *
+ * By default identical invocations (the same method with the same keys and arguments) within one program execution
+ * share a single call to the source.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface NotIdempotent {
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2016 Yahoo Inc.
+ * Licensed under the terms of the Apache version 2.0 license.
+ * See LICENSE file for terms.
+ */
+
+package com.yahoo.yqlplus.api.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declare that a @Query method returns its rows ordered (ascending or descending) by the named fields, most
+ * significant first. Rows with equal values for the first field are therefore adjacent, which lets the engine group
+ * them without accumulating the whole result.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+@Documented
+public @interface OrderedBy {
+    String[] value();
+}
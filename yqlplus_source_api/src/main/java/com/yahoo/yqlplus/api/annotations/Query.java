@@ -15,5 +15,10 @@ import java.lang.annotation.*;
 @Target({ElementType.METHOD})
 @Documented
 public @interface Query {
-
+    /**
+     * For a batch method (one taking a List of keys), the most keys to pass in one call. Longer key lists are split
+     * into chunks of at most this many keys, which are requested in parallel and their results concatenated in key
+     * order. 0 (the default) passes all of the keys in a single call.
+     */
+    int batchSize() default 0;
 }